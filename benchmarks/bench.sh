@@ -0,0 +1,31 @@
+#!/bin/sh
+# Builds and runs the JMH benchmarks, or compares two runs.
+#
+#   ./bench.sh run [JMH options]                         runs everything with the gc profiler, writing results.csv
+#   ./bench.sh run TimeSetBenchmark -p size=1000         runs a subset, any JMH option can be passed through
+#   ./bench.sh compare baseline.csv [results.csv] [%]    compares a run against a baseline, failing on regressions
+#
+# To take a baseline, run the benchmarks on the old commit and keep its results.csv as baseline.csv.
+set -e
+cd "$(dirname "$0")"
+
+case "$1" in
+  run)
+    shift
+    (cd .. && mvn -B -q install -DskipTests)
+    mvn -B -q package
+    java -jar target/benchmarks.jar -prof gc -rf csv -rff results.csv "$@"
+    ;;
+  compare)
+    shift
+    if [ ! -f target/benchmarks.jar ]; then
+      (cd .. && mvn -B -q install -DskipTests)
+      mvn -B -q package
+    fi
+    java -cp target/benchmarks.jar benchmarks.CompareResults "$1" "${2:-results.csv}" "${3:-10}"
+    ;;
+  *)
+    sed -n '2,9p' "$0"
+    exit 1
+    ;;
+esac
@@ -0,0 +1,188 @@
+import benchmarks.Operations;
+import benchmarks.Workload;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implements the benchmarked operations on top of the library. See benchmarks.Operations for why this exists.
+ *
+ * Lucas Gauk - 2020
+ */
+@SuppressWarnings("unchecked")
+public final class BenchmarkOperations implements Operations {
+
+  private static final LocalDateTime ORIGIN = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  @Override
+  public Object dateTime(long minute) {
+    return ORIGIN.plusMinutes(minute);
+  }
+
+  @Override
+  public Object timeSlot(long startMinute, long endMinute) {
+    return TimeSlot.of(ORIGIN.plusMinutes(startMinute), ORIGIN.plusMinutes(endMinute));
+  }
+
+  @Override
+  public Object timeSlots(Workload workload) {
+    List<TimeSlot> timeSlots = new ArrayList<>(workload.size());
+    for (int i = 0; i < workload.size(); i++) {
+      timeSlots.add((TimeSlot) this.timeSlot(workload.start(i), workload.end(i)));
+    }
+    return timeSlots;
+  }
+
+  @Override
+  public boolean overlaps(Object timeSlot, Object other) {
+    return ((TimeSlot) timeSlot).overlaps((TimeSlot) other);
+  }
+
+  @Override
+  public boolean contains(Object timeSlot, Object other) {
+    return ((TimeSlot) timeSlot).contains((TimeSlot) other);
+  }
+
+  @Override
+  public long length(Object timeSlot) {
+    return ((TimeSlot) timeSlot).length(ChronoUnit.MINUTES);
+  }
+
+  @Override
+  public int compareLength(Object timeSlot, Object other) {
+    return ((TimeSlot) timeSlot).compareLength((TimeSlot) other);
+  }
+
+  @Override
+  public Object intersect(Object timeSlot, Object other) {
+    return ((TimeSlot) timeSlot).intersect((TimeSlot) other);
+  }
+
+  @Override
+  public Object add(Object timeSlot, Object timeSlots) {
+    return ((TimeSlot) timeSlot).add((List<TimeSlot>) timeSlots);
+  }
+
+  @Override
+  public Object subtract(Object timeSlot, Object timeSlots) {
+    return ((TimeSlot) timeSlot).subtract((List<TimeSlot>) timeSlots);
+  }
+
+  @Override
+  public Object sum(Object timeSlots) {
+    return TimeSlot.sum((List<TimeSlot>) timeSlots);
+  }
+
+  @Override
+  public Object timeSet(Object timeSlots) {
+    return TimeSet.of((List<TimeSlot>) timeSlots);
+  }
+
+  @Override
+  public Object copyTimeSet(Object timeSet) {
+    return TimeSet.of((TimeSet) timeSet);
+  }
+
+  @Override
+  public Object addTimeSlot(Object timeSet, Object timeSlot) {
+    ((TimeSet) timeSet).add((TimeSlot) timeSlot);
+    return timeSet;
+  }
+
+  @Override
+  public Object addTimeSet(Object timeSet, Object other) {
+    ((TimeSet) timeSet).add((TimeSet) other);
+    return timeSet;
+  }
+
+  @Override
+  public Object subtractTimeSlot(Object timeSet, Object timeSlot) {
+    ((TimeSet) timeSet).subtract((TimeSlot) timeSlot);
+    return timeSet;
+  }
+
+  @Override
+  public Object subtractTimeSet(Object timeSet, Object other) {
+    ((TimeSet) timeSet).subtract((TimeSet) other);
+    return timeSet;
+  }
+
+  @Override
+  public Object intersectTimeSlot(Object timeSet, Object timeSlot) {
+    ((TimeSet) timeSet).intersect((TimeSlot) timeSlot);
+    return timeSet;
+  }
+
+  @Override
+  public Object intersectTimeSet(Object timeSet, Object other) {
+    ((TimeSet) timeSet).intersect((TimeSet) other);
+    return timeSet;
+  }
+
+  @Override
+  public Object intersection(Object timeSet, Object other) {
+    List<TimeSet> timeSets = new ArrayList<>();
+    timeSets.add((TimeSet) timeSet);
+    timeSets.add((TimeSet) other);
+    return TimeSet.intersection(timeSets);
+  }
+
+  @Override
+  public long lengthOfTimeSet(Object timeSet) {
+    return ((TimeSet) timeSet).length(ChronoUnit.MINUTES);
+  }
+
+  @Override
+  public boolean timeSetContains(Object timeSet, Object dateTime) {
+    return ((TimeSet) timeSet).contains((LocalDateTime) dateTime);
+  }
+
+  @Override
+  public boolean equalTimeSets(Object timeSet, Object other) {
+    return ((TimeSet) timeSet).equals((TimeSet) other);
+  }
+
+  @Override
+  public Object packedTimeSet(Object timeSlots) {
+    return PackedTimeSet.of((List<TimeSlot>) timeSlots);
+  }
+
+  @Override
+  public Object copyPackedTimeSet(Object packedTimeSet) {
+    return PackedTimeSet.of((PackedTimeSet) packedTimeSet);
+  }
+
+  @Override
+  public Object addPackedTimeSet(Object packedTimeSet, Object other) {
+    ((PackedTimeSet) packedTimeSet).add((PackedTimeSet) other);
+    return packedTimeSet;
+  }
+
+  @Override
+  public Object subtractPackedTimeSet(Object packedTimeSet, Object other) {
+    ((PackedTimeSet) packedTimeSet).subtract((PackedTimeSet) other);
+    return packedTimeSet;
+  }
+
+  @Override
+  public Object intersectPackedTimeSet(Object packedTimeSet, Object other) {
+    ((PackedTimeSet) packedTimeSet).intersect((PackedTimeSet) other);
+    return packedTimeSet;
+  }
+
+  @Override
+  public long lengthOfPackedTimeSet(Object packedTimeSet) {
+    return ((PackedTimeSet) packedTimeSet).length(ChronoUnit.MINUTES);
+  }
+
+  @Override
+  public Object timeSlotTree(Object timeSlots) {
+    return TimeSlotTree.of((List<TimeSlot>) timeSlots);
+  }
+
+  @Override
+  public Object overlapping(Object timeSlotTree, Object timeSlot) {
+    return ((TimeSlotTree) timeSlotTree).overlapping((TimeSlot) timeSlot);
+  }
+}
@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with "-rf csv", a baseline and a new run, and prints how every score moved.
+ * Besides the scores themselves, only the bytes allocated per operation from the gc profiler are compared, as the
+ * other gc figures depend too much on the machine. Exits with status 1 if any score got worse by more than the
+ * threshold, so it can gate a build.
+ *
+ * Usage: CompareResults baseline.csv results.csv [threshold percent, 10 by default]
+ *
+ * Lucas Gauk - 2020
+ */
+public final class CompareResults {
+
+  private CompareResults() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: CompareResults baseline.csv results.csv [threshold percent]");
+      System.exit(2);
+    }
+    double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+    Map<String, Result> baseline = CompareResults.read(args[0]);
+    Map<String, Result> results = CompareResults.read(args[1]);
+    int regressions = 0;
+    System.out.println(String.format(Locale.ROOT, "%-90s %14s %14s %9s", "Benchmark", "Baseline", "Result", "Change"));
+    for (Map.Entry<String, Result> entry : results.entrySet()) {
+      Result before = baseline.get(entry.getKey());
+      Result after = entry.getValue();
+      if (before == null) {
+        System.out.println(String.format(Locale.ROOT, "%-90s %14s %14.3f %9s", entry.getKey(), "-", after.score,
+                                         "new"));
+        continue;
+      }
+      double change = before.score == 0 ? 0 : (after.score - before.score) / before.score * 100;
+      double worsening = after.higherIsBetter() ? -change : change;
+      boolean regression = worsening > threshold;
+      if (regression) {
+        regressions++;
+      }
+      System.out.println(String.format(Locale.ROOT, "%-90s %14.3f %14.3f %+8.1f%%%s", entry.getKey(), before.score,
+                                       after.score, change, regression ? "  REGRESSION" : ""));
+    }
+    System.out.println(regressions + " regression(s) worse than " + threshold + "%");
+    System.exit(regressions > 0 ? 1 : 0);
+  }
+
+  /**
+   * Reads a JMH csv result file, keyed by benchmark name and parameters.
+   */
+  private static Map<String, Result> read(String path) throws IOException {
+    List<String> lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+    Map<String, Result> results = new LinkedHashMap<>();
+    if (lines.isEmpty()) {
+      return results;
+    }
+    List<String> header = CompareResults.split(lines.get(0));
+    int benchmark = header.indexOf("Benchmark");
+    int score = header.indexOf("Score");
+    int unit = header.indexOf("Unit");
+    for (String line : lines.subList(1, lines.size())) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      List<String> columns = CompareResults.split(line);
+      String name = columns.get(benchmark);
+      if (name.contains(":") && !name.endsWith("gc.alloc.rate.norm")) {
+        continue;
+      }
+      StringBuilder key = new StringBuilder(name);
+      for (int i = 0; i < header.size(); i++) {
+        if (header.get(i).startsWith("Param: ")) {
+          key.append(' ').append(header.get(i).substring("Param: ".length())).append('=').append(columns.get(i));
+        }
+      }
+      double value = Double.parseDouble(columns.get(score).replace(',', '.'));
+      results.put(key.toString(), new Result(value, columns.get(unit)));
+    }
+    return results;
+  }
+
+  /**
+   * Splits one csv line, allowing for quoted columns.
+   */
+  private static List<String> split(String line) {
+    List<String> columns = new ArrayList<>();
+    StringBuilder column = new StringBuilder();
+    boolean quoted = false;
+    for (char c : line.toCharArray()) {
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted) {
+        columns.add(column.toString());
+        column.setLength(0);
+      } else {
+        column.append(c);
+      }
+    }
+    columns.add(column.toString());
+    return columns;
+  }
+
+  private static final class Result {
+
+    private final double score;
+    private final String unit;
+
+    private Result(double score, String unit) {
+      this.score = score;
+      this.unit = unit;
+    }
+
+    /**
+     * Throughput is reported in operations per unit of time, where bigger is better. Everything else, such as
+     * time per operation or bytes allocated per operation, is better when smaller.
+     */
+    private boolean higherIsBetter() {
+      return this.unit.startsWith("ops/");
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package benchmarks;
+
+/**
+ * The operations benchmarked, as seen from a named package.
+ *
+ * The library lives in the default package, which can not be imported from a named package, and JMH refuses to
+ * generate benchmarks in the default package. This interface is implemented by BenchmarkOperations in the default
+ * package and looked up once by name. Every benchmark then calls the library through a single monomorphic interface
+ * call, which the JIT inlines. Values are passed around as Object because their types can not be named here.
+ *
+ * Lucas Gauk - 2020
+ */
+public interface Operations {
+
+  /**
+   * Loads the default package implementation.
+   *
+   * @return the operations
+   */
+  static Operations load() {
+    try {
+      return (Operations) Class.forName("BenchmarkOperations").getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("BenchmarkOperations must be on the class path", e);
+    }
+  }
+
+  // Conversions, all minutes are after a fixed origin
+
+  Object dateTime(long minute);
+
+  Object timeSlot(long startMinute, long endMinute);
+
+  Object timeSlots(Workload workload);
+
+  // TimeSlot
+
+  boolean overlaps(Object timeSlot, Object other);
+
+  boolean contains(Object timeSlot, Object other);
+
+  long length(Object timeSlot);
+
+  int compareLength(Object timeSlot, Object other);
+
+  Object intersect(Object timeSlot, Object other);
+
+  Object add(Object timeSlot, Object timeSlots);
+
+  Object subtract(Object timeSlot, Object timeSlots);
+
+  Object sum(Object timeSlots);
+
+  // TimeSet, the mutating operations return the time set they were given
+
+  Object timeSet(Object timeSlots);
+
+  Object copyTimeSet(Object timeSet);
+
+  Object addTimeSlot(Object timeSet, Object timeSlot);
+
+  Object addTimeSet(Object timeSet, Object other);
+
+  Object subtractTimeSlot(Object timeSet, Object timeSlot);
+
+  Object subtractTimeSet(Object timeSet, Object other);
+
+  Object intersectTimeSlot(Object timeSet, Object timeSlot);
+
+  Object intersectTimeSet(Object timeSet, Object other);
+
+  Object intersection(Object timeSet, Object other);
+
+  long lengthOfTimeSet(Object timeSet);
+
+  boolean timeSetContains(Object timeSet, Object dateTime);
+
+  boolean equalTimeSets(Object timeSet, Object other);
+
+  // PackedTimeSet, the mutating operations return the packed time set they were given
+
+  Object packedTimeSet(Object timeSlots);
+
+  Object copyPackedTimeSet(Object packedTimeSet);
+
+  Object addPackedTimeSet(Object packedTimeSet, Object other);
+
+  Object subtractPackedTimeSet(Object packedTimeSet, Object other);
+
+  Object intersectPackedTimeSet(Object packedTimeSet, Object other);
+
+  long lengthOfPackedTimeSet(Object packedTimeSet);
+
+  // TimeSlotTree
+
+  Object timeSlotTree(Object timeSlots);
+
+  Object overlapping(Object timeSlotTree, Object timeSlot);
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the PackedTimeSet operations, for comparison with TimeSetBenchmark.
+ * As there, the benchmarks that modify a set first copy it, and copy() reports what that costs.
+ *
+ * Lucas Gauk - 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class PackedTimeSetBenchmark {
+
+  @Param({"10", "1000", "100000", "10000000"})
+  public int size;
+
+  @Param({"DISJOINT", "OVERLAPPING", "NESTED"})
+  public Workload.Density density;
+
+  private Operations operations;
+  private Object timeSlots;
+  private Object packedTimeSet;
+  private Object other;
+
+  @Setup
+  public void setup() {
+    this.operations = Operations.load();
+    this.timeSlots = this.operations.timeSlots(Workload.generate(this.density, this.size, 1));
+    this.packedTimeSet = this.operations.packedTimeSet(this.timeSlots);
+    this.other = this.operations.packedTimeSet(this.operations.timeSlots(Workload.generate(this.density, this.size, 2)));
+  }
+
+  @Benchmark
+  public Object of() {
+    return this.operations.packedTimeSet(this.timeSlots);
+  }
+
+  @Benchmark
+  public Object copy() {
+    return this.operations.copyPackedTimeSet(this.packedTimeSet);
+  }
+
+  @Benchmark
+  public Object add() {
+    return this.operations.addPackedTimeSet(this.operations.copyPackedTimeSet(this.packedTimeSet), this.other);
+  }
+
+  @Benchmark
+  public Object subtract() {
+    return this.operations.subtractPackedTimeSet(this.operations.copyPackedTimeSet(this.packedTimeSet), this.other);
+  }
+
+  @Benchmark
+  public Object intersect() {
+    return this.operations.intersectPackedTimeSet(this.operations.copyPackedTimeSet(this.packedTimeSet), this.other);
+  }
+
+  @Benchmark
+  public long length() {
+    return this.operations.lengthOfPackedTimeSet(this.packedTimeSet);
+  }
+}
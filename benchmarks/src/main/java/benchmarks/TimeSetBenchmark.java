@@ -0,0 +1,116 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the TimeSet operations.
+ *
+ * TimeSets are mutable, so the benchmarks that modify a set first copy it. The cost of that copy on its own is
+ * reported by copy(), and should be taken away from theirs.
+ *
+ * Lucas Gauk - 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TimeSetBenchmark {
+
+  @Param({"10", "1000", "100000", "10000000"})
+  public int size;
+
+  @Param({"DISJOINT", "OVERLAPPING", "NESTED"})
+  public Workload.Density density;
+
+  private Operations operations;
+  private Object timeSlots;
+  private Object timeSet;
+  private Object other;
+  private Object timeSlot;
+  private Object dateTime;
+
+  @Setup
+  public void setup() {
+    this.operations = Operations.load();
+    Workload workload = Workload.generate(this.density, this.size, 1);
+    this.timeSlots = this.operations.timeSlots(workload);
+    this.timeSet = this.operations.timeSet(this.timeSlots);
+    this.other = this.operations.timeSet(this.operations.timeSlots(Workload.generate(this.density, this.size, 2)));
+    long middle = workload.middle();
+    this.timeSlot = this.operations.timeSlot(middle, middle + 1 + middle / 100);
+    this.dateTime = this.operations.dateTime(middle);
+  }
+
+  @Benchmark
+  public Object of() {
+    return this.operations.timeSet(this.timeSlots);
+  }
+
+  @Benchmark
+  public Object copy() {
+    return this.operations.copyTimeSet(this.timeSet);
+  }
+
+  @Benchmark
+  public Object add_timeSlot() {
+    return this.operations.addTimeSlot(this.operations.copyTimeSet(this.timeSet), this.timeSlot);
+  }
+
+  @Benchmark
+  public Object add_timeSet() {
+    return this.operations.addTimeSet(this.operations.copyTimeSet(this.timeSet), this.other);
+  }
+
+  @Benchmark
+  public Object subtract_timeSlot() {
+    return this.operations.subtractTimeSlot(this.operations.copyTimeSet(this.timeSet), this.timeSlot);
+  }
+
+  @Benchmark
+  public Object subtract_timeSet() {
+    return this.operations.subtractTimeSet(this.operations.copyTimeSet(this.timeSet), this.other);
+  }
+
+  @Benchmark
+  public Object intersect_timeSlot() {
+    return this.operations.intersectTimeSlot(this.operations.copyTimeSet(this.timeSet), this.timeSlot);
+  }
+
+  @Benchmark
+  public Object intersect_timeSet() {
+    return this.operations.intersectTimeSet(this.operations.copyTimeSet(this.timeSet), this.other);
+  }
+
+  @Benchmark
+  public Object intersection() {
+    return this.operations.intersection(this.timeSet, this.other);
+  }
+
+  @Benchmark
+  public long length() {
+    return this.operations.lengthOfTimeSet(this.timeSet);
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return this.operations.timeSetContains(this.timeSet, this.dateTime);
+  }
+
+  @Benchmark
+  public boolean equals() {
+    return this.operations.equalTimeSets(this.timeSet, this.other);
+  }
+}
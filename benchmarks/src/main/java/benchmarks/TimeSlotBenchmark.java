@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the operations between two single time slots, for each kind of overlap.
+ *
+ * Lucas Gauk - 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeSlotBenchmark {
+
+  private Operations operations;
+  private Object timeSlot;
+  private Object partial;
+  private Object contained;
+  private Object disjoint;
+
+  @Setup
+  public void setup() {
+    this.operations = Operations.load();
+    this.timeSlot = this.operations.timeSlot(60, 180);
+    this.partial = this.operations.timeSlot(120, 240);
+    this.contained = this.operations.timeSlot(90, 120);
+    this.disjoint = this.operations.timeSlot(300, 360);
+  }
+
+  @Benchmark
+  public boolean overlaps_partial() {
+    return this.operations.overlaps(this.timeSlot, this.partial);
+  }
+
+  @Benchmark
+  public boolean overlaps_contained() {
+    return this.operations.overlaps(this.timeSlot, this.contained);
+  }
+
+  @Benchmark
+  public boolean overlaps_disjoint() {
+    return this.operations.overlaps(this.timeSlot, this.disjoint);
+  }
+
+  @Benchmark
+  public boolean contains() {
+    return this.operations.contains(this.timeSlot, this.contained);
+  }
+
+  @Benchmark
+  public long length() {
+    return this.operations.length(this.timeSlot);
+  }
+
+  @Benchmark
+  public int compareLength() {
+    return this.operations.compareLength(this.timeSlot, this.partial);
+  }
+
+  @Benchmark
+  public Object intersect() {
+    return this.operations.intersect(this.timeSlot, this.partial);
+  }
+}
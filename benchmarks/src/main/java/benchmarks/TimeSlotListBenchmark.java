@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the operations between a time slot and a list of time slots.
+ *
+ * Lucas Gauk - 2020
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TimeSlotListBenchmark {
+
+  @Param({"10", "1000", "100000", "10000000"})
+  public int size;
+
+  @Param({"DISJOINT", "OVERLAPPING", "NESTED"})
+  public Workload.Density density;
+
+  private Operations operations;
+  private Object timeSlots;
+  private Object timeSlot;
+
+  @Setup
+  public void setup() {
+    this.operations = Operations.load();
+    Workload workload = Workload.generate(this.density, this.size, 1);
+    this.timeSlots = this.operations.timeSlots(workload);
+    long middle = workload.middle();
+    this.timeSlot = this.operations.timeSlot(middle / 2, middle + middle / 2 + 1);
+  }
+
+  @Benchmark
+  public Object add() {
+    return this.operations.add(this.timeSlot, this.timeSlots);
+  }
+
+  @Benchmark
+  public Object subtract() {
+    return this.operations.subtract(this.timeSlot, this.timeSlots);
+  }
+
+  @Benchmark
+  public Object sum() {
+    return this.operations.sum(this.timeSlots);
+  }
+}
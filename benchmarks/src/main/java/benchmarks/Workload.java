@@ -0,0 +1,98 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * Generates the time slots a benchmark runs against, as start and end minutes after a fixed origin.
+ * Slots are generated in a random order, the way bookings usually arrive.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class Workload {
+
+  /**
+   * How the generated time slots relate to one another.
+   */
+  public enum Density {
+    DISJOINT, // No slot overlaps another, with a gap between each
+    OVERLAPPING, // Every slot overlaps roughly a dozen others
+    NESTED // Every slot contains the next one
+  }
+
+  private final long[] starts;
+  private final long[] ends;
+
+  private Workload(long[] starts, long[] ends) {
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Generates a workload.
+   *
+   * @param density how the slots relate to one another
+   * @param size the number of slots
+   * @param seed the seed for the order and placement of slots
+   * @return the workload
+   */
+  public static Workload generate(Density density, int size, long seed) {
+    Random random = new Random(seed);
+    long[] starts = new long[size];
+    long[] ends = new long[size];
+    for (int i = 0; i < size; i++) {
+      switch (density) {
+        case DISJOINT:
+          starts[i] = i * 10L + random.nextInt(3);
+          ends[i] = starts[i] + 1 + random.nextInt(6);
+          break;
+        case OVERLAPPING:
+          starts[i] = random.nextInt(Math.max(size, 1) * 5);
+          ends[i] = starts[i] + 30 + random.nextInt(60);
+          break;
+        case NESTED:
+          starts[i] = i + random.nextInt(2);
+          ends[i] = 2L * size - i + 2;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown density " + density);
+      }
+    }
+    for (int i = size - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      long start = starts[i];
+      long end = ends[i];
+      starts[i] = starts[j];
+      ends[i] = ends[j];
+      starts[j] = start;
+      ends[j] = end;
+    }
+    return new Workload(starts, ends);
+  }
+
+  public int size() {
+    return this.starts.length;
+  }
+
+  public long start(int i) {
+    return this.starts[i];
+  }
+
+  public long end(int i) {
+    return this.ends[i];
+  }
+
+  /**
+   * Returns the minute in the middle of the time the workload spans.
+   *
+   * @return the middle minute
+   */
+  public long middle() {
+    long first = Long.MAX_VALUE;
+    long last = Long.MIN_VALUE;
+    for (int i = 0; i < this.size(); i++) {
+      first = Math.min(first, this.starts[i]);
+      last = Math.max(last, this.ends[i]);
+    }
+    return this.size() == 0 ? 0 : first + (last - first) / 2;
+  }
+}
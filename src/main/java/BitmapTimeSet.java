@@ -0,0 +1,365 @@
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A BitmapTimeSet represents time on a fixed grid, such as a calendar of fifteen minute slots, as a bitmap.
+ *
+ * Bit i stands for the i-th tick of the grid since 1970-01-01T00:00. The bits are split into containers of 65536 ticks
+ * each, which are only stored once a tick in them is set, in the manner of a roaring bitmap. Union, intersection and
+ * difference work a 64 bit word at a time, and the number of ticks set is kept as it changes, so the length of the set
+ * takes O(1).
+ *
+ * Only time slots whose ends fall on the grid can be stored. Time slots that touch are joined, since their ticks can
+ * not be told apart, and time slots with no length are left out. Apart from that, converting to and from a TimeSet
+ * loses nothing. Like TimeSets, BitmapTimeSets are not immutable. Date times must fall between roughly the years 1677
+ * and 2262.
+ *
+ * Lucas Gauk - 2020
+ */
+public class BitmapTimeSet {
+
+  private static final int CONTAINER_BITS = 16;
+  private static final int WORDS_PER_CONTAINER = (1 << CONTAINER_BITS) / 64;
+
+  /**
+   * The length of one tick in nanoseconds.
+   */
+  private final long tick;
+
+  /**
+   * The containers that have a tick set, keyed by their index. Each holds the words of its bits.
+   */
+  private final TreeMap<Long, long[]> containers = new TreeMap<>();
+
+  /**
+   * The number of ticks set.
+   */
+  private long cardinality;
+
+  /**
+   * Creates an empty bitmap time set on a grid.
+   *
+   * @param amount the length of each tick of the grid
+   * @param unit the unit of the length, which must have a fixed length
+   * @return a bitmap time set with no time
+   */
+  public static BitmapTimeSet empty(long amount, ChronoUnit unit) {
+    if (!EpochNanos.isFixedLength(unit) || amount <= 0) {
+      throw new IllegalArgumentException("The grid must have a positive, fixed length");
+    }
+    return new BitmapTimeSet(Math.multiplyExact(amount, unit.getDuration().toNanos()));
+  }
+
+  /**
+   * Creates a bitmap time set on a grid from a time set. Every time slot must start and end on the grid.
+   *
+   * @param timeSet the time set to convert
+   * @param amount the length of each tick of the grid
+   * @param unit the unit of the length, which must have a fixed length
+   * @return a bitmap time set with the same time
+   */
+  public static BitmapTimeSet of(TimeSet timeSet, long amount, ChronoUnit unit) {
+    BitmapTimeSet bitmap = BitmapTimeSet.empty(amount, unit);
+    for (TimeSlot timeSlot : timeSet) {
+      bitmap.add(timeSlot);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Clone a bitmap time set.
+   *
+   * @param bitmapTimeSet the bitmap time set to clone
+   * @return a new bitmap time set with the same time
+   */
+  public static BitmapTimeSet of(BitmapTimeSet bitmapTimeSet) {
+    BitmapTimeSet clone = new BitmapTimeSet(bitmapTimeSet.tick);
+    bitmapTimeSet.containers.forEach((key, words) -> clone.containers.put(key, words.clone()));
+    clone.cardinality = bitmapTimeSet.cardinality;
+    return clone;
+  }
+
+  private BitmapTimeSet(long tick) {
+    this.tick = tick;
+  }
+
+  /**
+   * Returns the number of ticks in this set.
+   *
+   * @return the number of ticks set
+   */
+  public long cardinality() {
+    return this.cardinality;
+  }
+
+  /**
+   * Return the length of this set in a specified unit, in O(1). Unlike TimeSet.length(ChronoUnit), the length of the
+   * whole set is counted rather than that of each time slot, and the unit must have a fixed length.
+   *
+   * @param unit the unit to return
+   * @return the number of units in this set
+   */
+  public long length(ChronoUnit unit) {
+    if (!EpochNanos.isFixedLength(unit)) {
+      throw new IllegalArgumentException("The unit must have a fixed length");
+    }
+    return EpochNanos.toUnits(Math.multiplyExact(this.cardinality, this.tick), unit);
+  }
+
+  /**
+   * Checks to see if this contains a specific date time. As with time slots, a date time that is equal to the start
+   * or end of a time slot is not considered to be inside of it, so one on the grid needs the ticks on both sides.
+   *
+   * @param dateTime the date time to look for
+   * @return true if the date time is inside this set
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    long nanos = EpochNanos.of(dateTime);
+    long index = Math.floorDiv(nanos, this.tick);
+    if (!this.get(index)) {
+      return false;
+    }
+    return Math.floorMod(nanos, this.tick) != 0 || this.get(index - 1);
+  }
+
+  /**
+   * Add a time slot to this set. The time slot must start and end on the grid.
+   *
+   * @param timeSlot the time slot to add
+   */
+  public void add(TimeSlot timeSlot) {
+    this.set(this.toIndex(timeSlot.getStart()), this.toIndex(timeSlot.getEnd()), true);
+  }
+
+  /**
+   * Subtract a time slot from this set. The time slot must start and end on the grid.
+   *
+   * @param timeSlot the time slot to subtract
+   */
+  public void subtract(TimeSlot timeSlot) {
+    this.set(this.toIndex(timeSlot.getStart()), this.toIndex(timeSlot.getEnd()), false);
+  }
+
+  /**
+   * Add another bitmap time set on the same grid to this, a word at a time.
+   *
+   * @param other the bitmap time set to add
+   */
+  public void add(BitmapTimeSet other) {
+    this.checkGrid(other);
+    for (Map.Entry<Long, long[]> entry : other.containers.entrySet()) {
+      long[] words = this.containers.computeIfAbsent(entry.getKey(), key -> new long[WORDS_PER_CONTAINER]);
+      long[] otherWords = entry.getValue();
+      for (int i = 0; i < WORDS_PER_CONTAINER; i++) {
+        long word = words[i] | otherWords[i];
+        this.cardinality += Long.bitCount(word) - Long.bitCount(words[i]);
+        words[i] = word;
+      }
+    }
+  }
+
+  /**
+   * Subtract another bitmap time set on the same grid from this, a word at a time.
+   *
+   * @param other the bitmap time set to subtract
+   */
+  public void subtract(BitmapTimeSet other) {
+    this.checkGrid(other);
+    Iterator<Map.Entry<Long, long[]>> iterator = this.containers.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Long, long[]> entry = iterator.next();
+      long[] otherWords = other.containers.get(entry.getKey());
+      if (otherWords != null && this.combine(entry.getValue(), otherWords, false)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Intersect this with another bitmap time set on the same grid, a word at a time.
+   *
+   * @param other the bitmap time set to intersect with
+   */
+  public void intersect(BitmapTimeSet other) {
+    this.checkGrid(other);
+    Iterator<Map.Entry<Long, long[]>> iterator = this.containers.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<Long, long[]> entry = iterator.next();
+      long[] otherWords = other.containers.get(entry.getKey());
+      if (otherWords == null) {
+        this.cardinality -= BitmapTimeSet.bitCount(entry.getValue());
+        iterator.remove();
+      } else if (this.combine(entry.getValue(), otherWords, true)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Keeps the bits of a container that are also set in the other container, or that are not, updating the cardinality.
+   *
+   * @return true if the container is left empty
+   */
+  private boolean combine(long[] words, long[] otherWords, boolean keepShared) {
+    boolean empty = true;
+    for (int i = 0; i < WORDS_PER_CONTAINER; i++) {
+      long word = keepShared ? words[i] & otherWords[i] : words[i] & ~otherWords[i];
+      this.cardinality -= Long.bitCount(words[i]) - Long.bitCount(word);
+      words[i] = word;
+      empty &= word == 0;
+    }
+    return empty;
+  }
+
+  /**
+   * Converts this into a time set, with one time slot for each run of ticks.
+   *
+   * @return a time set with the same time
+   */
+  public TimeSet toTimeSet() {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    if (this.containers.isEmpty()) {
+      return TimeSet.empty();
+    }
+    long start = this.nextSetBit(this.containers.firstKey() << CONTAINER_BITS);
+    while (start != Long.MIN_VALUE) {
+      long end = this.nextClearBit(start);
+      timeSlots.add(TimeSlot.of(EpochNanos.toDateTime(start * this.tick), EpochNanos.toDateTime(end * this.tick)));
+      start = this.nextSetBit(end);
+    }
+    return TimeSet.ofNormalized(timeSlots);
+  }
+
+  /**
+   * Checks to see if this holds the same time as another bitmap time set on the same grid.
+   *
+   * @param other the other bitmap time set
+   * @return true if they are on the same grid and have the same ticks set
+   */
+  public boolean equals(BitmapTimeSet other) {
+    if (this.tick != other.tick || this.cardinality != other.cardinality
+        || !this.containers.keySet().equals(other.containers.keySet())) {
+      return false;
+    }
+    for (Map.Entry<Long, long[]> entry : this.containers.entrySet()) {
+      if (!Arrays.equals(entry.getValue(), other.containers.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void checkGrid(BitmapTimeSet other) {
+    if (this.tick != other.tick) {
+      throw new IllegalArgumentException("Bitmap time sets must be on the same grid");
+    }
+  }
+
+  private long toIndex(LocalDateTime dateTime) {
+    long nanos = EpochNanos.of(dateTime);
+    if (Math.floorMod(nanos, this.tick) != 0) {
+      throw new IllegalArgumentException(dateTime + " is not on the grid");
+    }
+    return Math.floorDiv(nanos, this.tick);
+  }
+
+  private boolean get(long index) {
+    long[] words = this.containers.get(index >> CONTAINER_BITS);
+    int bit = (int) (index & ((1 << CONTAINER_BITS) - 1));
+    return words != null && (words[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  /**
+   * Sets or clears every tick from one index up to, but not including, another, a word at a time.
+   */
+  private void set(long from, long to, boolean value) {
+    long index = from;
+    while (index < to) {
+      long key = index >> CONTAINER_BITS;
+      long containerEnd = (key + 1) << CONTAINER_BITS;
+      long end = Math.min(to, containerEnd);
+      long[] words = value ? this.containers.computeIfAbsent(key, k -> new long[WORDS_PER_CONTAINER])
+                           : this.containers.get(key);
+      if (words != null) {
+        int first = (int) (index - (key << CONTAINER_BITS));
+        int last = (int) (end - (key << CONTAINER_BITS));
+        for (int word = first >>> 6; word <= (last - 1) >>> 6; word++) {
+          long mask = -1L;
+          if (word == first >>> 6) {
+            mask &= -1L << first;
+          }
+          if (word == (last - 1) >>> 6) {
+            mask &= -1L >>> (63 - ((last - 1) & 63));
+          }
+          long updated = value ? words[word] | mask : words[word] & ~mask;
+          this.cardinality += Long.bitCount(updated) - Long.bitCount(words[word]);
+          words[word] = updated;
+        }
+        if (!value && BitmapTimeSet.bitCount(words) == 0) {
+          this.containers.remove(key);
+        }
+      }
+      index = end;
+    }
+  }
+
+  /**
+   * Returns the first tick at or after an index that is set, or Long.MIN_VALUE if there is none.
+   */
+  private long nextSetBit(long from) {
+    for (Map.Entry<Long, long[]> entry : this.containers.tailMap(from >> CONTAINER_BITS, true).entrySet()) {
+      long base = entry.getKey() << CONTAINER_BITS;
+      int bit = from > base ? (int) (from - base) : 0;
+      long[] words = entry.getValue();
+      for (int word = bit >>> 6; word < WORDS_PER_CONTAINER; word++) {
+        long bits = words[word];
+        if (word == bit >>> 6) {
+          bits &= -1L << bit;
+        }
+        if (bits != 0) {
+          return base + word * 64L + Long.numberOfTrailingZeros(bits);
+        }
+      }
+    }
+    return Long.MIN_VALUE;
+  }
+
+  /**
+   * Returns the first tick at or after an index that is not set.
+   */
+  private long nextClearBit(long from) {
+    long key = from >> CONTAINER_BITS;
+    int bit = (int) (from - (key << CONTAINER_BITS));
+    while (true) {
+      long[] words = this.containers.get(key);
+      if (words == null) {
+        return (key << CONTAINER_BITS) + bit;
+      }
+      for (int word = bit >>> 6; word < WORDS_PER_CONTAINER; word++) {
+        long bits = ~words[word];
+        if (word == bit >>> 6) {
+          bits &= -1L << bit;
+        }
+        if (bits != 0) {
+          return (key << CONTAINER_BITS) + word * 64L + Long.numberOfTrailingZeros(bits);
+        }
+      }
+      key++;
+      bit = 0;
+    }
+  }
+
+  private static long bitCount(long[] words) {
+    long count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+}
@@ -0,0 +1,280 @@
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A ConcurrentTimeSet is a TimeSet that many threads can add to and subtract from at once.
+ *
+ * The timeline is cut into stripes of a fixed length, a day by default. Each stripe holds the part of the set that
+ * falls within it as a PersistentTimeSet, and has its own lock. A writer only locks the stripes its time slot covers,
+ * one at a time, so writers working on different stripes never wait on each other. Readers never lock; they read the
+ * current PersistentTimeSet of each stripe, which can not change underneath them.
+ *
+ * A time slot crossing a stripe boundary is stored as one piece per stripe. Each stripe remembers whether the time slot
+ * at its start was cut from one crossing into it, and only those pieces are joined back together when the set is read.
+ * Two time slots that meet exactly on a stripe boundary are kept apart, as they are in a TimeSet.
+ *
+ * Reads are consistent within each stripe. A read that races with a write spanning several stripes may see the write
+ * applied to some of them and not yet to the others.
+ *
+ * Lucas Gauk - 2020
+ */
+public class ConcurrentTimeSet {
+
+  /**
+   * The length of each stripe in nanoseconds.
+   */
+  private final long stripeNanos;
+
+  /**
+   * The stripes that have been written to, keyed by how many stripe lengths they start after the epoch.
+   */
+  private final ConcurrentNavigableMap<Long, Stripe> stripes = new ConcurrentSkipListMap<>();
+
+  /**
+   * Creates an empty concurrent time set with stripes that are a day long.
+   *
+   * @return the concurrent time set
+   */
+  public static ConcurrentTimeSet empty() {
+    return ConcurrentTimeSet.withStripes(1, ChronoUnit.DAYS);
+  }
+
+  /**
+   * Creates an empty concurrent time set with stripes of a given length. Shorter stripes let more writers work at once,
+   * while longer stripes cut fewer time slots into pieces.
+   * The unit must have a fixed length, which every unit up to and including weeks does.
+   *
+   * @param length the length of each stripe
+   * @param unit the unit of the length
+   * @return the concurrent time set
+   */
+  public static ConcurrentTimeSet withStripes(long length, ChronoUnit unit) {
+    if (!EpochNanos.isFixedLength(unit) || length <= 0) {
+      throw new IllegalArgumentException("Stripes must have a positive, fixed length");
+    }
+    return new ConcurrentTimeSet(Math.multiplyExact(length, unit.getDuration().toNanos()));
+  }
+
+  private ConcurrentTimeSet(long stripeNanos) {
+    this.stripeNanos = stripeNanos;
+  }
+
+  /**
+   * Add a time slot to this set. Only the stripes the time slot covers are locked.
+   *
+   * @param timeSlot the time slot to add
+   */
+  public void add(TimeSlot timeSlot) {
+    this.forEachPiece(timeSlot, this::addPiece);
+  }
+
+  /**
+   * Add every time slot of a time set to this.
+   *
+   * @param timeSet the time set to add
+   */
+  public void add(TimeSet timeSet) {
+    timeSet.getTimeSlots().forEach(this::add);
+  }
+
+  /**
+   * Subtract a time slot from this set. Only the stripes the time slot covers are locked.
+   *
+   * @param other the time slot to subtract
+   */
+  public void subtract(TimeSlot other) {
+    this.forEachPiece(other, this::subtractPiece);
+  }
+
+  /**
+   * Subtract every time slot of a time set from this.
+   *
+   * @param timeSet the time set to subtract
+   */
+  public void subtract(TimeSet timeSet) {
+    timeSet.getTimeSlots().forEach(this::subtract);
+  }
+
+  /**
+   * Checks to see if this contains a specific date time, without locking.
+   *
+   * @param dateTime the date time to look for
+   * @return true if the date time is inside this set
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    long nanos = EpochNanos.of(dateTime);
+    Stripe stripe = this.stripes.get(Math.floorDiv(nanos, this.stripeNanos));
+    if (stripe != null && stripe.timeSet.contains(dateTime)) {
+      return true;
+    }
+    if (Math.floorMod(nanos, this.stripeNanos) != 0) {
+      return false;
+    }
+    // A date time on a stripe boundary is inside this set if it is inside a time slot that was cut there
+    Stripe previous = this.stripes.get(Math.floorDiv(nanos, this.stripeNanos) - 1);
+    return stripe != null && previous != null && stripe.joined
+        && ConcurrentTimeSet.endsAt(previous.timeSet, dateTime) && ConcurrentTimeSet.startsAt(stripe.timeSet, dateTime);
+  }
+
+  /**
+   * Returns a time set with the current contents of this, without locking.
+   *
+   * @return a time set holding a copy of this
+   */
+  public TimeSet snapshot() {
+    return this.read(this.stripes);
+  }
+
+  /**
+   * Returns a time set with the current contents of this within a window, without locking.
+   *
+   * @param window the window to read
+   * @return a time set holding a copy of the part of this within the window
+   */
+  public TimeSet snapshot(TimeSlot window) {
+    TimeSet timeSet = this.read(this.stripes.subMap(Math.floorDiv(EpochNanos.of(window.getStart()), this.stripeNanos), true,
+                                                    Math.floorDiv(EpochNanos.of(window.getEnd()), this.stripeNanos), true));
+    timeSet.intersect(window);
+    return timeSet;
+  }
+
+  /**
+   * Return the length of this set in a specified unit. See TimeSet.length(ChronoUnit).
+   *
+   * @param unit the unit to return
+   * @return the number of units in this set
+   */
+  public long length(ChronoUnit unit) {
+    return this.snapshot().length(unit);
+  }
+
+  /**
+   * Reads a run of stripes in order, joining the pieces of time slots that were cut on a stripe boundary.
+   */
+  private TimeSet read(Map<Long, Stripe> stripes) {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    for (Stripe stripe : stripes.values()) {
+      boolean joined = stripe.joined;
+      for (TimeSlot timeSlot : stripe.timeSet.getTimeSlots()) {
+        int lastIndex = timeSlots.size() - 1;
+        if (joined && lastIndex >= 0 && timeSlots.get(lastIndex).getEnd().isEqual(stripe.start)
+            && timeSlot.getStart().isEqual(stripe.start)) {
+          timeSlots.set(lastIndex, timeSlots.get(lastIndex).setEnd(timeSlot.getEnd()));
+        } else {
+          timeSlots.add(timeSlot);
+        }
+        joined = false;
+      }
+    }
+    return TimeSet.ofNormalized(timeSlots);
+  }
+
+  /**
+   * Adds a piece of a time slot to its stripe. A piece cut at the start of its stripe joins the time slot ending there
+   * in the previous stripe, and like in a TimeSet, takes in a time slot of no length at the boundary.
+   */
+  private void addPiece(long index, TimeSlot piece, boolean fromPrevious) {
+    Stripe stripe = this.stripe(index);
+    synchronized (stripe) {
+      if (fromPrevious) {
+        stripe.timeSet = stripe.timeSet.subtract(TimeSlot.of(stripe.start, stripe.start)).add(piece);
+        Stripe previous = this.stripes.get(index - 1);
+        stripe.joined = previous != null && ConcurrentTimeSet.endsAt(previous.timeSet, stripe.start);
+      } else if (!stripe.joined || !piece.equals(TimeSlot.of(stripe.start, stripe.start))) {
+        stripe.timeSet = stripe.timeSet.add(piece);
+      }
+    }
+  }
+
+  /**
+   * Removes a piece of a time slot from its stripe. A piece cut at the start of its stripe also removes a time slot of
+   * no length at the boundary, which the whole time slot overlaps. A stripe stops being joined to the previous one once
+   * anything is cut at its start, even a time slot of no length, or the time slot at the end of the previous stripe is
+   * cut away.
+   */
+  private void subtractPiece(long index, TimeSlot piece, boolean fromPrevious) {
+    Stripe stripe = this.stripe(index);
+    synchronized (stripe) {
+      if (fromPrevious) {
+        stripe.timeSet = stripe.timeSet.subtract(TimeSlot.of(stripe.start, stripe.start));
+      }
+      stripe.timeSet = stripe.timeSet.subtract(piece);
+      if (piece.getStart().isEqual(stripe.start)) {
+        stripe.joined = false;
+      }
+    }
+    Stripe next = this.stripes.get(index + 1);
+    if (next != null && piece.getEnd().isEqual(next.start)) {
+      synchronized (next) {
+        // Checked again under the lock of the next stripe, in case a crossing time slot has been added since
+        if (next.joined && !ConcurrentTimeSet.endsAt(stripe.timeSet, next.start)) {
+          next.joined = false;
+        }
+      }
+    }
+  }
+
+  private Stripe stripe(long index) {
+    return this.stripes.computeIfAbsent(index, key -> new Stripe(EpochNanos.toDateTime(key * this.stripeNanos)));
+  }
+
+  private static boolean endsAt(PersistentTimeSet timeSet, LocalDateTime dateTime) {
+    List<TimeSlot> timeSlots = timeSet.intersect(TimeSlot.of(dateTime.minusNanos(1), dateTime)).getTimeSlots();
+    return !timeSlots.isEmpty() && timeSlots.get(timeSlots.size() - 1).getEnd().isEqual(dateTime);
+  }
+
+  private static boolean startsAt(PersistentTimeSet timeSet, LocalDateTime dateTime) {
+    List<TimeSlot> timeSlots = timeSet.intersect(TimeSlot.of(dateTime, dateTime.plusNanos(1))).getTimeSlots();
+    return !timeSlots.isEmpty() && timeSlots.get(0).getStart().isEqual(dateTime);
+  }
+
+  /**
+   * Cuts a time slot into one piece per stripe it covers, and applies an update to each stripe in order.
+   */
+  private void forEachPiece(TimeSlot timeSlot, StripeUpdate update) {
+    long start = EpochNanos.of(timeSlot.getStart());
+    long end = EpochNanos.of(timeSlot.getEnd());
+    long first = Math.floorDiv(start, this.stripeNanos);
+    long last = end > start ? Math.floorDiv(end - 1, this.stripeNanos) : first;
+    for (long index = first; index <= last; index++) {
+      TimeSlot piece = timeSlot;
+      if (first != last) {
+        long stripeStart = index * this.stripeNanos;
+        piece = TimeSlot.of(EpochNanos.toDateTime(Math.max(start, stripeStart)),
+                            EpochNanos.toDateTime(Math.min(end, stripeStart + this.stripeNanos)));
+      }
+      update.apply(index, piece, index > first);
+    }
+  }
+
+  private interface StripeUpdate {
+    void apply(long index, TimeSlot piece, boolean fromPrevious);
+  }
+
+  /**
+   * One stripe of the timeline. Writers synchronize on the stripe, while readers only read the volatile fields.
+   */
+  private static final class Stripe {
+
+    /**
+     * The start of the stripe.
+     */
+    private final LocalDateTime start;
+
+    private volatile PersistentTimeSet timeSet = PersistentTimeSet.empty();
+
+    /**
+     * True if the time slot at the start of this stripe was cut from one that continues in the previous stripe.
+     */
+    private volatile boolean joined;
+
+    private Stripe(LocalDateTime start) {
+      this.start = start;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Coverage describes how many of a collection of time sets cover each moment in time, such as how many technicians
+ * are free at once.
+ *
+ * It is computed in a single sweep over the starts and ends of every time slot, which takes O(N log N) for N time
+ * slots. The result is a step function: the timeline is cut at every start and end, and each step between two cuts
+ * has a depth, the number of time sets covering it. From that, atLeast(int) finds the times covered by at least k of
+ * the time sets, without intersecting the time sets against each other.
+ *
+ * Time slots with no length cover nothing, and are left out. Coverage is immutable.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class Coverage {
+
+  /**
+   * Every distinct date time at which a time slot starts or ends, in order.
+   */
+  private final LocalDateTime[] instants;
+
+  /**
+   * The depth of the step from each instant to the next. Has one less element than instants.
+   */
+  private final int[] depths;
+
+  /**
+   * The number of time slots containing each instant. A time slot does not contain its own start or end, so this is
+   * the depth once the time slots ending at the instant are gone, but before the ones starting at it begin.
+   */
+  private final int[] lowest;
+
+  /**
+   * Computes the coverage of a varargs array of time sets.
+   *
+   * @param timeSets the time sets to sweep over
+   * @return the coverage
+   */
+  public static Coverage of(TimeSet... timeSets) {
+    return Coverage.of(Arrays.asList(timeSets));
+  }
+
+  /**
+   * Computes the coverage of a collection of time sets.
+   * Time slots within one time set never overlap, so each time set adds at most one to the depth at any moment.
+   *
+   * @param timeSets the time sets to sweep over
+   * @return the coverage
+   */
+  public static Coverage of(Collection<TimeSet> timeSets) {
+    List<LocalDateTime> startList = new ArrayList<>();
+    List<LocalDateTime> endList = new ArrayList<>();
+    for (TimeSet timeSet : timeSets) {
+      for (TimeSlot timeSlot : timeSet.getTimeSlots()) {
+        if (timeSlot.getStart().isBefore(timeSlot.getEnd())) {
+          startList.add(timeSlot.getStart());
+          endList.add(timeSlot.getEnd());
+        }
+      }
+    }
+    LocalDateTime[] starts = startList.toArray(new LocalDateTime[0]);
+    LocalDateTime[] ends = endList.toArray(new LocalDateTime[0]);
+    Arrays.sort(starts);
+    Arrays.sort(ends);
+
+    List<LocalDateTime> instants = new ArrayList<>();
+    int[] depths = new int[Math.max(0, 2 * starts.length - 1)];
+    int[] lowest = new int[2 * starts.length];
+    int depth = 0;
+    int i = 0;
+    int j = 0;
+    // Every end comes after its own start, so the ends are only used up once the starts are
+    while (j < ends.length) {
+      LocalDateTime instant = i < starts.length && starts[i].isBefore(ends[j]) ? starts[i] : ends[j];
+      // Ends are taken before starts, so time slots that only touch at an instant are not counted together
+      while (j < ends.length && ends[j].isEqual(instant)) {
+        depth--;
+        j++;
+      }
+      lowest[instants.size()] = depth;
+      while (i < starts.length && starts[i].isEqual(instant)) {
+        depth++;
+        i++;
+      }
+      if (j < ends.length) {
+        depths[instants.size()] = depth;
+      }
+      instants.add(instant);
+    }
+    int size = instants.size();
+    return new Coverage(instants.toArray(new LocalDateTime[0]), Arrays.copyOf(depths, Math.max(0, size - 1)),
+                        Arrays.copyOf(lowest, size));
+  }
+
+  private Coverage(LocalDateTime[] instants, int[] depths, int[] lowest) {
+    this.instants = instants;
+    this.depths = depths;
+    this.lowest = lowest;
+  }
+
+  /**
+   * Returns the steps of this coverage that are covered by at least one time set, ordered by start.
+   * Times that are not covered by any of the time sets have a depth of zero and are left out.
+   *
+   * @return the covered steps
+   */
+  public List<Step> getSteps() {
+    List<Step> steps = new ArrayList<>();
+    for (int i = 0; i < this.depths.length; i++) {
+      if (this.depths[i] > 0) {
+        steps.add(new Step(TimeSlot.of(this.instants[i], this.instants[i + 1]), this.depths[i]));
+      }
+    }
+    return steps;
+  }
+
+  /**
+   * Returns the number of time sets covering a date time. As with time slots, a date time that is equal to the start
+   * or end of a time slot is not considered to be inside of it.
+   *
+   * @param dateTime the date time to look for
+   * @return the number of time sets containing the date time
+   */
+  public int depthAt(LocalDateTime dateTime) {
+    int index = Arrays.binarySearch(this.instants, dateTime);
+    if (index >= 0) {
+      return this.lowest[index];
+    }
+    int step = -index - 2;
+    return step < 0 || step >= this.depths.length ? 0 : this.depths[step];
+  }
+
+  /**
+   * Returns the greatest number of time sets covering any one moment.
+   *
+   * @return the greatest depth, or zero if nothing is covered
+   */
+  public int maxDepth() {
+    int max = 0;
+    for (int depth : this.depths) {
+      max = Math.max(max, depth);
+    }
+    return max;
+  }
+
+  /**
+   * Returns the time covered by at least a number of the time sets.
+   * With a depth of one this is the union of the time sets, and with a depth equal to their number it is their
+   * intersection. Steps are only joined when the depth stays at or above the minimum at the instant between them,
+   * so the result matches what adding or intersecting the time sets would give.
+   *
+   * @param depth the minimum number of time sets, which must be positive
+   * @return the time set covered by at least that many time sets
+   */
+  public TimeSet atLeast(int depth) {
+    if (depth <= 0) {
+      throw new IllegalArgumentException("Depth must be positive");
+    }
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    int i = 0;
+    while (i < this.depths.length) {
+      if (this.depths[i] < depth) {
+        i++;
+        continue;
+      }
+      int first = i;
+      while (i + 1 < this.depths.length && this.depths[i + 1] >= depth && this.lowest[i + 1] >= depth) {
+        i++;
+      }
+      timeSlots.add(TimeSlot.of(this.instants[first], this.instants[i + 1]));
+      i++;
+    }
+    return TimeSet.of(timeSlots);
+  }
+
+  /**
+   * One step of a coverage: a time slot and the number of time sets covering all of it.
+   */
+  public static final class Step {
+
+    private final TimeSlot timeSlot;
+    private final int depth;
+
+    private Step(TimeSlot timeSlot, int depth) {
+      this.timeSlot = timeSlot;
+      this.depth = depth;
+    }
+
+    /**
+     * Get the time slot of this step.
+     *
+     * @return the time slot
+     */
+    public TimeSlot getTimeSlot() {
+      return this.timeSlot;
+    }
+
+    /**
+     * Get the number of time sets covering this step.
+     *
+     * @return the depth
+     */
+    public int getDepth() {
+      return this.depth;
+    }
+  }
+}
@@ -0,0 +1,99 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Converts between date times and the number of nanoseconds since 1970-01-01T00:00.
+ * Date times have no zone, so they are all treated as UTC. A long of nanoseconds covers roughly the years 1677 to 2262,
+ * and converting a date time outside of that range throws an ArithmeticException.
+ *
+ * Lucas Gauk - 2020
+ */
+final class EpochNanos {
+
+  /**
+   * The number of nanoseconds in a second.
+   */
+  static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private EpochNanos() {
+  }
+
+  /**
+   * Returns the number of nanoseconds between the epoch and a date time.
+   *
+   * @param dateTime the date time to convert
+   * @return the nanoseconds since the epoch, negative if the date time is before it
+   */
+  static long of(LocalDateTime dateTime) {
+    return Math.addExact(Math.multiplyExact(dateTime.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND), dateTime.getNano());
+  }
+
+  /**
+   * Returns the date time that is a number of nanoseconds after the epoch.
+   *
+   * @param epochNanos the nanoseconds since the epoch
+   * @return the date time
+   */
+  static LocalDateTime toDateTime(long epochNanos) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                                       (int) Math.floorMod(epochNanos, NANOS_PER_SECOND),
+                                       ZoneOffset.UTC);
+  }
+
+  /**
+   * Returns true if a unit always has the same length. Every unit up to and including weeks does for date times
+   * without a zone, while months and longer depend on the calendar.
+   *
+   * @param unit the unit to check
+   * @return true if the unit can be converted to and from nanoseconds
+   */
+  static boolean isFixedLength(ChronoUnit unit) {
+    return unit.compareTo(ChronoUnit.WEEKS) <= 0;
+  }
+
+  /**
+   * Returns the number of whole units in a number of nanoseconds. The unit must have a fixed length.
+   *
+   * @param nanos the nanoseconds to convert
+   * @param unit the unit to convert to
+   * @return the number of whole units
+   */
+  static long toUnits(long nanos, ChronoUnit unit) {
+    return nanos / unit.getDuration().toNanos();
+  }
+
+  /**
+   * Returns the number of whole units in a length given as seconds and nanoseconds, which can be longer than a long of
+   * nanoseconds can hold. The unit must have a fixed length.
+   *
+   * @param seconds the whole seconds of the length
+   * @param nanos the nanoseconds of the length, which may be more than a second or negative
+   * @param unit the unit to convert to
+   * @return the number of whole units
+   */
+  static long toUnits(long seconds, long nanos, ChronoUnit unit) {
+    seconds = Math.addExact(seconds, Math.floorDiv(nanos, NANOS_PER_SECOND));
+    nanos = Math.floorMod(nanos, NANOS_PER_SECOND);
+    long unitNanos = unit.getDuration().toNanos();
+    if (unitNanos >= NANOS_PER_SECOND) {
+      return seconds / (unitNanos / NANOS_PER_SECOND);
+    }
+    return Math.addExact(Math.multiplyExact(seconds, NANOS_PER_SECOND / unitNanos), nanos / unitNanos);
+  }
+
+  /**
+   * Returns the number of whole units between two numbers of nanoseconds since the epoch, which can be further apart
+   * than a long of nanoseconds can hold. The unit must have a fixed length.
+   *
+   * @param startNanos the nanoseconds since the epoch of the start
+   * @param endNanos the nanoseconds since the epoch of the end
+   * @param unit the unit to convert to
+   * @return the number of whole units
+   */
+  static long unitsBetween(long startNanos, long endNanos, ChronoUnit unit) {
+    return EpochNanos.toUnits(Math.floorDiv(endNanos, NANOS_PER_SECOND) - Math.floorDiv(startNanos, NANOS_PER_SECOND),
+                              Math.floorMod(endNanos, NANOS_PER_SECOND) - Math.floorMod(startNanos, NANOS_PER_SECOND),
+                              unit);
+  }
+}
@@ -0,0 +1,101 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Indexes the gaps between the time slots of an ordered, non overlapping list, to find the first gap of at least a
+ * given length in O(log n).
+ *
+ * It is a segment tree: gap i runs from the end of time slot i to the start of time slot i + 1, and every node holds
+ * the longest gap below it. A search skips any subtree whose longest gap is too short. Lengths are in nanoseconds,
+ * with gaps too long for a long counted as the longest possible.
+ *
+ * Lucas Gauk - 2020
+ */
+final class GapIndex {
+
+  /**
+   * The number of gaps indexed.
+   */
+  private final int size;
+
+  /**
+   * The tree, stored as an array where the children of node i are 2i + 1 and 2i + 2.
+   */
+  private final long[] longest;
+
+  /**
+   * Builds the index over a list of time slots in O(n).
+   *
+   * @param timeSlots the ordered, non overlapping time slots
+   */
+  GapIndex(List<TimeSlot> timeSlots) {
+    this.size = Math.max(0, timeSlots.size() - 1);
+    this.longest = new long[Math.max(1, 4 * this.size)];
+    if (this.size > 0) {
+      this.build(timeSlots, 0, 0, this.size - 1);
+    }
+  }
+
+  private long build(List<TimeSlot> timeSlots, int node, int low, int high) {
+    if (low == high) {
+      this.longest[node] = GapIndex.nanosBetween(timeSlots.get(low).getEnd(), timeSlots.get(low + 1).getStart());
+    } else {
+      int middle = (low + high) >>> 1;
+      this.longest[node] = Math.max(this.build(timeSlots, 2 * node + 1, low, middle),
+                                    this.build(timeSlots, 2 * node + 2, middle + 1, high));
+    }
+    return this.longest[node];
+  }
+
+  /**
+   * Finds the first gap within a range of gaps that is at least a given length.
+   *
+   * @param from the first gap to look at
+   * @param to the last gap to look at, inclusive
+   * @param minimum the shortest length accepted, in nanoseconds
+   * @return the index of the gap, or -1 if there is none
+   */
+  int firstAtLeast(int from, int to, long minimum) {
+    if (from > to || this.size == 0) {
+      return -1;
+    }
+    return this.firstAtLeast(0, 0, this.size - 1, from, to, minimum);
+  }
+
+  private int firstAtLeast(int node, int low, int high, int from, int to, long minimum) {
+    if (high < from || low > to || this.longest[node] < minimum) {
+      return -1;
+    }
+    if (low == high) {
+      return low;
+    }
+    int middle = (low + high) >>> 1;
+    int left = this.firstAtLeast(2 * node + 1, low, middle, from, to, minimum);
+    return left >= 0 ? left : this.firstAtLeast(2 * node + 2, middle + 1, high, from, to, minimum);
+  }
+
+  /**
+   * Returns the nanoseconds between two date times, or Long.MAX_VALUE if there are too many to count.
+   *
+   * @param start the earlier date time
+   * @param end the later date time
+   * @return the nanoseconds between them
+   */
+  static long nanosBetween(LocalDateTime start, LocalDateTime end) {
+    return GapIndex.toNanos(Duration.between(start, end));
+  }
+
+  /**
+   * Returns the nanoseconds in a duration, or Long.MAX_VALUE if there are too many to count.
+   *
+   * @param duration the duration, which must not be negative
+   * @return the nanoseconds in the duration
+   */
+  static long toNanos(Duration duration) {
+    if (duration.getSeconds() >= Long.MAX_VALUE / EpochNanos.NANOS_PER_SECOND) {
+      return Long.MAX_VALUE;
+    }
+    return duration.toNanos();
+  }
+}
@@ -0,0 +1,386 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A MappedTimeSet is a time set stored in a file and read through a memory mapping, for sets too large to keep on the
+ * heap as time slots.
+ *
+ * The file holds a header with the number of time slots, followed by the start and end of each time slot as a pair of
+ * longs of nanoseconds since the epoch, ordered by start and never overlapping. Queries binary search the mapping and
+ * only create time slots for what they return, so a query over a window of a set spanning many years only reads the
+ * pages it needs. New time slots can be appended at the end of the set.
+ *
+ * The file is mapped in chunks of up to a gigabyte, and grows by doubling as time slots are appended. A MappedTimeSet
+ * must be closed, which flushes appended time slots to the file and cuts it back to the time slots it holds. Date
+ * times must fall between roughly the years 1677 and 2262. MappedTimeSets are not thread safe.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class MappedTimeSet implements Closeable {
+
+  private static final int MAGIC = 0x544D5346;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 16;
+  private static final int COUNT_OFFSET = 8;
+  private static final int SLOT_BYTES = 16;
+
+  /**
+   * The number of time slots in each mapped chunk by default, a gigabyte worth.
+   */
+  private static final int DEFAULT_SLOTS_PER_CHUNK = 1 << 26;
+
+  private final FileChannel channel;
+  private final boolean writable;
+  private final int chunkShift;
+  private final MappedByteBuffer header;
+  private MappedByteBuffer[] chunks;
+
+  /**
+   * The number of time slots the file has room for.
+   */
+  private long capacity;
+
+  /**
+   * The number of time slots in this set.
+   */
+  private long size;
+
+  /**
+   * Opens a file for reading and appending, creating an empty set if it does not exist.
+   *
+   * @param path the file to open
+   * @return the mapped time set
+   * @throws IOException if the file can not be opened or is not a mapped time set
+   */
+  public static MappedTimeSet open(Path path) throws IOException {
+    return MappedTimeSet.open(path, true, DEFAULT_SLOTS_PER_CHUNK);
+  }
+
+  /**
+   * Opens an existing file for reading only.
+   *
+   * @param path the file to open
+   * @return the mapped time set
+   * @throws IOException if the file can not be opened or is not a mapped time set
+   */
+  public static MappedTimeSet openReadOnly(Path path) throws IOException {
+    return MappedTimeSet.open(path, false, DEFAULT_SLOTS_PER_CHUNK);
+  }
+
+  /**
+   * Opens a file with chunks of a given number of time slots, which must be a power of two no larger than the default.
+   */
+  static MappedTimeSet open(Path path, boolean writable, int slotsPerChunk) throws IOException {
+    if (slotsPerChunk <= 0 || Integer.bitCount(slotsPerChunk) != 1 || slotsPerChunk > DEFAULT_SLOTS_PER_CHUNK) {
+      throw new IllegalArgumentException("The number of time slots in a chunk must be a power of two up to "
+                                         + DEFAULT_SLOTS_PER_CHUNK);
+    }
+    FileChannel channel = writable
+        ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+        : FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      return new MappedTimeSet(channel, writable, Integer.numberOfTrailingZeros(slotsPerChunk));
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private MappedTimeSet(FileChannel channel, boolean writable, int chunkShift) throws IOException {
+    this.channel = channel;
+    this.writable = writable;
+    this.chunkShift = chunkShift;
+    FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+    boolean created = channel.size() == 0 && writable;
+    if (!created && channel.size() < HEADER_BYTES) {
+      throw new StreamCorruptedException("Not a mapped time set");
+    }
+    this.header = channel.map(mode, 0, HEADER_BYTES);
+    if (created) {
+      this.header.putInt(0, MAGIC).putInt(4, VERSION).putLong(COUNT_OFFSET, 0);
+    }
+    if (this.header.getInt(0) != MAGIC || this.header.getInt(4) != VERSION) {
+      throw new StreamCorruptedException("Not a mapped time set");
+    }
+    this.size = this.header.getLong(COUNT_OFFSET);
+    long capacity = (channel.size() - HEADER_BYTES) / SLOT_BYTES;
+    if (this.size < 0 || this.size > capacity) {
+      throw new StreamCorruptedException("Mapped time set is truncated");
+    }
+    this.chunks = new MappedByteBuffer[0];
+    this.map(writable ? capacity : this.size);
+  }
+
+  /**
+   * Maps the file with room for a number of time slots, growing it if needed. Chunks that are already mapped in full
+   * are kept as they are.
+   */
+  private void map(long capacity) throws IOException {
+    FileChannel.MapMode mode = this.writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+    long slotsPerChunk = 1L << this.chunkShift;
+    int chunkCount = (int) ((capacity + slotsPerChunk - 1) >>> this.chunkShift);
+    MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+    for (int i = 0; i < chunkCount; i++) {
+      long first = (long) i << this.chunkShift;
+      long slots = Math.min(slotsPerChunk, capacity - first);
+      if (i < this.chunks.length && this.chunks[i].capacity() == slots * SLOT_BYTES) {
+        chunks[i] = this.chunks[i];
+      } else {
+        chunks[i] = this.channel.map(mode, HEADER_BYTES + first * SLOT_BYTES, slots * SLOT_BYTES);
+      }
+    }
+    this.chunks = chunks;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the number of time slots in this set.
+   *
+   * @return the number of time slots
+   */
+  public long size() {
+    return this.size;
+  }
+
+  private long startAt(long index) {
+    return this.chunks[(int) (index >>> this.chunkShift)].getLong(this.offsetOf(index));
+  }
+
+  private long endAt(long index) {
+    return this.chunks[(int) (index >>> this.chunkShift)].getLong(this.offsetOf(index) + 8);
+  }
+
+  private int offsetOf(long index) {
+    return (int) (index & ((1L << this.chunkShift) - 1)) * SLOT_BYTES;
+  }
+
+  private TimeSlot timeSlotAt(long index) {
+    return TimeSlot.of(EpochNanos.toDateTime(this.startAt(index)), EpochNanos.toDateTime(this.endAt(index)));
+  }
+
+  /**
+   * Checks to see if this contains a specific date time. As with time slots, a date time that is equal to the start
+   * or end of a time slot is not considered to be inside of it.
+   *
+   * @param dateTime the date time to look for
+   * @return true if one of the time slots in this set contains the date time
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    long nanos = EpochNanos.of(dateTime);
+    long index = this.firstStartingAtOrAfter(nanos) - 1;
+    return index >= 0 && this.startAt(index) < nanos && nanos < this.endAt(index);
+  }
+
+  /**
+   * Returns the part of this set within a window. Only the time slots overlapping the window are read.
+   *
+   * @param window the window to read
+   * @return a time set holding the time of this within the window
+   */
+  public TimeSet slice(TimeSlot window) {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    long end = EpochNanos.of(window.getEnd());
+    for (long i = this.firstEndingAtOrAfter(EpochNanos.of(window.getStart())); i < this.size; i++) {
+      if (this.startAt(i) > end) {
+        break;
+      }
+      TimeSlot intersection = this.timeSlotAt(i).intersect(window);
+      if (intersection != null) {
+        timeSlots.add(intersection);
+      }
+    }
+    return TimeSet.ofNormalized(timeSlots);
+  }
+
+  /**
+   * Return the length of this set in a specified unit. See TimeSet.length(ChronoUnit).
+   * Units with a fixed length are counted straight from the mapping, without creating any time slots.
+   *
+   * @param unit the unit to return
+   * @return the number of units in this set
+   */
+  public long length(ChronoUnit unit) {
+    if (!EpochNanos.isFixedLength(unit)) {
+      return this.view().length(unit);
+    }
+    long length = 0;
+    for (long i = 0; i < this.size; i++) {
+      length = Math.addExact(length, EpochNanos.unitsBetween(this.startAt(i), this.endAt(i), unit));
+    }
+    return length;
+  }
+
+  /**
+   * Returns the intersection of this and a time set. Only the parts of this that the time set reaches are read, and
+   * the time set is not modified.
+   *
+   * @param timeSet the time set to intersect with
+   * @return a time set holding the time that is in both
+   */
+  public TimeSet intersect(TimeSet timeSet) {
+    List<TimeSlot> intersections = new ArrayList<>();
+    for (TimeSlot timeSlot : timeSet) {
+      intersections.addAll(this.slice(timeSlot).getTimeSlots());
+    }
+    return TimeSet.of(intersections);
+  }
+
+  /**
+   * Returns a time set with this subtracted from it. Only the parts of this that the time set reaches are read, and
+   * the time set is not modified.
+   *
+   * @param timeSet the time set to subtract this from
+   * @return a time set holding the time of the time set that is not in this
+   */
+  public TimeSet subtractFrom(TimeSet timeSet) {
+    List<TimeSlot> remaining = new ArrayList<>();
+    for (TimeSlot timeSlot : timeSet) {
+      remaining.addAll(TimeSlot.difference(Collections.singletonList(timeSlot), this.slice(timeSlot).getTimeSlots()));
+    }
+    return TimeSet.of(remaining);
+  }
+
+  /**
+   * Returns a lazy view of this set, reading one time slot at a time from the mapping as it is iterated.
+   * See TimeSetView. This must not be appended to while the view is being iterated.
+   *
+   * @return a view of this set
+   */
+  public TimeSetView view() {
+    MappedTimeSet mapped = this;
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return new Iterator<TimeSlot>() {
+          private long index;
+
+          @Override
+          public boolean hasNext() {
+            return this.index < mapped.size;
+          }
+
+          @Override
+          public TimeSlot next() {
+            if (!this.hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return mapped.timeSlotAt(this.index++);
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Append a time slot to the end of this set. A time slot that overlaps the last one is combined with it, while one
+   * that starts before the last one is rejected.
+   *
+   * @param timeSlot the time slot to append
+   * @throws IOException if the file can not be grown
+   */
+  public void append(TimeSlot timeSlot) throws IOException {
+    if (!this.writable) {
+      throw new UnsupportedOperationException("This mapped time set is read only");
+    }
+    long start = EpochNanos.of(timeSlot.getStart());
+    long end = EpochNanos.of(timeSlot.getEnd());
+    if (this.size > 0) {
+      long last = this.size - 1;
+      long lastStart = this.startAt(last);
+      long lastEnd = this.endAt(last);
+      if (start < lastStart) {
+        throw new IllegalArgumentException("Time slots can only be appended at or after the last one");
+      }
+      if (start < lastEnd || (start == lastStart && end == lastEnd)) {
+        if (end > lastEnd) {
+          this.chunks[(int) (last >>> this.chunkShift)].putLong(this.offsetOf(last) + 8, end);
+        }
+        return;
+      }
+    }
+    if (this.size == this.capacity) {
+      this.map(Math.max(16, this.capacity * 2));
+    }
+    MappedByteBuffer chunk = this.chunks[(int) (this.size >>> this.chunkShift)];
+    chunk.putLong(this.offsetOf(this.size), start);
+    chunk.putLong(this.offsetOf(this.size) + 8, end);
+    this.size++;
+    this.header.putLong(COUNT_OFFSET, this.size);
+  }
+
+  /**
+   * Append every time slot of a time set to the end of this set. See append(TimeSlot).
+   *
+   * @param timeSet the time set to append
+   * @throws IOException if the file can not be grown
+   */
+  public void append(TimeSet timeSet) throws IOException {
+    for (TimeSlot timeSlot : timeSet) {
+      this.append(timeSlot);
+    }
+  }
+
+  /**
+   * Flushes appended time slots to the file, cuts off the room left for more, and closes it. The mapping itself is
+   * released once it is garbage collected.
+   *
+   * @throws IOException if the file can not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.writable) {
+      for (MappedByteBuffer chunk : this.chunks) {
+        chunk.force();
+      }
+      this.header.force();
+      this.channel.truncate(HEADER_BYTES + this.size * SLOT_BYTES);
+    }
+    this.channel.close();
+  }
+
+  /**
+   * Binary search for the first time slot in this set that ends at or after an instant.
+   */
+  private long firstEndingAtOrAfter(long nanos) {
+    long low = 0;
+    long high = this.size;
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      if (this.endAt(middle) < nanos) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Binary search for the first time slot in this set that starts at or after an instant.
+   */
+  private long firstStartingAtOrAfter(long nanos) {
+    long low = 0;
+    long high = this.size;
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      if (this.startAt(middle) < nanos) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,461 @@
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A PackedTimeSet represents the same potentially non continuous time as a TimeSet, but stores it compactly.
+ * The starts and ends of its time slots are kept as nanoseconds since the epoch in two parallel arrays that are ordered
+ * and never overlap, so no objects are held per time slot. Time slots are only created when they are asked for.
+ *
+ * Like TimeSets, PackedTimeSets are not immutable. Date times must fall between roughly the years 1677 and 2262.
+ *
+ * Lucas Gauk - 2020
+ */
+public class PackedTimeSet {
+
+  /**
+   * The starts of the time slots in this set, in nanoseconds since the epoch. Only the first size entries are used.
+   */
+  private long[] starts;
+
+  /**
+   * The ends of the time slots in this set, in nanoseconds since the epoch. Only the first size entries are used.
+   */
+  private long[] ends;
+
+  /**
+   * The number of time slots in this set.
+   */
+  private int size;
+
+  /**
+   * Creates an empty packed time set.
+   *
+   * @return a packed time set with no time slots
+   */
+  public static PackedTimeSet empty() {
+    return new PackedTimeSet(new long[0], new long[0], 0);
+  }
+
+  /**
+   * Create a packed time set from a varargs array of time slots.
+   *
+   * @param timeSlots the time slots
+   * @return the packed time set that represents the combination of all time slots
+   */
+  public static PackedTimeSet of(TimeSlot... timeSlots) {
+    return PackedTimeSet.of(Arrays.asList(timeSlots));
+  }
+
+  /**
+   * Create a packed time set from a list of time slots.
+   *
+   * @param timeSlots the time slots
+   * @return the packed time set that represents the combination of all time slots
+   */
+  public static PackedTimeSet of(List<TimeSlot> timeSlots) {
+    return PackedTimeSet.pack(TimeSlot.sum(timeSlots));
+  }
+
+  /**
+   * Create a packed time set with the same time as a time set.
+   *
+   * @param timeSet the time set to pack
+   * @return the packed time set
+   */
+  public static PackedTimeSet of(TimeSet timeSet) {
+    return PackedTimeSet.pack(timeSet.getTimeSlots());
+  }
+
+  /**
+   * Clone a packed time set.
+   *
+   * @param packedTimeSet the packed time set to clone
+   * @return a new packed time set with the same time slots
+   */
+  public static PackedTimeSet of(PackedTimeSet packedTimeSet) {
+    return new PackedTimeSet(Arrays.copyOf(packedTimeSet.starts, packedTimeSet.size),
+                             Arrays.copyOf(packedTimeSet.ends, packedTimeSet.size),
+                             packedTimeSet.size);
+  }
+
+  /**
+   * Packs a list of time slots that is already ordered by start and contains no overlaps.
+   *
+   * @param timeSlots the normalized list of time slots
+   * @return the packed time set
+   */
+  private static PackedTimeSet pack(List<TimeSlot> timeSlots) {
+    long[] starts = new long[timeSlots.size()];
+    long[] ends = new long[timeSlots.size()];
+    for (int i = 0; i < timeSlots.size(); i++) {
+      starts[i] = EpochNanos.of(timeSlots.get(i).getStart());
+      ends[i] = EpochNanos.of(timeSlots.get(i).getEnd());
+    }
+    return new PackedTimeSet(starts, ends, timeSlots.size());
+  }
+
+  /**
+   * Create a packed time set from arrays of starts and ends that are already ordered and contain no overlaps.
+   * The arrays are used as is, and must not be shared.
+   *
+   * @param starts the starts of the time slots
+   * @param ends the ends of the time slots
+   * @param size the number of time slots used from the arrays
+   * @return the packed time set backed by the arrays
+   */
+  static PackedTimeSet ofNormalized(long[] starts, long[] ends, int size) {
+    return new PackedTimeSet(starts, ends, size);
+  }
+
+  /**
+   * Packed time set constructor. The arrays must already be ordered and contain no overlaps.
+   *
+   * @param starts the starts of the time slots
+   * @param ends the ends of the time slots
+   * @param size the number of time slots used from the arrays
+   */
+  private PackedTimeSet(long[] starts, long[] ends, int size) {
+    this.starts = starts;
+    this.ends = ends;
+    this.size = size;
+  }
+
+  /**
+   * Returns the number of time slots in this set.
+   *
+   * @return the number of time slots
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Return a list containing the time slots making up this set, ordered by start.
+   *
+   * @return a list containing all time slots in this set
+   */
+  public List<TimeSlot> getTimeSlots() {
+    List<TimeSlot> timeSlots = new ArrayList<>(this.size);
+    for (int i = 0; i < this.size; i++) {
+      timeSlots.add(TimeSlot.of(EpochNanos.toDateTime(this.starts[i]), EpochNanos.toDateTime(this.ends[i])));
+    }
+    return timeSlots;
+  }
+
+  /**
+   * Return a time set with the same time as this.
+   *
+   * @return the time set
+   */
+  public TimeSet toTimeSet() {
+    return TimeSet.of(this.getTimeSlots());
+  }
+
+  /**
+   * Return the length of this set in a specified unit. Like TimeSet, this is the sum of the length of each time slot.
+   * The unit must be supported by LocalDateTime.
+   *
+   * @param unit the unit to return
+   * @return the number of units in this set
+   */
+  public long length(ChronoUnit unit) {
+    if (!EpochNanos.isFixedLength(unit)) {
+      return this.toTimeSet().length(unit);
+    }
+    long length = 0;
+    for (int i = 0; i < this.size; i++) {
+      length = Math.addExact(length, EpochNanos.unitsBetween(this.starts[i], this.ends[i], unit));
+    }
+    return length;
+  }
+
+  /**
+   * Add a time slot to this set.
+   *
+   * @param timeSlot the time slot to add to this set
+   */
+  public void add(TimeSlot timeSlot) {
+    this.add(PackedTimeSet.of(timeSlot));
+  }
+
+  /**
+   * Add a list of packed time sets to this. Equivalent to a union of this and all others.
+   * The sets are merged in pairs, so that every time slot passes through a logarithmic number of merges.
+   *
+   * @param others the packed time sets to add to this
+   */
+  public void add(List<PackedTimeSet> others) {
+    List<PackedTimeSet> round = new ArrayList<>(others.size() + 1);
+    round.add(this);
+    round.addAll(others);
+    while (round.size() > 1) {
+      List<PackedTimeSet> next = new ArrayList<>((round.size() + 1) / 2);
+      for (int i = 0; i + 1 < round.size(); i += 2) {
+        next.add(PackedTimeSet.union(round.get(i), round.get(i + 1)));
+      }
+      if (round.size() % 2 == 1) {
+        next.add(round.get(round.size() - 1));
+      }
+      round = next;
+    }
+    this.replaceWith(round.get(0));
+  }
+
+  /**
+   * Convenience method for add with varargs. See add(List).
+   *
+   * @param others the packed time sets to add to this
+   */
+  public void add(PackedTimeSet... others) {
+    this.add(Arrays.asList(others));
+  }
+
+  /**
+   * Subtract a time slot from this.
+   *
+   * @param other the time slot to subtract from this
+   */
+  public void subtract(TimeSlot other) {
+    this.subtract(PackedTimeSet.of(other));
+  }
+
+  /**
+   * Subtract packed time sets from this. Say this is A and B represents the sum of all others. Then this operation
+   * would be equivalent to A NOT B.
+   *
+   * @param others the packed time sets to subtract from this
+   */
+  public void subtract(List<PackedTimeSet> others) {
+    if (others.isEmpty()) {
+      return;
+    }
+    PackedTimeSet removals = others.get(0);
+    if (others.size() > 1) {
+      removals = PackedTimeSet.of(removals);
+      removals.add(others.subList(1, others.size()));
+    }
+    this.replaceWith(PackedTimeSet.difference(this, removals));
+  }
+
+  /**
+   * Convenience method for subtract with varargs. See subtract(List).
+   *
+   * @param others the packed time sets to subtract from this
+   */
+  public void subtract(PackedTimeSet... others) {
+    this.subtract(Arrays.asList(others));
+  }
+
+  /**
+   * Performs the intersection of this and a time slot.
+   *
+   * @param other the time slot to intersect with
+   */
+  public void intersect(TimeSlot other) {
+    this.intersect(PackedTimeSet.of(other));
+  }
+
+  /**
+   * Performs the intersection of this and other packed time sets.
+   * The smallest sets are intersected first, and no more work is done once the intersection is empty.
+   *
+   * @param others the packed time sets to intersect with this
+   */
+  public void intersect(List<PackedTimeSet> others) {
+    if (others.isEmpty()) {
+      this.replaceWith(PackedTimeSet.empty());
+      return;
+    }
+    List<PackedTimeSet> smallestFirst = new ArrayList<>(others);
+    smallestFirst.sort(Comparator.comparingInt(PackedTimeSet::size));
+    for (PackedTimeSet other : smallestFirst) {
+      if (this.size == 0) {
+        return;
+      }
+      this.replaceWith(PackedTimeSet.intersection(this, other));
+    }
+  }
+
+  /**
+   * Convenience method for intersect with varargs. See intersect(List).
+   *
+   * @param others the packed time sets to intersect with this
+   */
+  public void intersect(PackedTimeSet... others) {
+    this.intersect(Arrays.asList(others));
+  }
+
+  /**
+   * Returns the intersection of a list of packed time sets. None of the sets passed in are modified.
+   *
+   * @param packedTimeSets packed time sets to intersect
+   * @return the packed time set that represents the intersection of the others
+   */
+  public static PackedTimeSet intersection(List<PackedTimeSet> packedTimeSets) {
+    if (packedTimeSets.size() < 2) {
+      return PackedTimeSet.empty();
+    }
+    List<PackedTimeSet> smallestFirst = new ArrayList<>(packedTimeSets);
+    smallestFirst.sort(Comparator.comparingInt(PackedTimeSet::size));
+    PackedTimeSet intersection = PackedTimeSet.of(smallestFirst.remove(0));
+    intersection.intersect(smallestFirst);
+    return intersection;
+  }
+
+  /**
+   * Checks if this packed time set has exactly the same time slots as another.
+   *
+   * @param other the other packed time set to compare against
+   * @return true if both sets have the same time slots
+   */
+  public boolean equals(PackedTimeSet other) {
+    if (this.size != other.size) {
+      return false;
+    }
+    for (int i = 0; i < this.size; i++) {
+      if (this.starts[i] != other.starts[i] || this.ends[i] != other.ends[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void replaceWith(PackedTimeSet other) {
+    this.starts = other.starts;
+    this.ends = other.ends;
+    this.size = other.size;
+  }
+
+  /**
+   * Returns true if two time slots given as epoch nanoseconds overlap, with the same meaning as TimeSlot.overlaps.
+   */
+  private static boolean overlaps(long start, long end, long otherStart, long otherEnd) {
+    return (start < otherEnd && otherStart < end) || (start == otherStart && end == otherEnd);
+  }
+
+  /**
+   * Merges two packed time sets into their union in a single pass over both.
+   */
+  private static PackedTimeSet union(PackedTimeSet first, PackedTimeSet second) {
+    Buffer results = new Buffer(first.size + second.size);
+    int i = 0;
+    int j = 0;
+    while (i < first.size || j < second.size) {
+      if (j == second.size || (i < first.size && PackedTimeSet.startsFirst(first, i, second, j))) {
+        results.appendCombining(first.starts[i], first.ends[i]);
+        i++;
+      } else {
+        results.appendCombining(second.starts[j], second.ends[j]);
+        j++;
+      }
+    }
+    return results.toPackedTimeSet();
+  }
+
+  /**
+   * Returns true if a time slot of one set comes no later than a time slot of another, ordering by start and then end.
+   */
+  private static boolean startsFirst(PackedTimeSet first, int i, PackedTimeSet second, int j) {
+    return first.starts[i] < second.starts[j] || (first.starts[i] == second.starts[j] && first.ends[i] <= second.ends[j]);
+  }
+
+  /**
+   * Intersects two packed time sets in a single pass over both, passing over whichever time slot ends first, or of two
+   * ending together the one starting first. See TimeSet.intersect.
+   */
+  private static PackedTimeSet intersection(PackedTimeSet first, PackedTimeSet second) {
+    Buffer results = new Buffer(Math.min(first.size, second.size));
+    int i = 0;
+    int j = 0;
+    while (i < first.size && j < second.size) {
+      if (PackedTimeSet.overlaps(first.starts[i], first.ends[i], second.starts[j], second.ends[j])) {
+        results.append(Math.max(first.starts[i], second.starts[j]), Math.min(first.ends[i], second.ends[j]));
+      }
+      int endComparison = Long.compare(first.ends[i], second.ends[j]);
+      if (endComparison == 0) {
+        endComparison = Long.compare(first.starts[i], second.starts[j]);
+      }
+      if (endComparison <= 0) {
+        i++;
+      }
+      if (endComparison >= 0) {
+        j++;
+      }
+    }
+    return results.toPackedTimeSet();
+  }
+
+  /**
+   * Removes the time of one packed time set from another in a single pass over both.
+   */
+  private static PackedTimeSet difference(PackedTimeSet from, PackedTimeSet removals) {
+    Buffer results = new Buffer(from.size);
+    int firstRemoval = 0;
+    for (int i = 0; i < from.size; i++) {
+      while (firstRemoval < removals.size && removals.ends[firstRemoval] < from.starts[i]) {
+        firstRemoval++;
+      }
+      long start = from.starts[i];
+      long end = from.ends[i];
+      boolean remaining = true;
+      for (int j = firstRemoval; remaining && j < removals.size && removals.starts[j] <= end; j++) {
+        if (!PackedTimeSet.overlaps(start, end, removals.starts[j], removals.ends[j])) {
+          continue;
+        }
+        if (removals.starts[j] > start) {
+          results.append(start, removals.starts[j]);
+        }
+        remaining = removals.ends[j] < end;
+        start = removals.ends[j];
+      }
+      if (remaining) {
+        results.append(start, end);
+      }
+    }
+    return results.toPackedTimeSet();
+  }
+
+  /**
+   * A growable pair of arrays that the results of an operation are written into.
+   */
+  private static final class Buffer {
+
+    private long[] starts;
+    private long[] ends;
+    private int size;
+
+    private Buffer(int capacity) {
+      this.starts = new long[Math.max(capacity, 1)];
+      this.ends = new long[Math.max(capacity, 1)];
+    }
+
+    private void append(long start, long end) {
+      if (this.size == this.starts.length) {
+        this.starts = Arrays.copyOf(this.starts, this.size * 2);
+        this.ends = Arrays.copyOf(this.ends, this.size * 2);
+      }
+      this.starts[this.size] = start;
+      this.ends[this.size] = end;
+      this.size++;
+    }
+
+    /**
+     * Appends a time slot that starts at or after the last one, combining the two if they overlap.
+     */
+    private void appendCombining(long start, long end) {
+      int last = this.size - 1;
+      if (last >= 0 && (start < this.ends[last] || (start == this.starts[last] && end == this.ends[last]))) {
+        this.ends[last] = Math.max(this.ends[last], end);
+      } else {
+        this.append(start, end);
+      }
+    }
+
+    private PackedTimeSet toPackedTimeSet() {
+      return new PackedTimeSet(this.starts, this.ends, this.size);
+    }
+  }
+}
@@ -0,0 +1,499 @@
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A PersistentTimeSet represents the same potentially non continuous time as a TimeSet, but is immutable.
+ * Adding, subtracting and intersecting return a new set and leave the original untouched. The new set shares every
+ * part of the original that the operation did not change, so a single time slot costs O(log n) time and space rather
+ * than a copy of the whole set.
+ *
+ * Because nothing in a PersistentTimeSet ever changes, a reference to one is already a snapshot, and it can be shared
+ * between threads without any locking.
+ *
+ * The time slots are held in a balanced binary tree ordered by start, and as in a TimeSet, no two of them overlap.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class PersistentTimeSet {
+
+  private static final PersistentTimeSet EMPTY = new PersistentTimeSet(null);
+
+  /**
+   * The root of the tree of time slots, or null if the set is empty.
+   */
+  private final Node root;
+
+  /**
+   * Returns the empty persistent time set.
+   *
+   * @return a persistent time set with no time slots
+   */
+  public static PersistentTimeSet empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Create a persistent time set from a varargs array of time slots.
+   *
+   * @param timeSlots the time slots
+   * @return the persistent time set that represents the combination of all time slots
+   */
+  public static PersistentTimeSet of(TimeSlot... timeSlots) {
+    return PersistentTimeSet.of(Arrays.asList(timeSlots));
+  }
+
+  /**
+   * Create a persistent time set from a list of time slots.
+   *
+   * @param timeSlots the time slots
+   * @return the persistent time set that represents the combination of all time slots
+   */
+  public static PersistentTimeSet of(List<TimeSlot> timeSlots) {
+    return PersistentTimeSet.ofNormalized(TimeSlot.sum(timeSlots));
+  }
+
+  /**
+   * Create a persistent time set with the same time as a time set.
+   *
+   * @param timeSet the time set
+   * @return the persistent time set
+   */
+  public static PersistentTimeSet of(TimeSet timeSet) {
+    return PersistentTimeSet.ofNormalized(timeSet.getTimeSlots());
+  }
+
+  /**
+   * Builds a balanced tree from a list of time slots that is already ordered by start and contains no overlaps.
+   *
+   * @param timeSlots the normalized list of time slots
+   * @return the persistent time set
+   */
+  private static PersistentTimeSet ofNormalized(List<TimeSlot> timeSlots) {
+    return PersistentTimeSet.of(PersistentTimeSet.build(timeSlots, 0, timeSlots.size()));
+  }
+
+  private static PersistentTimeSet of(Node root) {
+    return root == null ? EMPTY : new PersistentTimeSet(root);
+  }
+
+  private PersistentTimeSet(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the number of time slots in this set.
+   *
+   * @return the number of time slots
+   */
+  public int size() {
+    return Node.size(this.root);
+  }
+
+  /**
+   * Return a list containing the time slots making up this set, ordered by start.
+   *
+   * @return a list containing all time slots in this set
+   */
+  public List<TimeSlot> getTimeSlots() {
+    List<TimeSlot> timeSlots = new ArrayList<>(this.size());
+    PersistentTimeSet.collect(this.root, timeSlots);
+    return timeSlots;
+  }
+
+  /**
+   * Return a mutable time set with the same time as this.
+   *
+   * @return the time set
+   */
+  public TimeSet toTimeSet() {
+    return TimeSet.of(this.getTimeSlots());
+  }
+
+  /**
+   * Return the length of this set in a specified unit, the sum of the length of each time slot.
+   * The unit must be supported by LocalDateTime. The tree is walked in place, without copying its time slots.
+   *
+   * @param unit the unit to return
+   * @return the number of units in this set
+   */
+  public long length(ChronoUnit unit) {
+    return PersistentTimeSet.length(this.root, unit);
+  }
+
+  /**
+   * Checks to see if this contains a specific date time. A date time equal to the start or end of a time slot is not
+   * considered to be inside of it.
+   *
+   * @param dateTime the date time to look for
+   * @return true if one of the time slots in this set contains the date time
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    Node node = this.root;
+    while (node != null) {
+      if (node.timeSlot.contains(dateTime)) {
+        return true;
+      }
+      node = node.timeSlot.getStart().isBefore(dateTime) ? node.right : node.left;
+    }
+    return false;
+  }
+
+  /**
+   * Returns a set with a time slot added to this.
+   *
+   * @param timeSlot the time slot to add
+   * @return the union of this and the time slot
+   */
+  public PersistentTimeSet add(TimeSlot timeSlot) {
+    Split split = PersistentTimeSet.split(this.root, timeSlot);
+    Node before = split.left;
+    Node after = split.right;
+    TimeSlot combined = timeSlot;
+    if (before != null && Node.last(before).overlaps(combined)) {
+      Split last = PersistentTimeSet.splitLast(before);
+      before = last.left;
+      combined = combined.add(last.timeSlot).get(0);
+    }
+    while (after != null && Node.first(after).overlaps(combined)) {
+      Split first = PersistentTimeSet.splitFirst(after);
+      after = first.right;
+      combined = combined.add(first.timeSlot).get(0);
+    }
+    return PersistentTimeSet.of(PersistentTimeSet.join(before, combined, after));
+  }
+
+  /**
+   * Returns the union of this and another set. The smaller set is added into the larger, one time slot at a time.
+   *
+   * @param other the other set
+   * @return the union of both sets
+   */
+  public PersistentTimeSet add(PersistentTimeSet other) {
+    PersistentTimeSet larger = this.size() >= other.size() ? this : other;
+    PersistentTimeSet smaller = larger == this ? other : this;
+    PersistentTimeSet union = larger;
+    for (TimeSlot timeSlot : smaller.getTimeSlots()) {
+      union = union.add(timeSlot);
+    }
+    return union;
+  }
+
+  /**
+   * Returns a set with a time slot removed from this.
+   *
+   * @param other the time slot to remove
+   * @return this NOT the time slot
+   */
+  public PersistentTimeSet subtract(TimeSlot other) {
+    Split split = PersistentTimeSet.split(this.root, other);
+    Node before = split.left;
+    Node after = split.right;
+    List<TimeSlot> affected = new ArrayList<>();
+    if (before != null && Node.last(before).overlaps(other)) {
+      Split last = PersistentTimeSet.splitLast(before);
+      before = last.left;
+      affected.add(last.timeSlot);
+    }
+    while (after != null && Node.first(after).overlaps(other)) {
+      Split first = PersistentTimeSet.splitFirst(after);
+      after = first.right;
+      affected.add(first.timeSlot);
+    }
+    if (affected.isEmpty()) {
+      return this;
+    }
+    for (TimeSlot remaining : TimeSlot.difference(affected, Collections.singletonList(other))) {
+      before = PersistentTimeSet.join(before, remaining, null);
+    }
+    return PersistentTimeSet.of(PersistentTimeSet.join(before, after));
+  }
+
+  /**
+   * Returns this with another set removed from it. When the other set is the smaller of the two, its time slots are
+   * removed one at a time so the result shares as much as possible with this. Otherwise both are merged in one pass.
+   *
+   * @param other the other set
+   * @return this NOT the other set
+   */
+  public PersistentTimeSet subtract(PersistentTimeSet other) {
+    if (other.size() > this.size()) {
+      return PersistentTimeSet.ofNormalized(TimeSlot.difference(this.getTimeSlots(), other.getTimeSlots()));
+    }
+    PersistentTimeSet difference = this;
+    for (TimeSlot timeSlot : other.getTimeSlots()) {
+      difference = difference.subtract(timeSlot);
+    }
+    return difference;
+  }
+
+  /**
+   * Returns the part of this that is within a time slot. The result shares everything inside the time slot with this.
+   *
+   * @param other the time slot to intersect with
+   * @return this intersect the time slot
+   */
+  public PersistentTimeSet intersect(TimeSlot other) {
+    return PersistentTimeSet.of(PersistentTimeSet.within(this.root, other));
+  }
+
+  /**
+   * Returns the intersection of this and another set. When the other set is the smaller of the two, the part of this
+   * within each of its time slots is split out and shared. Otherwise both are merged in one pass.
+   *
+   * @param other the other set
+   * @return this intersect the other set
+   */
+  public PersistentTimeSet intersect(PersistentTimeSet other) {
+    if (other.size() > this.size()) {
+      TimeSet intersection = this.toTimeSet();
+      intersection.intersect(other.toTimeSet());
+      return PersistentTimeSet.of(intersection);
+    }
+    Node intersection = null;
+    for (TimeSlot timeSlot : other.getTimeSlots()) {
+      intersection = PersistentTimeSet.join(intersection, PersistentTimeSet.within(this.root, timeSlot));
+    }
+    return PersistentTimeSet.of(intersection);
+  }
+
+  /**
+   * Checks if this set has exactly the same time slots as another.
+   *
+   * @param other the other set to compare against
+   * @return true if both sets have the same time slots
+   */
+  public boolean equals(PersistentTimeSet other) {
+    if (this.root == other.root) {
+      return true;
+    }
+    List<TimeSlot> timeSlots = this.getTimeSlots();
+    List<TimeSlot> otherTimeSlots = other.getTimeSlots();
+    if (timeSlots.size() != otherTimeSlots.size()) {
+      return false;
+    }
+    for (int i = 0; i < timeSlots.size(); i++) {
+      if (!timeSlots.get(i).equals(otherTimeSlots.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the tree of the part of a tree that is within a time slot, clipping the time slots at either edge.
+   */
+  private static Node within(Node root, TimeSlot other) {
+    Split split = PersistentTimeSet.split(root, other);
+    Node before = split.left;
+    Node after = split.right;
+    Node inside = null;
+    if (before != null && Node.last(before).overlaps(other)) {
+      inside = PersistentTimeSet.join(null, Node.last(before).intersect(other), null);
+    }
+    if (other.getStart().equals(other.getEnd())) {
+      // A time slot of no length sorts before everything else that starts with it, so an equal one is first after it
+      if (inside == null && after != null && Node.first(after).equals(other)) {
+        return PersistentTimeSet.join(null, other, null);
+      }
+      return inside;
+    }
+    Split end = PersistentTimeSet.split(after, TimeSlot.of(other.getEnd(), other.getEnd()));
+    Node middle = end.left;
+    if (middle != null && !Node.first(middle).overlaps(other)) {
+      middle = PersistentTimeSet.splitFirst(middle).right;
+    }
+    if (middle != null && Node.last(middle).getEnd().isAfter(other.getEnd())) {
+      Split last = PersistentTimeSet.splitLast(middle);
+      middle = PersistentTimeSet.join(last.left, last.timeSlot.intersect(other), null);
+    }
+    return PersistentTimeSet.join(inside, middle);
+  }
+
+  private static Node build(List<TimeSlot> timeSlots, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int middle = (from + to) >>> 1;
+    return Node.of(PersistentTimeSet.build(timeSlots, from, middle), timeSlots.get(middle),
+                   PersistentTimeSet.build(timeSlots, middle + 1, to));
+  }
+
+  private static long length(Node node, ChronoUnit unit) {
+    if (node == null) {
+      return 0;
+    }
+    return PersistentTimeSet.length(node.left, unit) + node.timeSlot.length(unit)
+        + PersistentTimeSet.length(node.right, unit);
+  }
+
+  private static void collect(Node node, List<TimeSlot> timeSlots) {
+    if (node == null) {
+      return;
+    }
+    PersistentTimeSet.collect(node.left, timeSlots);
+    timeSlots.add(node.timeSlot);
+    PersistentTimeSet.collect(node.right, timeSlots);
+  }
+
+  /**
+   * Splits a tree into the time slots that come before a time slot, ordering by start and then end, and those that
+   * do not. Only the nodes along one path are copied.
+   */
+  private static Split split(Node node, TimeSlot timeSlot) {
+    if (node == null) {
+      return new Split(null, null, null);
+    }
+    if (TimeSlot.START_ORDER.compare(timeSlot, node.timeSlot) <= 0) {
+      Split split = PersistentTimeSet.split(node.left, timeSlot);
+      return new Split(split.left, null, PersistentTimeSet.join(split.right, node.timeSlot, node.right));
+    }
+    Split split = PersistentTimeSet.split(node.right, timeSlot);
+    return new Split(PersistentTimeSet.join(node.left, node.timeSlot, split.left), null, split.right);
+  }
+
+  private static Split splitFirst(Node node) {
+    if (node.left == null) {
+      return new Split(null, node.timeSlot, node.right);
+    }
+    Split split = PersistentTimeSet.splitFirst(node.left);
+    return new Split(null, split.timeSlot, PersistentTimeSet.join(split.right, node.timeSlot, node.right));
+  }
+
+  private static Split splitLast(Node node) {
+    if (node.right == null) {
+      return new Split(node.left, node.timeSlot, null);
+    }
+    Split split = PersistentTimeSet.splitLast(node.right);
+    return new Split(PersistentTimeSet.join(node.left, node.timeSlot, split.left), split.timeSlot, null);
+  }
+
+  /**
+   * Joins two trees where every time slot of the first comes before every time slot of the second.
+   */
+  private static Node join(Node left, Node right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    Split last = PersistentTimeSet.splitLast(left);
+    return PersistentTimeSet.join(last.left, last.timeSlot, right);
+  }
+
+  /**
+   * Joins two trees and a time slot that comes between them into one balanced tree, in time proportional to the
+   * difference in their heights.
+   */
+  private static Node join(Node left, TimeSlot timeSlot, Node right) {
+    if (Node.height(left) > Node.height(right) + 1) {
+      return PersistentTimeSet.joinRight(left, timeSlot, right);
+    }
+    if (Node.height(right) > Node.height(left) + 1) {
+      return PersistentTimeSet.joinLeft(left, timeSlot, right);
+    }
+    return Node.of(left, timeSlot, right);
+  }
+
+  private static Node joinRight(Node left, TimeSlot timeSlot, Node right) {
+    if (Node.height(left.right) <= Node.height(right) + 1) {
+      Node joined = Node.of(left.right, timeSlot, right);
+      if (Node.height(joined) <= Node.height(left.left) + 1) {
+        return Node.of(left.left, left.timeSlot, joined);
+      }
+      return PersistentTimeSet.rotateLeft(Node.of(left.left, left.timeSlot, PersistentTimeSet.rotateRight(joined)));
+    }
+    Node joined = PersistentTimeSet.joinRight(left.right, timeSlot, right);
+    Node node = Node.of(left.left, left.timeSlot, joined);
+    return Node.height(joined) <= Node.height(left.left) + 1 ? node : PersistentTimeSet.rotateLeft(node);
+  }
+
+  private static Node joinLeft(Node left, TimeSlot timeSlot, Node right) {
+    if (Node.height(right.left) <= Node.height(left) + 1) {
+      Node joined = Node.of(left, timeSlot, right.left);
+      if (Node.height(joined) <= Node.height(right.right) + 1) {
+        return Node.of(joined, right.timeSlot, right.right);
+      }
+      return PersistentTimeSet.rotateRight(Node.of(PersistentTimeSet.rotateLeft(joined), right.timeSlot, right.right));
+    }
+    Node joined = PersistentTimeSet.joinLeft(left, timeSlot, right.left);
+    Node node = Node.of(joined, right.timeSlot, right.right);
+    return Node.height(joined) <= Node.height(right.right) + 1 ? node : PersistentTimeSet.rotateRight(node);
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    return Node.of(Node.of(node.left, node.timeSlot, right.left), right.timeSlot, right.right);
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    return Node.of(left.left, left.timeSlot, Node.of(left.right, node.timeSlot, node.right));
+  }
+
+  /**
+   * The result of splitting a tree: the part before, possibly a single time slot, and the part after.
+   */
+  private static final class Split {
+
+    private final Node left;
+    private final TimeSlot timeSlot;
+    private final Node right;
+
+    private Split(Node left, TimeSlot timeSlot, Node right) {
+      this.left = left;
+      this.timeSlot = timeSlot;
+      this.right = right;
+    }
+  }
+
+  /**
+   * An immutable node of the tree. Nodes are never changed once built, only replaced along the path to a change.
+   */
+  private static final class Node {
+
+    private final Node left;
+    private final TimeSlot timeSlot;
+    private final Node right;
+    private final int height;
+    private final int size;
+
+    private Node(Node left, TimeSlot timeSlot, Node right) {
+      this.left = left;
+      this.timeSlot = timeSlot;
+      this.right = right;
+      this.height = Math.max(Node.height(left), Node.height(right)) + 1;
+      this.size = Node.size(left) + Node.size(right) + 1;
+    }
+
+    private static Node of(Node left, TimeSlot timeSlot, Node right) {
+      return new Node(left, timeSlot, right);
+    }
+
+    private static int height(Node node) {
+      return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+      return node == null ? 0 : node.size;
+    }
+
+    private static TimeSlot first(Node node) {
+      while (node.left != null) {
+        node = node.left;
+      }
+      return node.timeSlot;
+    }
+
+    private static TimeSlot last(Node node) {
+      while (node.right != null) {
+        node = node.right;
+      }
+      return node.timeSlot;
+    }
+  }
+}
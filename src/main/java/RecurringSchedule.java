@@ -0,0 +1,234 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A RecurringSchedule describes time that repeats every week, such as business hours of Monday to Friday from 09:00
+ * to 17:00 except on holidays.
+ *
+ * The schedule is never expanded in full. Its time slots, one per scheduled day, are only generated within the window
+ * being looked at, so a schedule can be combined with a time set spanning many years at the cost of the days that
+ * time set actually covers. An end at or before the start means each time slot ends on the following day, and an end
+ * equal to the start means a whole day. Every time slot lasts at most a day, so they never overlap one another.
+ * RecurringSchedules are immutable.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class RecurringSchedule {
+
+  private final Set<DayOfWeek> days;
+  private final LocalTime start;
+  private final LocalTime end;
+
+  /**
+   * Dates on which no time slot starts.
+   */
+  private final Set<LocalDate> exceptions;
+
+  /**
+   * Creates a schedule that repeats on every day of the week.
+   *
+   * @param start the time each time slot starts
+   * @param end the time each time slot ends
+   * @return the schedule
+   */
+  public static RecurringSchedule daily(LocalTime start, LocalTime end) {
+    return RecurringSchedule.weekly(start, end, DayOfWeek.values());
+  }
+
+  /**
+   * Creates a schedule that repeats on some days of the week.
+   *
+   * @param start the time each time slot starts
+   * @param end the time each time slot ends, on the following day if it is not after the start
+   * @param days the days of the week on which a time slot starts
+   * @return the schedule
+   */
+  public static RecurringSchedule weekly(LocalTime start, LocalTime end, DayOfWeek... days) {
+    Set<DayOfWeek> daySet = EnumSet.noneOf(DayOfWeek.class);
+    daySet.addAll(Arrays.asList(days));
+    return new RecurringSchedule(daySet, start, end, Collections.emptySet());
+  }
+
+  private RecurringSchedule(Set<DayOfWeek> days, LocalTime start, LocalTime end, Set<LocalDate> exceptions) {
+    this.days = days;
+    this.start = start;
+    this.end = end;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Returns a copy of this schedule that skips some dates, such as holidays.
+   * A time slot crossing midnight is skipped if it starts on one of the dates.
+   *
+   * @param dates the dates to skip
+   * @return the schedule without the dates
+   */
+  public RecurringSchedule except(Collection<LocalDate> dates) {
+    Set<LocalDate> exceptions = new HashSet<>(this.exceptions);
+    exceptions.addAll(dates);
+    return new RecurringSchedule(this.days, this.start, this.end, exceptions);
+  }
+
+  /**
+   * Convenience method for except with varargs. See except(Collection).
+   *
+   * @param dates the dates to skip
+   * @return the schedule without the dates
+   */
+  public RecurringSchedule except(LocalDate... dates) {
+    return this.except(Arrays.asList(dates));
+  }
+
+  /**
+   * Returns the time slot this schedule has starting on a date.
+   *
+   * @param date the date to look at
+   * @return the time slot, or null if the date is not scheduled
+   */
+  public TimeSlot on(LocalDate date) {
+    if (!this.days.contains(date.getDayOfWeek()) || this.exceptions.contains(date)) {
+      return null;
+    }
+    LocalDate endDate = this.end.isAfter(this.start) ? date : date.plusDays(1);
+    return TimeSlot.of(date.atTime(this.start), endDate.atTime(this.end));
+  }
+
+  /**
+   * Checks to see if this schedule contains a specific date time. Only the time slots starting on that day and the day
+   * before can contain it, so no others are looked at.
+   *
+   * @param dateTime the date time to look for
+   * @return true if a time slot of this schedule contains the date time
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    LocalDate date = dateTime.toLocalDate();
+    TimeSlot today = this.on(date);
+    TimeSlot yesterday = this.on(date.minusDays(1));
+    return (today != null && today.contains(dateTime)) || (yesterday != null && yesterday.contains(dateTime));
+  }
+
+  /**
+   * Returns a lazy view of this schedule within a window. Time slots are generated one day at a time as the view is
+   * iterated, and are cut to fit the window.
+   *
+   * @param window the window to generate time slots in
+   * @return a view of the schedule within the window
+   */
+  public TimeSetView view(TimeSlot window) {
+    RecurringSchedule schedule = this;
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return new Occurrences(schedule, window);
+      }
+    };
+  }
+
+  /**
+   * Returns the time slots of this schedule within a window as a time set.
+   *
+   * @param window the window to generate time slots in
+   * @return a time set holding the schedule within the window
+   */
+  public TimeSet between(TimeSlot window) {
+    return TimeSet.of(this.within(window));
+  }
+
+  /**
+   * Returns the intersection of this schedule and a time set. Time slots are only generated for the days the time set
+   * covers, however far apart its time slots are. The time set is not modified.
+   *
+   * @param timeSet the time set to intersect with
+   * @return a time set holding the time of the time set that is within this schedule
+   */
+  public TimeSet intersect(TimeSet timeSet) {
+    List<TimeSlot> intersections = new ArrayList<>();
+    for (TimeSlot timeSlot : timeSet) {
+      intersections.addAll(this.within(timeSlot));
+    }
+    return TimeSet.of(intersections);
+  }
+
+  /**
+   * Returns a time set with this schedule subtracted from it. Time slots are only generated for the days the time set
+   * covers, however far apart its time slots are. The time set is not modified.
+   *
+   * @param timeSet the time set to subtract this schedule from
+   * @return a time set holding the time of the time set that is not within this schedule
+   */
+  public TimeSet subtractFrom(TimeSet timeSet) {
+    List<TimeSlot> remaining = new ArrayList<>();
+    for (TimeSlot timeSlot : timeSet) {
+      remaining.addAll(TimeSlot.difference(Collections.singletonList(timeSlot), this.within(timeSlot)));
+    }
+    return TimeSet.of(remaining);
+  }
+
+  /**
+   * Generates the time slots of this schedule that overlap a window. See Occurrences.
+   */
+  private List<TimeSlot> within(TimeSlot window) {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    new Occurrences(this, window).forEachRemaining(timeSlots::add);
+    return timeSlots;
+  }
+
+  /**
+   * Generates the time slots of a schedule that overlap a window one day at a time, ordered by start and cut to fit
+   * the window. Starts from the day before the window, whose time slot may cross midnight into it.
+   */
+  private static final class Occurrences implements Iterator<TimeSlot> {
+
+    private final RecurringSchedule schedule;
+    private final TimeSlot window;
+    private final LocalDate last;
+    private LocalDate date;
+    private TimeSlot next;
+
+    private Occurrences(RecurringSchedule schedule, TimeSlot window) {
+      this.schedule = schedule;
+      this.window = window;
+      this.last = window.getEnd().toLocalDate();
+      this.date = window.getStart().toLocalDate().minusDays(1);
+      this.advance();
+    }
+
+    private void advance() {
+      this.next = null;
+      while (this.next == null && !this.date.isAfter(this.last)) {
+        TimeSlot timeSlot = this.schedule.on(this.date);
+        if (timeSlot != null && timeSlot.overlaps(this.window)) {
+          this.next = timeSlot.intersect(this.window);
+        }
+        this.date = this.date.plusDays(1);
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.next != null;
+    }
+
+    @Override
+    public TimeSlot next() {
+      if (this.next == null) {
+        throw new NoSuchElementException();
+      }
+      TimeSlot current = this.next;
+      this.advance();
+      return current;
+    }
+  }
+}
@@ -1,23 +1,63 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * A TimeSet represents a set of potentially non continuous time.
  * TimeSets are not immutable, but care is taken to ensure the correct order of operations is followed when
  * performing operations on TimeSets.
  *
+ * The time slots making up a time set are always ordered by their start, and no two of them overlap.
+ *
  * Lucas Gauk - 2020
  */
-public class TimeSet {
+public class TimeSet implements Iterable<TimeSlot> {
 
   /**
-   * List of continuous sets of time that make up a time set.
+   * List of continuous sets of time that make up a time set, ordered by start and never overlapping.
    */
   private List<TimeSlot> timeSlots;
 
+  /**
+   * Index of the gaps between the time slots, built the first time gaps are searched and dropped whenever this changes.
+   */
+  private GapIndex gapIndex;
+
+  /**
+   * The total length of the time slots, as whole seconds and the nanoseconds beyond them. Kept up to date by every
+   * operation, so the length of this set never has to be added up.
+   */
+  private long totalSeconds;
+  private long totalNanos;
+
+  /**
+   * The longest time slot, or null if this is empty. It is kept up to date as time slots are counted, and only has to
+   * be looked for again once it is itself removed or cut.
+   */
+  private TimeSlot longest;
+  private boolean longestRemoved;
+
+  /**
+   * The time slots ordered by length, built the first time the longest has to be looked for again and kept up to date
+   * by single slot changes from then on. Dropped whenever every time slot is replaced.
+   */
+  private TreeSet<TimeSlot> byLength;
+
+  /**
+   * The listeners told about every change to this, or null if none have been added.
+   */
+  private List<ChangeListener> listeners;
+
   /**
    * Creates an empty time set.
    *
@@ -44,7 +84,7 @@ public class TimeSet {
    * @return a new time set with the same time slots
    */
   public static TimeSet of(TimeSet timeSet) {
-    return TimeSet.of(timeSet.timeSlots);
+    return TimeSet.ofNormalized(new ArrayList<>(timeSet.timeSlots));
   }
 
   /**
@@ -54,7 +94,10 @@ public class TimeSet {
    * @return the time set that represents the combination of all time slots
    */
   public static TimeSet of(List<TimeSlot> timeSlots) {
-    return new TimeSet(timeSlots);
+    long started = TimeSetMetrics.start();
+    TimeSet timeSet = new TimeSet(timeSlots);
+    TimeSetMetrics.record(TimeSetMetrics.Operation.CREATE, started, timeSlots.size(), timeSet.timeSlots.size());
+    return timeSet;
   }
 
   /**
@@ -67,19 +110,89 @@ public class TimeSet {
     return TimeSet.of(Arrays.asList(timeSlots));
   }
 
+  /**
+   * Create a time set from a list of time slots that is already ordered by start and contains no overlaps.
+   * The list is used as is, and must not be shared.
+   *
+   * @param timeSlots the normalized list of time slots
+   * @return the time set backed by the list
+   */
+  static TimeSet ofNormalized(List<TimeSlot> timeSlots) {
+    TimeSet timeSet = TimeSet.empty();
+    timeSet.replaceWith(timeSlots);
+    return timeSet;
+  }
+
   /**
    * Time set constructor. Requires a list of time slots. Ensures that it contains no overlapping sets of time within it,
-   * and constructs a non continuous set of time.
+   * and constructs a non continuous set of time. The time slots are sorted once and combined in a single sweep.
    *
    * @param timeSlots the list of time slots to construct the time set with
    */
   private TimeSet(List<TimeSlot> timeSlots) {
-    this.timeSlots = new ArrayList<>();
-    timeSlots.forEach(this::add);
+    this.replaceWith(TimeSlot.sum(timeSlots));
   }
 
   /**
-   * Return a separate list containing the time slots making up this time set.
+   * Replaces every time slot of this, and adds up the aggregates again.
+   *
+   * @param timeSlots the normalized list of time slots
+   */
+  private void replaceWith(List<TimeSlot> timeSlots) {
+    this.timeSlots = timeSlots;
+    this.gapIndex = null;
+    this.totalSeconds = 0;
+    this.totalNanos = 0;
+    this.longest = null;
+    this.longestRemoved = false;
+    this.byLength = null;
+    for (TimeSlot timeSlot : timeSlots) {
+      this.count(timeSlot);
+    }
+  }
+
+  /**
+   * Adds a time slot that has just been put into this to the aggregates.
+   */
+  private void count(TimeSlot timeSlot) {
+    this.totalSeconds += timeSlot.lengthSeconds();
+    this.totalNanos += timeSlot.lengthNanos();
+    if (this.totalNanos >= EpochNanos.NANOS_PER_SECOND) {
+      this.totalSeconds++;
+      this.totalNanos -= EpochNanos.NANOS_PER_SECOND;
+    }
+    if (this.byLength != null) {
+      this.byLength.add(timeSlot);
+    }
+    if (!this.longestRemoved && (this.longest == null || TimeSlot.LENGTH_ORDER.compare(timeSlot, this.longest) > 0)) {
+      this.longest = timeSlot;
+    }
+  }
+
+  /**
+   * Removes a time slot that has just been taken out of this from the aggregates.
+   */
+  private void uncount(TimeSlot timeSlot) {
+    this.totalSeconds -= timeSlot.lengthSeconds();
+    this.totalNanos -= timeSlot.lengthNanos();
+    if (this.totalNanos < 0) {
+      this.totalSeconds--;
+      this.totalNanos += EpochNanos.NANOS_PER_SECOND;
+    }
+    if (this.byLength != null) {
+      this.byLength.remove(timeSlot);
+    }
+    if (!this.longestRemoved && timeSlot.equals(this.longest)) {
+      if (this.byLength == null) {
+        this.longestRemoved = true;
+      } else {
+        this.longest = this.byLength.isEmpty() ? null : this.byLength.last();
+      }
+    }
+  }
+
+  /**
+   * Return a separate list containing the time slots making up this time set, ordered by start.
    *
    * @return a list containing all time slots in this set
    */
@@ -88,14 +201,240 @@ public class TimeSet {
   }
 
   /**
-   * Return the length of this time set in a specified unit.
-   * The unit must be supported by LocalDateTime.
+   * Returns an iterator over the time slots making up this time set, ordered by start, without copying them.
+   * The iterator can not remove time slots, and this must not be modified while it is in use.
+   *
+   * @return an iterator over the time slots in this set
+   */
+  @Override
+  public Iterator<TimeSlot> iterator() {
+    return Collections.unmodifiableList(this.timeSlots).iterator();
+  }
+
+  /**
+   * Returns a lazy view of this time set, to combine with other views without building intermediate time sets.
+   * See TimeSetView.
+   *
+   * @return a view of this time set
+   */
+  public TimeSetView view() {
+    return TimeSetView.of(this);
+  }
+
+  /**
+   * Return the length of this time set in a specified unit, the sum of the whole units in each time slot.
+   * The unit must be supported by LocalDateTime. See getTotalDuration() for the total length in O(1).
    *
    * @param unit the unit to return
    * @return the number of units in this time set
    */
   public long length(ChronoUnit unit) {
-    return this.timeSlots.stream().map(timeSlot -> timeSlot.length(unit)).reduce(Long::sum).orElse((long) 0);
+    long length = 0;
+    for (TimeSlot timeSlot : this.timeSlots) {
+      length += timeSlot.length(unit);
+    }
+    return length;
+  }
+
+  /**
+   * Returns the total length of the time slots in this set, in O(1).
+   *
+   * @return the total length
+   */
+  public Duration getTotalDuration() {
+    return Duration.ofSeconds(this.totalSeconds, this.totalNanos);
+  }
+
+  /**
+   * Returns the number of time slots in this set.
+   *
+   * @return the number of time slots
+   */
+  public int size() {
+    return this.timeSlots.size();
+  }
+
+  /**
+   * Returns the start of the first time slot in this set.
+   *
+   * @return the earliest start, or null if this set is empty
+   */
+  public LocalDateTime getEarliestStart() {
+    return this.timeSlots.isEmpty() ? null : this.timeSlots.get(0).getStart();
+  }
+
+  /**
+   * Returns the end of the last time slot in this set. Time slots never overlap, so no other time slot ends later.
+   *
+   * @return the latest end, or null if this set is empty
+   */
+  public LocalDateTime getLatestEnd() {
+    return this.timeSlots.isEmpty() ? null : this.timeSlots.get(this.timeSlots.size() - 1).getEnd();
+  }
+
+  /**
+   * Returns the longest time slot in this set, or the latest starting of them if several are as long, in O(1).
+   * Only after the longest has been removed or cut are the time slots ordered by length, in O(n log n), which single
+   * slot changes then keep up to date in O(log n) until the next change that replaces every time slot.
+   *
+   * @return the longest time slot, or null if this set is empty
+   */
+  public TimeSlot getLongest() {
+    if (this.longestRemoved) {
+      this.byLength = new TreeSet<>(TimeSlot.LENGTH_ORDER);
+      this.byLength.addAll(this.timeSlots);
+      this.longest = this.byLength.isEmpty() ? null : this.byLength.last();
+      this.longestRemoved = false;
+    }
+    return this.longest;
+  }
+
+  /**
+   * Checks to see if this contains a specific date time. As with time slots, a date time that is equal to the start
+   * or end of a time slot is not considered to be inside of it.
+   *
+   * @param dateTime the date time to look for
+   * @return true if one of the time slots in this set contains the date time
+   */
+  public boolean contains(LocalDateTime dateTime) {
+    return this.slotAt(dateTime) != null;
+  }
+
+  /**
+   * Returns the time slot in this set that contains a specific date time.
+   *
+   * @param dateTime the date time to look for
+   * @return the time slot containing the date time, or null if no time slot contains it
+   */
+  public TimeSlot slotAt(LocalDateTime dateTime) {
+    int index = this.firstStartingAtOrAfter(dateTime) - 1;
+    if (index < 0 || !this.timeSlots.get(index).contains(dateTime)) {
+      return null;
+    }
+    return this.timeSlots.get(index);
+  }
+
+  /**
+   * Returns the last time slot in this set that starts at or before a specific date time.
+   *
+   * @param dateTime the date time to compare against
+   * @return the time slot, or null if every time slot starts after the date time
+   */
+  public TimeSlot floor(LocalDateTime dateTime) {
+    return this.slotOrNull(this.firstStartingAfter(dateTime) - 1);
+  }
+
+  /**
+   * Returns the first time slot in this set that starts at or after a specific date time.
+   * Together with slotAt(LocalDateTime), this finds the time slot that contains or follows a date time.
+   *
+   * @param dateTime the date time to compare against
+   * @return the time slot, or null if every time slot starts before the date time
+   */
+  public TimeSlot ceiling(LocalDateTime dateTime) {
+    return this.slotOrNull(this.firstStartingAtOrAfter(dateTime));
+  }
+
+  /**
+   * Returns the first time slot in this set that starts after a specific date time.
+   *
+   * @param dateTime the date time to compare against
+   * @return the time slot, or null if no time slot starts after the date time
+   */
+  public TimeSlot next(LocalDateTime dateTime) {
+    return this.slotOrNull(this.firstStartingAfter(dateTime));
+  }
+
+  /**
+   * Returns the last time slot in this set that starts before a specific date time.
+   *
+   * @param dateTime the date time to compare against
+   * @return the time slot, or null if no time slot starts before the date time
+   */
+  public TimeSlot previous(LocalDateTime dateTime) {
+    return this.slotOrNull(this.firstStartingAtOrAfter(dateTime) - 1);
+  }
+
+  private TimeSlot slotOrNull(int index) {
+    if (index < 0 || index >= this.timeSlots.size()) {
+      return null;
+    }
+    return this.timeSlots.get(index);
+  }
+
+  /**
+   * Finds the earliest gap in this set, within a window, that lasts at least a minimum duration. A gap is time that is
+   * not in any time slot of this set, such as free time between bookings, and is cut to fit the window.
+   *
+   * Gaps are searched with an index of the longest gap in each part of the set, which takes O(log n). The index is
+   * built the first time gaps are searched after this set changes, in O(n).
+   *
+   * @param window the window to search in
+   * @param minimum the shortest gap accepted, which must be positive
+   * @return the earliest gap, or null if there is no gap that long within the window
+   */
+  public TimeSlot findFirstGap(TimeSlot window, Duration minimum) {
+    List<TimeSlot> gaps = this.findGaps(window, minimum, 1);
+    return gaps.isEmpty() ? null : gaps.get(0);
+  }
+
+  /**
+   * Finds every gap in this set, within a window, that lasts at least a minimum duration, ordered by start.
+   * See findFirstGap(TimeSlot, Duration). Each gap found takes O(log n), and shorter gaps are never looked at.
+   *
+   * @param window the window to search in
+   * @param minimum the shortest gap accepted, which must be positive
+   * @return the gaps, cut to fit the window
+   */
+  public List<TimeSlot> findAllGaps(TimeSlot window, Duration minimum) {
+    return this.findGaps(window, minimum, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Finds up to a number of gaps within a window. Gap i runs from the end of time slot i to the start of time slot
+   * i + 1, with gap -1 before the first time slot and gap n - 1 after the last. Only the first and last gaps reaching
+   * into the window can be cut by it, so every gap between them is searched for in the index by its full length.
+   */
+  private List<TimeSlot> findGaps(TimeSlot window, Duration minimum, int limit) {
+    if (minimum.isNegative() || minimum.isZero()) {
+      throw new IllegalArgumentException("The minimum duration must be positive");
+    }
+    long minimumNanos = GapIndex.toNanos(minimum);
+    List<TimeSlot> gaps = new ArrayList<>();
+    int first = this.firstStartingAfter(window.getStart()) - 1;
+    int last = this.firstEndingAtOrAfter(window.getEnd()) - 1;
+    if (first > last) {
+      return gaps;
+    }
+    this.addGap(gaps, first, window, minimumNanos);
+    if (first < last && gaps.size() < limit) {
+      if (this.gapIndex == null) {
+        this.gapIndex = new GapIndex(this.timeSlots);
+      }
+      int next = this.gapIndex.firstAtLeast(first + 1, last - 1, minimumNanos);
+      while (next >= 0 && gaps.size() < limit) {
+        this.addGap(gaps, next, window, minimumNanos);
+        next = this.gapIndex.firstAtLeast(next + 1, last - 1, minimumNanos);
+      }
+      if (gaps.size() < limit) {
+        this.addGap(gaps, last, window, minimumNanos);
+      }
+    }
+    return gaps;
+  }
+
+  private void addGap(List<TimeSlot> gaps, int index, TimeSlot window, long minimumNanos) {
+    LocalDateTime start = window.getStart();
+    if (index >= 0 && this.timeSlots.get(index).getEnd().isAfter(start)) {
+      start = this.timeSlots.get(index).getEnd();
+    }
+    LocalDateTime end = window.getEnd();
+    if (index + 1 < this.timeSlots.size() && this.timeSlots.get(index + 1).getStart().isBefore(end)) {
+      end = this.timeSlots.get(index + 1).getStart();
+    }
+    if (start.isBefore(end) && GapIndex.nanosBetween(start, end) >= minimumNanos) {
+      gaps.add(TimeSlot.of(start, end));
+    }
   }
 
   /**
@@ -104,7 +443,102 @@ public class TimeSet {
    * @param timeSlot the time slot to add to this set
    */
   public void add(TimeSlot timeSlot) {
-    this.timeSlots = timeSlot.add(this.timeSlots);
+    long started = TimeSetMetrics.start();
+    int inputSlots = this.timeSlots.size() + 1;
+    this.gapIndex = null;
+    int first = -1;
+    int last = -1;
+    for (int i = this.firstEndingAtOrAfter(timeSlot.getStart()); i < this.timeSlots.size(); i++) {
+      TimeSlot existing = this.timeSlots.get(i);
+      if (existing.getStart().isAfter(timeSlot.getEnd())) {
+        break;
+      }
+      if (existing.overlaps(timeSlot)) {
+        if (first < 0) {
+          first = i;
+        }
+        last = i;
+      }
+    }
+    if (first < 0) {
+      int insertion = Collections.binarySearch(this.timeSlots, timeSlot, TimeSlot.START_ORDER);
+      this.timeSlots.add(insertion < 0 ? -insertion - 1 : insertion, timeSlot);
+      this.count(timeSlot);
+      TimeSetMetrics.record(TimeSetMetrics.Operation.ADD, started, inputSlots, this.timeSlots.size());
+      this.notifyListeners(Collections.singletonList(timeSlot), Collections.emptyList());
+      return;
+    }
+    TimeSlot combined = this.timeSlots.get(first).add(timeSlot, this.timeSlots.get(last)).get(0);
+    List<TimeSlot> overlaps = this.timeSlots.subList(first, last + 1);
+    List<TimeSlot> added = this.listeners == null
+        ? Collections.emptyList() : TimeSlot.difference(Collections.singletonList(timeSlot), overlaps);
+    overlaps.forEach(this::uncount);
+    overlaps.clear();
+    overlaps.add(combined);
+    this.count(combined);
+    TimeSetMetrics.record(TimeSetMetrics.Operation.ADD, started, inputSlots, this.timeSlots.size());
+    this.notifyListeners(added, Collections.emptyList());
+  }
+
+  /**
+   * Binary search for the first time slot in this set that ends at or after a date time.
+   * Relies on the time slots being ordered and not overlapping, which means their ends are ordered as well.
+   *
+   * @param dateTime the date time to search for
+   * @return the index of the first time slot ending at or after the date time, or the size of this set if there is none
+   */
+  private int firstEndingAtOrAfter(LocalDateTime dateTime) {
+    int low = 0;
+    int high = this.timeSlots.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (this.timeSlots.get(middle).getEnd().isBefore(dateTime)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Binary search for the first time slot in this set that starts at or after a date time.
+   *
+   * @param dateTime the date time to search for
+   * @return the index of the first time slot starting at or after the date time, or the size of this set if there is none
+   */
+  private int firstStartingAtOrAfter(LocalDateTime dateTime) {
+    int low = 0;
+    int high = this.timeSlots.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (this.timeSlots.get(middle).getStart().isBefore(dateTime)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Binary search for the first time slot in this set that starts after a date time.
+   *
+   * @param dateTime the date time to search for
+   * @return the index of the first time slot starting after the date time, or the size of this set if there is none
+   */
+  private int firstStartingAfter(LocalDateTime dateTime) {
+    int low = 0;
+    int high = this.timeSlots.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (this.timeSlots.get(middle).getStart().isAfter(dateTime)) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
   }
 
   /**
@@ -114,9 +548,14 @@ public class TimeSet {
    * @param others the time sets to add to this
    */
   public void add(List<TimeSet> others) {
-    List<TimeSlot> otherTimeSlots = new ArrayList<>();
-    others.forEach(other -> otherTimeSlots.addAll(other.timeSlots));
-    otherTimeSlots.forEach(this::add);
+    long started = TimeSetMetrics.start();
+    this.gapIndex = null;
+    List<TimeSlot> before = this.timeSlots;
+    List<TimeSlot> allTimeSlots = new ArrayList<>(this.timeSlots);
+    others.forEach(other -> allTimeSlots.addAll(other.timeSlots));
+    this.replaceWith(TimeSlot.normalize(allTimeSlots));
+    TimeSetMetrics.record(TimeSetMetrics.Operation.ADD, started, allTimeSlots.size(), this.timeSlots.size());
+    this.notifyListeners(before);
   }
 
   /**
@@ -128,27 +567,134 @@ public class TimeSet {
     this.add(Arrays.asList(others));
   }
 
+  /**
+   * Returns the union of a collection of time sets, computed on the common fork join pool.
+   * See union(Collection, ForkJoinPool).
+   *
+   * @param timeSets the time sets to combine
+   * @return the time set that represents the union of all time sets
+   */
+  public static TimeSet union(Collection<TimeSet> timeSets) {
+    return TimeSet.union(timeSets, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns the union of a collection of time sets, computed on a fork join pool. None of the time sets passed in
+   * are modified, and the result is the same as adding them all to an empty time set.
+   *
+   * The time sets are combined as a balanced tree of merges. Each merge walks two already ordered lists once, and
+   * the two halves of every level of the tree are merged in parallel, so the work spreads over the pool's threads.
+   *
+   * @param timeSets the time sets to combine
+   * @param pool the pool to run the merges on
+   * @return the time set that represents the union of all time sets
+   */
+  public static TimeSet union(Collection<TimeSet> timeSets, ForkJoinPool pool) {
+    if (timeSets.isEmpty()) {
+      return TimeSet.empty();
+    }
+    long started = TimeSetMetrics.start();
+    List<List<TimeSlot>> lists = new ArrayList<>(timeSets.size());
+    int inputSlots = 0;
+    for (TimeSet timeSet : timeSets) {
+      lists.add(timeSet.timeSlots);
+      inputSlots += timeSet.timeSlots.size();
+    }
+    List<TimeSlot> union = pool.invoke(new Union(lists, 0, lists.size()));
+    TimeSetMetrics.record(TimeSetMetrics.Operation.UNION, started, inputSlots, union.size());
+    return TimeSet.ofNormalized(lists.size() == 1 ? new ArrayList<>(union) : union);
+  }
+
+  /**
+   * Merges a range of ordered time slot lists by splitting it in half, merging each half in parallel, and merging
+   * the two results. Small ranges are merged one list at a time on the current thread.
+   */
+  private static final class Union extends RecursiveTask<List<TimeSlot>> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of lists at or below which a range is merged without forking.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 8;
+
+    private final List<List<TimeSlot>> lists;
+    private final int from;
+    private final int to;
+
+    private Union(List<List<TimeSlot>> lists, int from, int to) {
+      this.lists = lists;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<TimeSlot> compute() {
+      if (this.to - this.from <= Union.SEQUENTIAL_THRESHOLD) {
+        List<TimeSlot> union = this.lists.get(this.from);
+        for (int i = this.from + 1; i < this.to; i++) {
+          union = TimeSlot.union(union, this.lists.get(i));
+        }
+        return union;
+      }
+      int middle = (this.from + this.to) >>> 1;
+      Union left = new Union(this.lists, this.from, middle);
+      left.fork();
+      List<TimeSlot> right = new Union(this.lists, middle, this.to).compute();
+      return TimeSlot.union(left.join(), right);
+    }
+  }
+
   /**
    * Subtract a time slot from this. Equivalent to this intersect the other's complement, or this NOT other.
+   * Only the time slots that the other reaches are visited.
    *
    * @param other the other time slot to subtract from this
    */
   public void subtract(TimeSlot other) {
-    List<TimeSlot> subtractionResults = new ArrayList<>();
-    this.timeSlots.forEach(timeSlot -> subtractionResults.addAll(timeSlot.subtract(other)));
-    this.timeSlots = subtractionResults;
+    long started = TimeSetMetrics.start();
+    int inputSlots = this.timeSlots.size() + 1;
+    this.gapIndex = null;
+    int first = this.firstEndingAtOrAfter(other.getStart());
+    int last = first;
+    while (last < this.timeSlots.size() && !this.timeSlots.get(last).getStart().isAfter(other.getEnd())) {
+      last++;
+    }
+    List<TimeSlot> affected = this.timeSlots.subList(first, last);
+    List<TimeSlot> remaining = TimeSlot.difference(affected, Collections.singletonList(other));
+    List<TimeSlot> removed = this.listeners == null
+        ? Collections.emptyList() : TimeSet.intersect(affected, Collections.singletonList(other));
+    affected.forEach(this::uncount);
+    affected.clear();
+    affected.addAll(remaining);
+    remaining.forEach(this::count);
+    TimeSetMetrics.record(TimeSetMetrics.Operation.SUBTRACT, started, inputSlots, this.timeSlots.size());
+    this.notifyListeners(Collections.emptyList(), removed);
   }
 
   /**
    * Subtract a time sets from this. Say this is A and B represents the sum of all others. Then this operation would be equivalent to
    * A NOT B. Or, A intersect B complement.
+   * The others are combined first, and then removed from this in a single pass.
    *
    * @param others the other time sets to subtract from this
    */
   public void subtract(List<TimeSet> others) {
-    List<TimeSlot> otherTimeSlots = new ArrayList<>();
-    others.forEach(other -> otherTimeSlots.addAll(other.timeSlots));
-    otherTimeSlots.forEach(this::subtract);
+    this.gapIndex = null;
+    if (others.isEmpty()) {
+      return;
+    }
+    long started = TimeSetMetrics.start();
+    List<TimeSlot> removals = others.get(0).timeSlots;
+    if (others.size() > 1) {
+      List<TimeSlot> allRemovals = new ArrayList<>();
+      others.forEach(other -> allRemovals.addAll(other.timeSlots));
+      removals = TimeSlot.normalize(allRemovals);
+    }
+    List<TimeSlot> before = this.timeSlots;
+    this.replaceWith(TimeSlot.difference(this.timeSlots, removals));
+    TimeSetMetrics.record(TimeSetMetrics.Operation.SUBTRACT, started, before.size() + removals.size(), this.timeSlots.size());
+    this.notifyListeners(before);
   }
 
   /**
@@ -171,32 +717,63 @@ public class TimeSet {
 
   /**
    * Performs the intersection of this and other time sets.
+   * The smallest time sets are intersected first, and no more work is done once the intersection is empty.
    *
    * @param others the other time sets to intersect with this.
    */
   public void intersect(List<TimeSet> others) {
+    long started = TimeSetMetrics.start();
+    this.gapIndex = null;
+    List<TimeSlot> before = this.timeSlots;
+    int inputSlots = before.size();
     if (others.size() == 0) {
-      this.timeSlots = new ArrayList<>();
-      return;
+      this.replaceWith(new ArrayList<>());
+    }
+    List<TimeSet> smallestFirst = new ArrayList<>(others);
+    smallestFirst.sort(Comparator.comparingInt(other -> other.timeSlots.size()));
+    for (TimeSet other : smallestFirst) {
+      inputSlots += other.timeSlots.size();
+      if (!this.timeSlots.isEmpty()) {
+        this.replaceWith(TimeSet.intersect(this.timeSlots, other.timeSlots));
+      }
     }
-    this.intersectHelper(new ArrayList<>(others));
+    TimeSetMetrics.record(TimeSetMetrics.Operation.INTERSECT, started, inputSlots, this.timeSlots.size());
+    this.notifyListeners(before);
   }
 
-  private void intersectHelper(List<TimeSet> others) {
-    if (others.size() == 0) {
-      return;
-    }
-    TimeSet firstSet = others.remove(0);
+  /**
+   * Intersects two ordered, non overlapping lists of time slots in a single pass over both.
+   * Whichever time slot ends first can not overlap anything further along the other list, so it is the one passed over.
+   * Of two time slots ending together, the one starting first is passed over, since a time slot of no length at their
+   * end can still follow it in the other list, and equal time slots intersect in themselves.
+   *
+   * @param first the first ordered list of time slots
+   * @param second the second ordered list of time slots
+   * @return the ordered list of time slots that are in both lists
+   */
+  private static List<TimeSlot> intersect(List<TimeSlot> first, List<TimeSlot> second) {
     List<TimeSlot> intersections = new ArrayList<>();
-    this.timeSlots.forEach(timeSlot -> {
-      List<TimeSlot> overlaps = timeSlot.overlapsWith(firstSet.timeSlots);
-      if (overlaps.size() == 0) {
-        return;
+    int i = 0;
+    int j = 0;
+    while (i < first.size() && j < second.size()) {
+      TimeSlot firstSlot = first.get(i);
+      TimeSlot secondSlot = second.get(j);
+      TimeSlot intersection = firstSlot.intersect(secondSlot);
+      if (intersection != null) {
+        intersections.add(intersection);
+      }
+      int endComparison = firstSlot.getEnd().compareTo(secondSlot.getEnd());
+      if (endComparison == 0) {
+        endComparison = firstSlot.getStart().compareTo(secondSlot.getStart());
+      }
+      if (endComparison <= 0) {
+        i++;
       }
-      overlaps.forEach(overlap -> intersections.add(timeSlot.intersect(overlap)));
-    });
-    this.timeSlots = intersections;
-    this.intersectHelper(others);
+      if (endComparison >= 0) {
+        j++;
+      }
+    }
+    return intersections;
   }
 
   /**
@@ -209,7 +786,7 @@ public class TimeSet {
   }
 
   /**
-   * Returns the intersection of a list of time sets.
+   * Returns the intersection of a list of time sets. None of the time sets passed in are modified.
    *
    * @param timeSets time sets to intersect
    * @return the time set that represents the intersection of the other time sets
@@ -218,22 +795,143 @@ public class TimeSet {
     if (timeSets.size() < 2) {
       return TimeSet.empty();
     }
-    timeSets = new ArrayList<>(timeSets);
-    TimeSet firstSet = timeSets.remove(0);
-    firstSet.intersect(timeSets);
-    return firstSet;
+    List<TimeSet> smallestFirst = new ArrayList<>(timeSets);
+    smallestFirst.sort(Comparator.comparingInt(timeSet -> timeSet.timeSlots.size()));
+    TimeSet intersection = TimeSet.of(smallestFirst.remove(0));
+    intersection.intersect(smallestFirst);
+    return intersection;
   }
 
+  /**
+   * Checks if this time set has exactly the same time slots as another. Both are ordered by start, so they are compared
+   * in a single pass.
+   *
+   * @param other the other time set to compare against
+   * @return true if both sets have the same time slots
+   */
   public boolean equals(TimeSet other) {
     if (other.timeSlots.size() != this.timeSlots.size()) {
       return false;
     }
-    for (TimeSlot timeSlot : this.timeSlots) {
-      if (other.timeSlots.stream().noneMatch(otherTimeSlot -> otherTimeSlot.equals(timeSlot))) {
+    for (int i = 0; i < this.timeSlots.size(); i++) {
+      if (!this.timeSlots.get(i).equals(other.timeSlots.get(i))) {
         return false;
       }
     }
     return true;
   }
 
+  /**
+   * Returns the time that would have to be added to and removed from this to turn it into another time set.
+   * Both sets are ordered, so this takes a single pass over each. Only the time covered is compared, so two sets that
+   * cover the same time but split it into time slots differently have no changes between them.
+   *
+   * @param other the time set to compare against
+   * @return the change from this to the other
+   */
+  public Change diff(TimeSet other) {
+    return TimeSet.diff(this.timeSlots, other.timeSlots);
+  }
+
+  private static Change diff(List<TimeSlot> before, List<TimeSlot> after) {
+    return new Change(TimeSlot.difference(after, before), TimeSlot.difference(before, after));
+  }
+
+  /**
+   * Add a listener that is told what time was added and removed every time this changes. Listeners are called on the
+   * thread making the change, once it has been made, and are not copied when this is cloned.
+   *
+   * @param listener the listener to add
+   */
+  public void addChangeListener(ChangeListener listener) {
+    if (this.listeners == null) {
+      this.listeners = new ArrayList<>();
+    }
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Remove a listener added with addChangeListener.
+   *
+   * @param listener the listener to remove
+   */
+  public void removeChangeListener(ChangeListener listener) {
+    if (this.listeners != null && this.listeners.remove(listener) && this.listeners.isEmpty()) {
+      this.listeners = null;
+    }
+  }
+
+  /**
+   * Tells the listeners about the change from an earlier list of time slots to the current one.
+   */
+  private void notifyListeners(List<TimeSlot> before) {
+    if (this.listeners != null) {
+      Change change = TimeSet.diff(before, this.timeSlots);
+      this.notifyListeners(change.added, change.removed);
+    }
+  }
+
+  private void notifyListeners(List<TimeSlot> added, List<TimeSlot> removed) {
+    if (this.listeners == null || (added.isEmpty() && removed.isEmpty())) {
+      return;
+    }
+    Change change = new Change(added, removed);
+    for (ChangeListener listener : new ArrayList<>(this.listeners)) {
+      listener.changed(change);
+    }
+  }
+
+  /**
+   * Listens for changes to a time set.
+   */
+  public interface ChangeListener {
+
+    /**
+     * Called after a time set has changed.
+     *
+     * @param change the time added to and removed from the time set
+     */
+    void changed(Change change);
+  }
+
+  /**
+   * The time added to and removed from a time set by a change. Both are ordered by start and never overlap.
+   */
+  public static final class Change {
+
+    private final List<TimeSlot> added;
+    private final List<TimeSlot> removed;
+
+    private Change(List<TimeSlot> added, List<TimeSlot> removed) {
+      this.added = added;
+      this.removed = removed;
+    }
+
+    /**
+     * Get the time that was added.
+     *
+     * @return a separate list of the time slots added
+     */
+    public List<TimeSlot> getAdded() {
+      return new ArrayList<>(this.added);
+    }
+
+    /**
+     * Get the time that was removed.
+     *
+     * @return a separate list of the time slots removed
+     */
+    public List<TimeSlot> getRemoved() {
+      return new ArrayList<>(this.removed);
+    }
+
+    /**
+     * Checks if nothing was added or removed.
+     *
+     * @return true if there is no change
+     */
+    public boolean isEmpty() {
+      return this.added.isEmpty() && this.removed.isEmpty();
+    }
+  }
 }
@@ -0,0 +1,221 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A TimeSetBuilder collects a large number of time slots and turns them into a time set all at once.
+ *
+ * Starts and ends are appended to a pair of growable arrays of nanoseconds since the epoch, without creating a time
+ * slot or merging anything as they arrive. Building sorts the arrays once and combines overlapping time slots in a
+ * single sweep, with the same meaning of overlap as TimeSet. Input that arrives already ordered by start is not sorted
+ * again.
+ *
+ * A builder can keep being added to and built again. Date times must fall between roughly the years 1677 and 2262.
+ *
+ * Lucas Gauk - 2020
+ */
+public class TimeSetBuilder {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /**
+   * The starts of the time slots added so far, in nanoseconds since the epoch. Only the first size entries are used.
+   */
+  private long[] starts;
+
+  /**
+   * The ends of the time slots added so far, in nanoseconds since the epoch. Only the first size entries are used.
+   */
+  private long[] ends;
+
+  /**
+   * The number of time slots added so far.
+   */
+  private int size;
+
+  /**
+   * True while the time slots added so far are ordered by start and then end.
+   */
+  private boolean sorted = true;
+
+  /**
+   * Creates an empty builder.
+   *
+   * @return a builder with no time slots
+   */
+  public static TimeSetBuilder empty() {
+    return TimeSetBuilder.withCapacity(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty builder with room for a number of time slots before it has to grow.
+   *
+   * @param capacity the number of time slots expected
+   * @return a builder with no time slots
+   */
+  public static TimeSetBuilder withCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity can not be negative");
+    }
+    return new TimeSetBuilder(Math.max(capacity, 1));
+  }
+
+  private TimeSetBuilder(int capacity) {
+    this.starts = new long[capacity];
+    this.ends = new long[capacity];
+  }
+
+  /**
+   * Returns the number of time slots added to this builder, before any are combined.
+   *
+   * @return the number of time slots added
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Add a time slot given by its start and end. As with TimeSlot.of, an end before the start is swapped with it.
+   *
+   * @param start the start of the time slot
+   * @param end the end of the time slot
+   * @return this builder
+   */
+  public TimeSetBuilder add(LocalDateTime start, LocalDateTime end) {
+    return this.add(EpochNanos.of(start), EpochNanos.of(end));
+  }
+
+  /**
+   * Add a time slot given by its start and end in nanoseconds since 1970-01-01T00:00.
+   * As with TimeSlot.of, an end before the start is swapped with it.
+   *
+   * @param startNanos the start of the time slot in nanoseconds since the epoch
+   * @param endNanos the end of the time slot in nanoseconds since the epoch
+   * @return this builder
+   */
+  public TimeSetBuilder add(long startNanos, long endNanos) {
+    long start = Math.min(startNanos, endNanos);
+    long end = Math.max(startNanos, endNanos);
+    if (this.size == this.starts.length) {
+      int capacity = this.size + (this.size >> 1) + 1;
+      this.starts = Arrays.copyOf(this.starts, capacity);
+      this.ends = Arrays.copyOf(this.ends, capacity);
+    }
+    if (this.size > 0 && this.sorted) {
+      int last = this.size - 1;
+      this.sorted = this.starts[last] < start || (this.starts[last] == start && this.ends[last] <= end);
+    }
+    this.starts[this.size] = start;
+    this.ends[this.size] = end;
+    this.size++;
+    return this;
+  }
+
+  /**
+   * Add a time slot.
+   *
+   * @param timeSlot the time slot to add
+   * @return this builder
+   */
+  public TimeSetBuilder add(TimeSlot timeSlot) {
+    return this.add(timeSlot.getStart(), timeSlot.getEnd());
+  }
+
+  /**
+   * Builds a time set from every time slot added so far.
+   *
+   * @return the time set that represents the combination of all time slots added
+   */
+  public TimeSet build() {
+    int count = this.normalize();
+    List<TimeSlot> timeSlots = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      timeSlots.add(TimeSlot.of(EpochNanos.toDateTime(this.starts[i]), EpochNanos.toDateTime(this.ends[i])));
+    }
+    return TimeSet.ofNormalized(timeSlots);
+  }
+
+  /**
+   * Builds a packed time set from every time slot added so far, without creating a time slot for any of them.
+   *
+   * @return the packed time set that represents the combination of all time slots added
+   */
+  public PackedTimeSet buildPacked() {
+    int count = this.normalize();
+    return PackedTimeSet.ofNormalized(Arrays.copyOf(this.starts, count), Arrays.copyOf(this.ends, count), count);
+  }
+
+  /**
+   * Sorts the time slots added so far and combines the ones that overlap, in place. The combined time slots are
+   * equivalent to the ones added, so they replace them and later builds start from them.
+   *
+   * @return the number of time slots left once combined
+   */
+  private int normalize() {
+    if (!this.sorted) {
+      this.sort();
+      this.sorted = true;
+    }
+    int count = 0;
+    for (int i = 0; i < this.size; i++) {
+      long start = this.starts[i];
+      long end = this.ends[i];
+      int last = count - 1;
+      if (last >= 0 && (start < this.ends[last] || (start == this.starts[last] && end == this.ends[last]))) {
+        this.ends[last] = Math.max(this.ends[last], end);
+      } else {
+        this.starts[count] = start;
+        this.ends[count] = end;
+        count++;
+      }
+    }
+    this.size = count;
+    return count;
+  }
+
+  /**
+   * Sorts the parallel arrays by start and then end with a bottom up merge sort, which never creates an object per
+   * time slot and always takes O(n log n).
+   */
+  private void sort() {
+    long[] starts = this.starts;
+    long[] ends = this.ends;
+    long[] otherStarts = new long[this.size];
+    long[] otherEnds = new long[this.size];
+    for (int width = 1; width < this.size; width <<= 1) {
+      for (int from = 0; from < this.size; from += width << 1) {
+        int middle = Math.min(from + width, this.size);
+        int to = Math.min(from + (width << 1), this.size);
+        TimeSetBuilder.merge(starts, ends, otherStarts, otherEnds, from, middle, to);
+      }
+      long[] swap = starts;
+      starts = otherStarts;
+      otherStarts = swap;
+      swap = ends;
+      ends = otherEnds;
+      otherEnds = swap;
+    }
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Merges two ordered runs, from..middle and middle..to, of one pair of arrays into the same range of another pair.
+   */
+  private static void merge(long[] starts, long[] ends, long[] toStarts, long[] toEnds, int from, int middle, int to) {
+    int i = from;
+    int j = middle;
+    for (int k = from; k < to; k++) {
+      if (j == to || (i < middle && (starts[i] < starts[j] || (starts[i] == starts[j] && ends[i] <= ends[j])))) {
+        toStarts[k] = starts[i];
+        toEnds[k] = ends[i];
+        i++;
+      } else {
+        toStarts[k] = starts[j];
+        toEnds[k] = ends[j];
+        j++;
+      }
+    }
+  }
+}
@@ -0,0 +1,384 @@
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads and writes time sets in a compact binary format.
+ *
+ * The format starts with a header: a magic number, a version, flags, and the resolution, which is the number of
+ * nanoseconds in one tick. Every endpoint is stored as a number of ticks since 1970-01-01T00:00, so a resolution of a
+ * minute stores a time slot of 09:00 to 17:00 as small numbers, but can only store endpoints that fall on a minute.
+ *
+ * The time slots follow in blocks of up to BLOCK_SIZE. Each block has a fixed size frame holding its number of time
+ * slots and the length of its payload. The payload stores the start of its first time slot as an absolute value, and
+ * every other number as the gap from the previous end to the next start, or the length from a start to its end. Time
+ * slots are ordered and never overlap, so these are never negative, and each is written as a variable length integer
+ * of seven bits per byte. Each block can be compressed with deflate on top of that. A frame with no time slots ends
+ * the stream.
+ *
+ * Encoding and decoding stream one block at a time. Endpoints can be decoded straight into an EndpointConsumer without
+ * creating any time slots. Endpoints are limited to the range of EpochNanos, roughly the years 1677 to 2262.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class TimeSetCodec {
+
+  /**
+   * The number of time slots written to each block.
+   */
+  static final int BLOCK_SIZE = 4096;
+
+  private static final int MAGIC = 0x54534554;
+  private static final byte VERSION = 1;
+  private static final byte COMPRESSED = 1;
+  private static final int HEADER_BYTES = 14;
+  private static final int FRAME_BYTES = 12;
+
+  /**
+   * The most bytes a block can take before compression: three numbers of at most ten bytes for each time slot.
+   */
+  private static final int MAX_BLOCK_BYTES = BLOCK_SIZE * 30;
+
+  /**
+   * Receives the endpoints of each decoded time slot, in order, as nanoseconds since the epoch.
+   */
+  public interface EndpointConsumer {
+
+    /**
+     * Accepts the endpoints of one time slot.
+     *
+     * @param start the start in nanoseconds since the epoch
+     * @param end the end in nanoseconds since the epoch
+     */
+    void accept(long start, long end);
+  }
+
+  private TimeSetCodec() {
+  }
+
+  /**
+   * Encodes a time set at nanosecond resolution without compression.
+   *
+   * @param timeSet the time set to encode
+   * @return the encoded bytes
+   */
+  public static byte[] toBytes(TimeSet timeSet) {
+    return TimeSetCodec.toBytes(timeSet, ChronoUnit.NANOS, false);
+  }
+
+  /**
+   * Encodes a time set.
+   *
+   * @param timeSet the time set to encode
+   * @param resolution the unit every endpoint is a whole number of, which must have a fixed length
+   * @param compress true to compress each block with deflate
+   * @return the encoded bytes
+   */
+  public static byte[] toBytes(TimeSet timeSet, ChronoUnit resolution, boolean compress) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      TimeSetCodec.encode(timeSet, Channels.newChannel(bytes), resolution, compress);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Encodes ordered, non overlapping time slots, such as a time set or a view, to a channel one block at a time.
+   *
+   * @param timeSlots the time slots to encode, ordered by start with none overlapping another
+   * @param channel the channel to write to
+   * @param resolution the unit every endpoint is a whole number of, which must have a fixed length
+   * @param compress true to compress each block with deflate
+   * @throws IOException if the channel can not be written to
+   */
+  public static void encode(Iterable<TimeSlot> timeSlots, WritableByteChannel channel, ChronoUnit resolution,
+                            boolean compress) throws IOException {
+    if (!EpochNanos.isFixedLength(resolution)) {
+      throw new IllegalArgumentException("The resolution must have a fixed length");
+    }
+    long tick = resolution.getDuration().toNanos();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    header.putInt(MAGIC).put(VERSION).put(compress ? COMPRESSED : 0).putLong(tick).flip();
+    TimeSetCodec.writeFully(channel, header);
+
+    ByteBuffer block = ByteBuffer.allocate(MAX_BLOCK_BYTES);
+    ByteBuffer compressed = compress ? ByteBuffer.allocate(MAX_BLOCK_BYTES + 64) : null;
+    ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+    Deflater deflater = compress ? new Deflater() : null;
+    try {
+      Iterator<TimeSlot> iterator = timeSlots.iterator();
+      long previousEnd = Long.MIN_VALUE;
+      while (iterator.hasNext()) {
+        block.clear();
+        int count = 0;
+        while (count < BLOCK_SIZE && iterator.hasNext()) {
+          TimeSlot timeSlot = iterator.next();
+          long start = TimeSetCodec.toTicks(timeSlot.getStart(), tick);
+          long end = TimeSetCodec.toTicks(timeSlot.getEnd(), tick);
+          if (start < previousEnd) {
+            throw new IllegalArgumentException("Time slots must be ordered by start and not overlap");
+          }
+          if (count == 0) {
+            TimeSetCodec.putVarLong(block, (start << 1) ^ (start >> 63));
+          } else {
+            TimeSetCodec.putVarLong(block, start - previousEnd);
+          }
+          TimeSetCodec.putVarLong(block, end - start);
+          previousEnd = end;
+          count++;
+        }
+        block.flip();
+        int rawLength = block.remaining();
+        ByteBuffer payload = block;
+        if (deflater != null) {
+          deflater.reset();
+          deflater.setInput(block.array(), 0, rawLength);
+          deflater.finish();
+          int compressedLength = deflater.deflate(compressed.array(), 0, compressed.capacity());
+          if (!deflater.finished()) {
+            throw new IllegalStateException("Compressed block does not fit its buffer");
+          }
+          compressed.clear().limit(compressedLength);
+          payload = compressed;
+        }
+        frame.clear();
+        frame.putInt(count).putInt(payload.remaining()).putInt(rawLength).flip();
+        TimeSetCodec.writeFully(channel, frame);
+        TimeSetCodec.writeFully(channel, payload);
+      }
+      frame.clear();
+      frame.putInt(0).putInt(0).putInt(0).flip();
+      TimeSetCodec.writeFully(channel, frame);
+    } finally {
+      if (deflater != null) {
+        deflater.end();
+      }
+    }
+  }
+
+  /**
+   * Decodes a time set from bytes.
+   *
+   * @param bytes the encoded bytes
+   * @return the time set
+   * @throws IOException if the bytes are not a valid encoding
+   */
+  public static TimeSet fromBytes(byte[] bytes) throws IOException {
+    return TimeSetCodec.decode(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Decodes a time set from a buffer, leaving the buffer positioned after it.
+   *
+   * @param buffer the buffer to read
+   * @return the time set
+   * @throws IOException if the buffer does not hold a valid encoding
+   */
+  public static TimeSet decode(ByteBuffer buffer) throws IOException {
+    return TimeSetCodec.decode(new BufferChannel(buffer));
+  }
+
+  /**
+   * Decodes a time set from a channel.
+   *
+   * @param channel the channel to read
+   * @return the time set
+   * @throws IOException if the channel can not be read or does not hold a valid encoding
+   */
+  public static TimeSet decode(ReadableByteChannel channel) throws IOException {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    TimeSetCodec.decode(channel, (start, end) -> timeSlots.add(TimeSlot.of(EpochNanos.toDateTime(start),
+                                                                           EpochNanos.toDateTime(end))));
+    return TimeSet.ofNormalized(timeSlots);
+  }
+
+  /**
+   * Decodes the endpoints of every time slot from a channel, one block at a time, without creating any time slots.
+   *
+   * @param channel the channel to read
+   * @param consumer receives the endpoints of each time slot in order
+   * @throws IOException if the channel can not be read or does not hold a valid encoding
+   */
+  public static void decode(ReadableByteChannel channel, EndpointConsumer consumer) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+    TimeSetCodec.readFully(channel, header);
+    if (header.getInt() != MAGIC || header.get() != VERSION) {
+      throw new StreamCorruptedException("Not an encoded time set");
+    }
+    boolean compressed = (header.get() & COMPRESSED) != 0;
+    long tick = header.getLong();
+    if (tick <= 0) {
+      throw new StreamCorruptedException("Invalid resolution");
+    }
+
+    ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+    ByteBuffer block = ByteBuffer.allocate(MAX_BLOCK_BYTES);
+    ByteBuffer payload = compressed ? ByteBuffer.allocate(MAX_BLOCK_BYTES + 64) : block;
+    Inflater inflater = compressed ? new Inflater() : null;
+    try {
+      // No time slot can start after it ends, so the first one never matches these
+      long previousStart = Long.MAX_VALUE;
+      long previousEnd = Long.MIN_VALUE;
+      while (true) {
+        frame.clear();
+        TimeSetCodec.readFully(channel, frame);
+        int count = frame.getInt();
+        int length = frame.getInt();
+        int rawLength = frame.getInt();
+        if (count == 0) {
+          return;
+        }
+        if (count < 0 || count > BLOCK_SIZE || length < 0 || length > payload.capacity()
+            || rawLength < 0 || rawLength > MAX_BLOCK_BYTES) {
+          throw new StreamCorruptedException("Invalid block");
+        }
+        payload.clear().limit(length);
+        TimeSetCodec.readFully(channel, payload);
+        if (inflater != null) {
+          inflater.reset();
+          inflater.setInput(payload.array(), 0, length);
+          try {
+            if (inflater.inflate(block.array(), 0, rawLength) != rawLength) {
+              throw new StreamCorruptedException("Truncated block");
+            }
+          } catch (DataFormatException e) {
+            throw new StreamCorruptedException("Invalid compressed block");
+          }
+          block.clear().limit(rawLength);
+        }
+        for (int i = 0; i < count; i++) {
+          long start;
+          if (i == 0) {
+            long zigzag = TimeSetCodec.getVarLong(block);
+            start = (zigzag >>> 1) ^ -(zigzag & 1);
+          } else {
+            start = TimeSetCodec.after(previousEnd, TimeSetCodec.getVarLong(block));
+          }
+          long end = TimeSetCodec.after(start, TimeSetCodec.getVarLong(block));
+          if (start < previousEnd || (start == previousStart && end == previousEnd)) {
+            throw new StreamCorruptedException("Time slots out of order");
+          }
+          if (start < Long.MIN_VALUE / tick || end > Long.MAX_VALUE / tick) {
+            throw new StreamCorruptedException("Time slot out of range");
+          }
+          consumer.accept(start * tick, end * tick);
+          previousStart = start;
+          previousEnd = end;
+        }
+      }
+    } finally {
+      if (inflater != null) {
+        inflater.end();
+      }
+    }
+  }
+
+  private static long toTicks(LocalDateTime dateTime, long tick) {
+    long nanos = EpochNanos.of(dateTime);
+    if (nanos % tick != 0) {
+      throw new IllegalArgumentException(dateTime + " is not a whole number of the resolution");
+    }
+    return nanos / tick;
+  }
+
+  /**
+   * Returns the number of ticks a gap or length after another, which a valid stream never makes negative or too large.
+   */
+  private static long after(long ticks, long distance) throws StreamCorruptedException {
+    if (distance < 0) {
+      throw new StreamCorruptedException("Negative gap or length");
+    }
+    try {
+      return Math.addExact(ticks, distance);
+    } catch (ArithmeticException e) {
+      throw new StreamCorruptedException("Time slot out of range");
+    }
+  }
+
+  private static void putVarLong(ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private static long getVarLong(ByteBuffer buffer) throws StreamCorruptedException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (!buffer.hasRemaining()) {
+        throw new StreamCorruptedException("Truncated block");
+      }
+      byte next = buffer.get();
+      value |= (long) (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+    throw new StreamCorruptedException("Invalid number");
+  }
+
+  private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Truncated time set");
+      }
+    }
+    buffer.flip();
+  }
+
+  /**
+   * Reads from a buffer as a channel, so decoding a buffer and a channel share one implementation.
+   */
+  private static final class BufferChannel implements ReadableByteChannel {
+
+    private final ByteBuffer buffer;
+
+    private BufferChannel(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) {
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+      int length = Math.min(destination.remaining(), this.buffer.remaining());
+      ByteBuffer slice = this.buffer.duplicate();
+      slice.limit(slice.position() + length);
+      destination.put(slice);
+      this.buffer.position(this.buffer.position() + length);
+      return length;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
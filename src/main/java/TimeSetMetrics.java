@@ -0,0 +1,276 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TimeSetMetrics counts the operations performed on time sets: how many of each there have been, how long they took,
+ * and how many time slots went into and came out of them.
+ *
+ * Metrics are off unless the system property timeset.metrics is true, or they are turned on with setEnabled. While
+ * they are off, an operation only reads a single volatile flag. While they are on, each operation is also recorded as
+ * a TimeSet.Operation event for the JDK Flight Recorder whenever a recording has the event enabled. The events carry
+ * the stack trace of the call, which shows the call sites passing in unusually large time sets. The event is only
+ * compiled on JDK 11 and later, see TimeSetEvent. When it was not compiled, or the JVM has no Flight Recorder, the
+ * events are skipped and the counters still work.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class TimeSetMetrics {
+
+  /**
+   * The number of buckets in a latency histogram, enough for any duration held in a long.
+   */
+  public static final int BUCKETS = 64;
+
+  /**
+   * Returned by start when metrics are off, so that record knows to ignore the operation.
+   */
+  private static final long NOT_STARTED = Long.MIN_VALUE;
+
+  /**
+   * Emits the Flight Recorder events, or null if they can not be emitted.
+   */
+  private static final EventEmitter EVENT_EMITTER = TimeSetMetrics.findEventEmitter();
+
+  private static volatile boolean enabled = Boolean.getBoolean("timeset.metrics");
+
+  private static final Counters[] COUNTERS = new Counters[Operation.values().length];
+
+  static {
+    for (Operation operation : Operation.values()) {
+      COUNTERS[operation.ordinal()] = new Counters();
+    }
+  }
+
+  private TimeSetMetrics() {
+  }
+
+  /**
+   * The operations that are counted.
+   */
+  public enum Operation {
+    CREATE, ADD, SUBTRACT, INTERSECT, UNION
+  }
+
+  /**
+   * Checks if metrics are being collected.
+   *
+   * @return true if operations are being counted
+   */
+  public static boolean isEnabled() {
+    return TimeSetMetrics.enabled;
+  }
+
+  /**
+   * Turns collecting metrics on or off. Counts collected so far are kept.
+   *
+   * @param enabled true to count operations from now on
+   */
+  public static void setEnabled(boolean enabled) {
+    TimeSetMetrics.enabled = enabled;
+  }
+
+  /**
+   * Clears every count collected so far.
+   */
+  public static void reset() {
+    for (Operation operation : Operation.values()) {
+      COUNTERS[operation.ordinal()] = new Counters();
+    }
+  }
+
+  /**
+   * Returns the counts collected so far for an operation. The counts are read one at a time while other threads may
+   * still be adding to them, so they are only guaranteed to agree with each other when nothing is running.
+   *
+   * @param operation the operation to look up
+   * @return the counts for the operation
+   */
+  public static Stats get(Operation operation) {
+    Counters counters = COUNTERS[operation.ordinal()];
+    long[] latencies = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      latencies[i] = counters.latencies[i].sum();
+    }
+    return new Stats(operation, counters.count.sum(), counters.nanos.sum(), counters.inputSlots.sum(),
+                     counters.outputSlots.sum(), counters.maxInputSlots.get(), latencies);
+  }
+
+  /**
+   * Marks the start of an operation.
+   *
+   * @return the time the operation started, or a marker that it is not being counted
+   */
+  static long start() {
+    return TimeSetMetrics.enabled ? System.nanoTime() : NOT_STARTED;
+  }
+
+  /**
+   * Records an operation that began with start.
+   *
+   * @param operation the operation performed
+   * @param started the value returned by start
+   * @param inputSlots the number of time slots the operation was given, including those of the set it changed
+   * @param outputSlots the number of time slots in the result
+   */
+  static void record(Operation operation, long started, int inputSlots, int outputSlots) {
+    if (started == NOT_STARTED) {
+      return;
+    }
+    long nanos = Math.max(System.nanoTime() - started, 0);
+    Counters counters = COUNTERS[operation.ordinal()];
+    counters.count.increment();
+    counters.nanos.add(nanos);
+    counters.inputSlots.add(inputSlots);
+    counters.outputSlots.add(outputSlots);
+    counters.maxInputSlots.accumulate(inputSlots);
+    counters.latencies[TimeSetMetrics.bucket(nanos)].increment();
+    if (EVENT_EMITTER != null) {
+      EVENT_EMITTER.emit(operation, nanos, inputSlots, outputSlots);
+    }
+  }
+
+  /**
+   * Returns the histogram bucket of a duration. Bucket i holds durations of at least 2^i and less than 2^(i + 1)
+   * nanoseconds, except bucket 0, which also holds durations of 0.
+   */
+  private static int bucket(long nanos) {
+    return 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+  }
+
+  /**
+   * Loads the emitter of TimeSetEvent by name, so that nothing outside of it refers to the Flight Recorder.
+   */
+  private static EventEmitter findEventEmitter() {
+    ClassLoader classLoader = TimeSetMetrics.class.getClassLoader();
+    try {
+      Class.forName("jdk.jfr.Event", false, classLoader);
+      return (EventEmitter) Class.forName("TimeSetEvent$Emitter", true, classLoader).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Records an operation as a Flight Recorder event. Implemented by TimeSetEvent.
+   */
+  interface EventEmitter {
+
+    /**
+     * Emits an event for an operation.
+     *
+     * @param operation the operation performed
+     * @param timeTaken how long the operation took in nanoseconds
+     * @param inputSlots the number of time slots the operation was given
+     * @param outputSlots the number of time slots in the result
+     */
+    void emit(Operation operation, long timeTaken, int inputSlots, int outputSlots);
+  }
+
+  /**
+   * The running counts of one operation.
+   */
+  private static final class Counters {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder inputSlots = new LongAdder();
+    private final LongAdder outputSlots = new LongAdder();
+    private final LongAccumulator maxInputSlots = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] latencies = new LongAdder[BUCKETS];
+
+    private Counters() {
+      for (int i = 0; i < BUCKETS; i++) {
+        this.latencies[i] = new LongAdder();
+      }
+    }
+  }
+
+  /**
+   * The counts collected for one operation.
+   */
+  public static final class Stats {
+
+    private final Operation operation;
+    private final long count;
+    private final long nanos;
+    private final long inputSlots;
+    private final long outputSlots;
+    private final long maxInputSlots;
+    private final long[] latencies;
+
+    private Stats(Operation operation, long count, long nanos, long inputSlots, long outputSlots, long maxInputSlots,
+                  long[] latencies) {
+      this.operation = operation;
+      this.count = count;
+      this.nanos = nanos;
+      this.inputSlots = inputSlots;
+      this.outputSlots = outputSlots;
+      this.maxInputSlots = maxInputSlots;
+      this.latencies = latencies;
+    }
+
+    /**
+     * Get the operation counted.
+     *
+     * @return the operation
+     */
+    public Operation getOperation() {
+      return this.operation;
+    }
+
+    /**
+     * Get the number of times the operation was performed.
+     *
+     * @return the number of operations
+     */
+    public long getCount() {
+      return this.count;
+    }
+
+    /**
+     * Get the total time spent in the operation.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos() {
+      return this.nanos;
+    }
+
+    /**
+     * Get the total number of time slots given to the operation.
+     *
+     * @return the total number of time slots in
+     */
+    public long getInputSlots() {
+      return this.inputSlots;
+    }
+
+    /**
+     * Get the total number of time slots in the results of the operation.
+     *
+     * @return the total number of time slots out
+     */
+    public long getOutputSlots() {
+      return this.outputSlots;
+    }
+
+    /**
+     * Get the largest number of time slots given to a single operation.
+     *
+     * @return the most time slots in
+     */
+    public long getMaxInputSlots() {
+      return this.maxInputSlots;
+    }
+
+    /**
+     * Get the histogram of how long the operation took. Entry i counts the operations that took at least 2^i and less
+     * than 2^(i + 1) nanoseconds, and entry 0 also counts those that took less than a nanosecond.
+     *
+     * @return a copy of the histogram, with BUCKETS entries
+     */
+    public long[] getLatencyHistogram() {
+      return this.latencies.clone();
+    }
+  }
+}
@@ -0,0 +1,311 @@
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A TimeSetView is a lazily computed time set. Views are combined with union, intersect, subtract and clip like time
+ * sets are, but no time slots are computed until the view is iterated, and then only as many as are asked for.
+ *
+ * Every view iterates its time slots ordered by start with none overlapping another, just like a TimeSet holds them.
+ * Each operation is a streaming merge of the sorted time slots of its two sides, which keeps only a time slot or two
+ * from each side in memory at a time. A pipeline such as (A union B) subtract C clipped to a window therefore builds
+ * no intermediate lists, and reading its length or its first few time slots never builds the whole result.
+ *
+ * Views read the time sets they are built on when they are iterated, not when they are created. A time set must not
+ * be modified while a view on it is being iterated.
+ *
+ * Lucas Gauk - 2020
+ */
+public abstract class TimeSetView implements Iterable<TimeSlot> {
+
+  /**
+   * Creates a view of the time slots of a time set.
+   *
+   * @param timeSet the time set to view
+   * @return a view of the time set
+   */
+  public static TimeSetView of(TimeSet timeSet) {
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return timeSet.iterator();
+      }
+    };
+  }
+
+  /**
+   * Returns a view of the union of this and another view.
+   *
+   * @param other the view to add to this
+   * @return a view of the time that is in either view
+   */
+  public TimeSetView union(TimeSetView other) {
+    TimeSetView self = this;
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return new UnionIterator(self.iterator(), other.iterator());
+      }
+    };
+  }
+
+  /**
+   * Returns a view of the intersection of this and another view.
+   *
+   * @param other the view to intersect with this
+   * @return a view of the time that is in both views
+   */
+  public TimeSetView intersect(TimeSetView other) {
+    TimeSetView self = this;
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return new IntersectionIterator(self.iterator(), other.iterator());
+      }
+    };
+  }
+
+  /**
+   * Returns a view of this with another view subtracted from it.
+   *
+   * @param other the view to subtract from this
+   * @return a view of the time that is in this but not in the other view
+   */
+  public TimeSetView subtract(TimeSetView other) {
+    TimeSetView self = this;
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return new DifferenceIterator(self.iterator(), other.iterator());
+      }
+    };
+  }
+
+  /**
+   * Returns a view of the part of this within a window. Iteration stops as soon as the window is passed.
+   *
+   * @param window the time slot to clip this to
+   * @return a view of the time that is in this and in the window
+   */
+  public TimeSetView clip(TimeSlot window) {
+    TimeSetView self = this;
+    return new TimeSetView() {
+      @Override
+      public Iterator<TimeSlot> iterator() {
+        return new IntersectionIterator(self.iterator(), Collections.singletonList(window).iterator());
+      }
+    };
+  }
+
+  /**
+   * Return the length of this view in a specified unit, computed one time slot at a time. See TimeSet.length(ChronoUnit).
+   *
+   * @param unit the unit to return
+   * @return the number of units in this view
+   */
+  public long length(ChronoUnit unit) {
+    long length = 0;
+    for (TimeSlot timeSlot : this) {
+      length += timeSlot.length(unit);
+    }
+    return length;
+  }
+
+  /**
+   * Computes every time slot of this view and returns them as a time set. They already come ordered and without
+   * overlaps, so they are used as they are.
+   *
+   * @return a time set holding the time slots of this view
+   */
+  public TimeSet materialize() {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    this.forEach(timeSlots::add);
+    return TimeSet.ofNormalized(timeSlots);
+  }
+
+  /**
+   * An iterator that computes its next time slot only once it is asked for.
+   */
+  private abstract static class LazyIterator implements Iterator<TimeSlot> {
+
+    private TimeSlot next;
+    private boolean computed;
+
+    /**
+     * Computes the next time slot.
+     *
+     * @return the next time slot, or null if there are no more
+     */
+    abstract TimeSlot computeNext();
+
+    @Override
+    public boolean hasNext() {
+      if (!this.computed) {
+        this.next = this.computeNext();
+        this.computed = true;
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public TimeSlot next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      this.computed = false;
+      return this.next;
+    }
+
+    static TimeSlot nextOrNull(Iterator<TimeSlot> iterator) {
+      return iterator.hasNext() ? iterator.next() : null;
+    }
+  }
+
+  /**
+   * Merges two ordered iterators by start, combining time slots that overlap as they go past. See TimeSlot.union.
+   */
+  private static final class UnionIterator extends LazyIterator {
+
+    private final Iterator<TimeSlot> first;
+    private final Iterator<TimeSlot> second;
+    private TimeSlot firstSlot;
+    private TimeSlot secondSlot;
+
+    private UnionIterator(Iterator<TimeSlot> first, Iterator<TimeSlot> second) {
+      this.first = first;
+      this.second = second;
+      this.firstSlot = LazyIterator.nextOrNull(first);
+      this.secondSlot = LazyIterator.nextOrNull(second);
+    }
+
+    @Override
+    TimeSlot computeNext() {
+      TimeSlot current = this.take();
+      if (current == null) {
+        return null;
+      }
+      while (this.firstSlot != null || this.secondSlot != null) {
+        TimeSlot upcoming = this.peek();
+        if (!upcoming.startsBeforeEndOf(current)) {
+          break;
+        }
+        current = current.extendTo(this.take());
+      }
+      return current;
+    }
+
+    private TimeSlot peek() {
+      if (this.secondSlot == null
+          || (this.firstSlot != null && TimeSlot.START_ORDER.compare(this.firstSlot, this.secondSlot) <= 0)) {
+        return this.firstSlot;
+      }
+      return this.secondSlot;
+    }
+
+    private TimeSlot take() {
+      TimeSlot taken = this.peek();
+      if (taken == this.firstSlot) {
+        this.firstSlot = LazyIterator.nextOrNull(this.first);
+      } else if (taken != null) {
+        this.secondSlot = LazyIterator.nextOrNull(this.second);
+      }
+      return taken;
+    }
+  }
+
+  /**
+   * Intersects two ordered iterators. Whichever time slot ends first can not overlap anything further along the other
+   * iterator, so it is the one passed over, or of two ending together the one starting first. See TimeSet.intersect.
+   */
+  private static final class IntersectionIterator extends LazyIterator {
+
+    private final Iterator<TimeSlot> first;
+    private final Iterator<TimeSlot> second;
+    private TimeSlot firstSlot;
+    private TimeSlot secondSlot;
+
+    private IntersectionIterator(Iterator<TimeSlot> first, Iterator<TimeSlot> second) {
+      this.first = first;
+      this.second = second;
+      this.firstSlot = LazyIterator.nextOrNull(first);
+      this.secondSlot = LazyIterator.nextOrNull(second);
+    }
+
+    @Override
+    TimeSlot computeNext() {
+      while (this.firstSlot != null && this.secondSlot != null) {
+        TimeSlot intersection = this.firstSlot.intersect(this.secondSlot);
+        int endComparison = this.firstSlot.getEnd().compareTo(this.secondSlot.getEnd());
+        if (endComparison == 0) {
+          endComparison = this.firstSlot.getStart().compareTo(this.secondSlot.getStart());
+        }
+        if (endComparison <= 0) {
+          this.firstSlot = LazyIterator.nextOrNull(this.first);
+        }
+        if (endComparison >= 0) {
+          this.secondSlot = LazyIterator.nextOrNull(this.second);
+        }
+        if (intersection != null) {
+          return intersection;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Removes the time slots of one ordered iterator from another, cutting each time slot by the removals that overlap
+   * it from left to right. See TimeSlot.difference.
+   */
+  private static final class DifferenceIterator extends LazyIterator {
+
+    private final Iterator<TimeSlot> timeSlots;
+    private final Iterator<TimeSlot> removals;
+    private TimeSlot remaining;
+    private TimeSlot removal;
+
+    private DifferenceIterator(Iterator<TimeSlot> timeSlots, Iterator<TimeSlot> removals) {
+      this.timeSlots = timeSlots;
+      this.removals = removals;
+      this.removal = LazyIterator.nextOrNull(removals);
+    }
+
+    @Override
+    TimeSlot computeNext() {
+      while (true) {
+        if (this.remaining == null) {
+          this.remaining = LazyIterator.nextOrNull(this.timeSlots);
+          if (this.remaining == null) {
+            return null;
+          }
+        }
+        // Removals ending by the start of what remains can not reach it, or any time slot after it
+        while (this.removal != null && !this.removal.getEnd().isAfter(this.remaining.getStart())
+               && !this.removal.overlaps(this.remaining)) {
+          this.removal = LazyIterator.nextOrNull(this.removals);
+        }
+        TimeSlot current = this.remaining;
+        if (this.removal == null || !this.removal.overlaps(current)) {
+          this.remaining = null;
+          return current;
+        }
+        TimeSlot piece = null;
+        if (this.removal.getStart().isAfter(current.getStart())) {
+          piece = TimeSlot.of(current.getStart(), this.removal.getStart());
+        }
+        if (this.removal.getEnd().isBefore(current.getEnd())) {
+          this.remaining = TimeSlot.of(this.removal.getEnd(), current.getEnd());
+          this.removal = LazyIterator.nextOrNull(this.removals);
+        } else {
+          this.remaining = null;
+        }
+        if (piece != null) {
+          return piece;
+        }
+      }
+    }
+  }
+}
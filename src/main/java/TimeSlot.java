@@ -1,10 +1,12 @@
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * TimeSlot represents a single continuous set of time. TimeSlots are immutable.
@@ -13,6 +15,25 @@ import java.util.stream.Collectors;
  */
 public final class TimeSlot {
 
+  /**
+   * Orders time slots by their start, and then by their end.
+   */
+  static final Comparator<TimeSlot> START_ORDER = (first, second) -> {
+    int startComparison = TimeSlot.compare(first.startSecond, first.startNano, second.startSecond, second.startNano);
+    if (startComparison != 0) {
+      return startComparison;
+    }
+    return TimeSlot.compare(first.endSecond, first.endNano, second.endSecond, second.endNano);
+  };
+
+  /**
+   * Orders time slots by their length, and then by their start and end.
+   */
+  static final Comparator<TimeSlot> LENGTH_ORDER = (first, second) -> {
+    int lengthComparison = first.compareLength(second);
+    return lengthComparison != 0 ? lengthComparison : START_ORDER.compare(first, second);
+  };
+
   /**
    * The start of the time slot.
    */
@@ -23,6 +44,16 @@ public final class TimeSlot {
    */
   private final LocalDateTime end;
 
+  /**
+   * The start and end as seconds since 1970-01-01T00:00 and the nanoseconds within that second, treating them as UTC.
+   * Every comparison is done on these, which is far cheaper than comparing date times. Unlike a single long of
+   * nanoseconds, they cover the whole range of LocalDateTime.
+   */
+  private final long startSecond;
+  private final int startNano;
+  private final long endSecond;
+  private final int endNano;
+
   /**
    * Get the start of this time slot.
    * Remains immutable because LocalDateTime is immutable.
@@ -95,13 +126,33 @@ public final class TimeSlot {
    * @param end the end of the time slot
    */
   private TimeSlot(LocalDateTime start, LocalDateTime end) {
-    if (end.isBefore(start)) {
+    long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+    long endSecond = end.toEpochSecond(ZoneOffset.UTC);
+    if (TimeSlot.compare(endSecond, end.getNano(), startSecond, start.getNano()) < 0) {
       this.start = end;
       this.end = start;
+      this.startSecond = endSecond;
+      this.endSecond = startSecond;
     } else {
       this.start = start;
       this.end = end;
+      this.startSecond = startSecond;
+      this.endSecond = endSecond;
+    }
+    this.startNano = this.start.getNano();
+    this.endNano = this.end.getNano();
+  }
+
+  /**
+   * Compares two instants, each given as seconds since the epoch and nanoseconds within the second.
+   *
+   * @return a negative number, zero, or a positive number as the first is before, equal to, or after the second
+   */
+  private static int compare(long firstSecond, int firstNano, long secondSecond, int secondNano) {
+    if (firstSecond != secondSecond) {
+      return firstSecond < secondSecond ? -1 : 1;
     }
+    return firstNano - secondNano;
   }
 
   /**
@@ -173,7 +224,7 @@ public final class TimeSlot {
    * @return true if the date time is within this, false if it is outside, or equal to one of the ends.
    */
   public boolean contains(LocalDateTime dateTime) {
-    return dateTime.isAfter(this.start) && dateTime.isBefore(this.end);
+    return this.compareTo(dateTime) == 0;
   }
 
   /**
@@ -186,13 +237,12 @@ public final class TimeSlot {
    * @return 1 if the date time is before, 0 if within, -1 if after
    */
   public int compareTo(LocalDateTime dateTime) {
-    if (this.contains(dateTime)) {
-      return 0;
-    }
-    if (dateTime.isBefore(this.start) || dateTime.isEqual(this.start)) {
+    long second = dateTime.toEpochSecond(ZoneOffset.UTC);
+    int nano = dateTime.getNano();
+    if (TimeSlot.compare(second, nano, this.startSecond, this.startNano) <= 0) {
       return 1;
     }
-    return -1;
+    return TimeSlot.compare(second, nano, this.endSecond, this.endNano) < 0 ? 0 : -1;
   }
 
   /**
@@ -203,102 +253,107 @@ public final class TimeSlot {
    * @return the number of units within this
    */
   public long length(ChronoUnit unit) {
-    return this.start.until(this.end, unit);
+    if (!EpochNanos.isFixedLength(unit)) {
+      return this.start.until(this.end, unit);
+    }
+    return EpochNanos.toUnits(this.lengthSeconds(), this.lengthNanos(), unit);
   }
 
   /**
-   * Compare the length of this to the length of another TimeSlot
+   * Returns the whole seconds in the length of this. See lengthNanos().
    *
-   * @param other the other TimeSlot to compare against
-   * @return -1 if this is smaller, 0 if it is equal, 1 if this is larger
+   * @return the whole seconds between the start and end
    */
-  public int compareLength(TimeSlot other) {
-    return Long.compare(this.length(ChronoUnit.NANOS), other.length(ChronoUnit.NANOS));
+  long lengthSeconds() {
+    return this.endNano < this.startNano ? this.endSecond - this.startSecond - 1 : this.endSecond - this.startSecond;
   }
 
   /**
-   * Checks if this time slot is equal to another time slot.
-   * Compares this TimeSlot with another ensuring that the start and end are the same.
+   * Returns the nanoseconds in the length of this beyond its whole seconds.
    *
-   * @param other the other time slot to compare against
-   * @return true if this is equal to the other time slot
+   * @return the nanoseconds between the start and end, less than a second
    */
-  public boolean equals(TimeSlot other) {
-    return this.startsAtTheSameTimeAs(other) && this.endsAtTheSameTimeAs(other);
+  int lengthNanos() {
+    return this.endNano < this.startNano ? this.endNano - this.startNano + (int) EpochNanos.NANOS_PER_SECOND
+                                         : this.endNano - this.startNano;
   }
 
   /**
-   * Checks to see if this contains another time slot entirely.
+   * Compare the length of this to the length of another TimeSlot
    *
-   * @param other the other time slot to compare against
-   * @return true if the other time slot starts within this and ends within this
+   * @param other the other TimeSlot to compare against
+   * @return -1 if this is smaller, 0 if it is equal, 1 if this is larger
    */
-  public boolean contains(TimeSlot other) {
-    if (this.equals(other)) {
-      return false;
+  public int compareLength(TimeSlot other) {
+    // Comparing a - b with c - d is comparing a + d with c + b, which can not overflow for the seconds of a date time
+    long seconds = (this.endSecond + other.startSecond) - (other.endSecond + this.startSecond);
+    long nanos = (long) (this.endNano + other.startNano) - (other.endNano + this.startNano);
+    // The nanoseconds differ by less than two seconds, so they only matter when the seconds are close
+    if (Math.abs(seconds) > 1) {
+      return Long.signum(seconds);
     }
-    return (this.contains(other.start) || this.startsAtTheSameTimeAs(other))
-        && (this.contains(other.end) || this.endsAtTheSameTimeAs(other));
+    return Long.signum(seconds * EpochNanos.NANOS_PER_SECOND + nanos);
   }
 
   /**
-   * Returns true if this overlaps another time slot.
-   * A time slot does not overlap if it starts at the exact time the other ends, or if it ends at the exact time
-   * the other starts.
+   * Checks if this time slot is equal to another time slot.
+   * Compares this TimeSlot with another ensuring that the start and end are the same.
    *
    * @param other the other time slot to compare against
-   * @return true if any part of this is within any part of the other time slot
+   * @return true if this is equal to the other time slot
    */
-  public boolean overlaps(TimeSlot other) {
-    return !this.checkOverlap(other).equals(OverlapPossibility.NO_OVERLAP);
+  public boolean equals(TimeSlot other) {
+    return this.startSecond == other.startSecond && this.startNano == other.startNano
+        && this.endSecond == other.endSecond && this.endNano == other.endNano;
   }
 
   /**
-   * Returns true if this starts at the same time as another time slot.
+   * Checks if this time slot is equal to another object. See equals(TimeSlot).
    *
-   * @param other the other time slot to compare against
-   * @return true if this starts at the same time as the other
+   * @param other the object to compare against
+   * @return true if the other object is a time slot with the same start and end as this
    */
-  private boolean startsAtTheSameTimeAs(TimeSlot other) {
-    return this.start.isEqual(other.start);
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof TimeSlot && this.equals((TimeSlot) other);
   }
 
   /**
-   * Returns true if this ends at the same time as another time slot.
+   * Returns a hash code for this time slot, consistent with equals.
    *
-   * @param other the other time slot to compare against
-   * @return true if this ends at the same time as the other
+   * @return the hash code of the start and end
    */
-  private boolean endsAtTheSameTimeAs(TimeSlot other) {
-    return this.end.isEqual(other.end);
+  @Override
+  public int hashCode() {
+    long hash = this.startSecond;
+    hash = 31 * hash + this.startNano;
+    hash = 31 * hash + this.endSecond;
+    hash = 31 * hash + this.endNano;
+    return Long.hashCode(hash);
   }
 
   /**
-   * Returns true if this starts before another time slot but ends within another time slot.
-   * It is useful to differentiate this from containing another time slot.
-   *
-   * Remember that for time slots, a date time that is equal to the start or end of another time slot is not
-   * considered to be in that time slot.
+   * Checks to see if this contains another time slot entirely.
    *
    * @param other the other time slot to compare against
-   * @return true if this starts before but ends within the other time slot
+   * @return true if the other time slot starts within this and ends within this
    */
-  private boolean startsBeforeEndsWithin(TimeSlot other) {
-    return other.compareTo(this.start) > 0 && other.contains(this.end);
+  public boolean contains(TimeSlot other) {
+    return this.checkOverlap(other) == OverlapPossibility.CONTAINS;
   }
 
   /**
-   * Returns true if this starts within, and ends after, another time slot.
-   * It is useful to differentiate this from containing another time slot.
-   *
-   * Remember that for time slots, a date time that is equal to the start or end of another time slot is not
-   * considered to be in that time slot.
+   * Returns true if this overlaps another time slot.
+   * A time slot does not overlap if it starts at the exact time the other ends, or if it ends at the exact time
+   * the other starts.
    *
    * @param other the other time slot to compare against
-   * @return true if this starts within, but ends after, another time slot
+   * @return true if any part of this is within any part of the other time slot
    */
-  private boolean startsWithinEndsAfter(TimeSlot other) {
-    return other.startsBeforeEndsWithin(this);
+  public boolean overlaps(TimeSlot other) {
+    return (TimeSlot.compare(this.startSecond, this.startNano, other.endSecond, other.endNano) < 0
+            && TimeSlot.compare(other.startSecond, other.startNano, this.endSecond, this.endNano) < 0)
+        || this.equals(other);
   }
 
   /**
@@ -321,22 +376,23 @@ public final class TimeSlot {
    * @return the OverlapPossibility that occurs when comparing this to the other time slot
    */
   private OverlapPossibility checkOverlap(TimeSlot other) {
-    if (this.equals(other)) {
+    int startComparison = TimeSlot.compare(this.startSecond, this.startNano, other.startSecond, other.startNano);
+    int endComparison = TimeSlot.compare(this.endSecond, this.endNano, other.endSecond, other.endNano);
+    if (startComparison == 0 && endComparison == 0) {
       return OverlapPossibility.EQUALS;
     }
-    if (this.contains(other)) {
+    // Touching at the ends, or one time slot ending before the other starts, is not an overlap
+    if (TimeSlot.compare(this.startSecond, this.startNano, other.endSecond, other.endNano) >= 0
+        || TimeSlot.compare(other.startSecond, other.startNano, this.endSecond, this.endNano) >= 0) {
+      return OverlapPossibility.NO_OVERLAP;
+    }
+    if (startComparison <= 0 && endComparison >= 0) {
       return OverlapPossibility.CONTAINS;
     }
-    if (other.contains(this)) {
+    if (startComparison >= 0 && endComparison <= 0) {
       return OverlapPossibility.IS_CONTAINED;
     }
-    if (this.startsWithinEndsAfter(other)) {
-      return OverlapPossibility.STARTS_WITHIN_ENDS_AFTER;
-    }
-    if (this.startsBeforeEndsWithin(other)) {
-      return OverlapPossibility.STARTS_BEFORE_ENDS_WITHIN;
-    }
-    return OverlapPossibility.NO_OVERLAP;
+    return startComparison > 0 ? OverlapPossibility.STARTS_WITHIN_ENDS_AFTER : OverlapPossibility.STARTS_BEFORE_ENDS_WITHIN;
   }
 
   /**
@@ -348,16 +404,10 @@ public final class TimeSlot {
    * @return the combination of this and all others
    */
   public List<TimeSlot> add(List<TimeSlot> others) {
-    List<TimeSlot> results = new ArrayList<>();
-    results.add(this);
-    for (TimeSlot other : others) {
-      for (TimeSlot overlap : other.overlapsWith(results)) {
-        other = other.combineWith(overlap);
-        results.remove(overlap);
-      }
-      results.add(other);
-    }
-    return results;
+    List<TimeSlot> timeSlots = new ArrayList<>(others.size() + 1);
+    timeSlots.add(this);
+    timeSlots.addAll(others);
+    return TimeSlot.normalize(timeSlots);
   }
 
   /**
@@ -377,41 +427,92 @@ public final class TimeSlot {
    * @return the combination of all time slots
    */
   public static List<TimeSlot> sum(List<TimeSlot> timeSlots) {
-    timeSlots = new ArrayList<>(timeSlots);
-    if (timeSlots.size() < 2) {
-      return timeSlots;
+    return TimeSlot.normalize(new ArrayList<>(timeSlots));
+  }
+
+  /**
+   * Sorts a list of time slots by start and combines any that overlap in a single sweep.
+   * The list passed in is sorted in place.
+   *
+   * @param timeSlots the time slots to normalize
+   * @return the combination of all time slots, ordered by start with none overlapping another
+   */
+  static List<TimeSlot> normalize(List<TimeSlot> timeSlots) {
+    timeSlots.sort(START_ORDER);
+    List<TimeSlot> results = new ArrayList<>();
+    TimeSlot current = null;
+    for (TimeSlot timeSlot : timeSlots) {
+      if (current == null) {
+        current = timeSlot;
+      } else if (timeSlot.startsBeforeEndOf(current)) {
+        current = current.extendTo(timeSlot);
+      } else {
+        results.add(current);
+        current = timeSlot;
+      }
     }
-    TimeSlot firstSlot = timeSlots.remove(0);
-    return firstSlot.add(timeSlots);
+    if (current != null) {
+      results.add(current);
+    }
+    return results;
   }
 
   /**
-   * Combine with another time slot if the other time slot overlaps this.
+   * Combines two ordered, non overlapping lists of time slots in a single pass over both.
+   * Produces the same result as normalizing the two lists together, without sorting them again.
    *
-   * @param other the other time slot to combine with this
-   * @return a time slot with the additional time of other in the case that other overlaps this
+   * @param first the first ordered list of time slots
+   * @param second the second ordered list of time slots
+   * @return the ordered list of time slots that are in either list, with none overlapping another
    */
-  private TimeSlot combineWith(TimeSlot other) {
-    switch (this.checkOverlap(other)) {
-      case IS_CONTAINED:
-        return other;
-      case STARTS_BEFORE_ENDS_WITHIN:
-        return TimeSlot.of(this.start, other.end);
-      case STARTS_WITHIN_ENDS_AFTER:
-        return TimeSlot.of(other.start, this.end);
-      default:
-        return this;
+  static List<TimeSlot> union(List<TimeSlot> first, List<TimeSlot> second) {
+    List<TimeSlot> results = new ArrayList<>(first.size() + second.size());
+    TimeSlot current = null;
+    int i = 0;
+    int j = 0;
+    while (i < first.size() || j < second.size()) {
+      TimeSlot timeSlot;
+      if (j == second.size() || (i < first.size() && START_ORDER.compare(first.get(i), second.get(j)) <= 0)) {
+        timeSlot = first.get(i++);
+      } else {
+        timeSlot = second.get(j++);
+      }
+      if (current == null) {
+        current = timeSlot;
+      } else if (timeSlot.startsBeforeEndOf(current)) {
+        current = current.extendTo(timeSlot);
+      } else {
+        results.add(current);
+        current = timeSlot;
+      }
+    }
+    if (current != null) {
+      results.add(current);
     }
+    return results;
   }
 
   /**
-   * Checks to see which time slots overlap this and returns them.
+   * Returns true if this overlaps another time slot that starts at or before this does.
+   * Cheaper than overlaps(TimeSlot) when the order of the two time slots is already known.
    *
-   * @param others the other time slots to check against this
-   * @return the list of all others that overlap this
+   * @param previous a time slot that does not start after this
+   * @return true if this overlaps the previous time slot
    */
-  List<TimeSlot> overlapsWith(List<TimeSlot> others) {
-    return others.stream().filter(other -> other.overlaps(this)).collect(Collectors.toList());
+  boolean startsBeforeEndOf(TimeSlot previous) {
+    return TimeSlot.compare(this.startSecond, this.startNano, previous.endSecond, previous.endNano) < 0
+        || this.equals(previous);
+  }
+
+  /**
+   * Extends this so that it also covers a time slot that starts at or after this does.
+   *
+   * @param next a time slot that does not start before this
+   * @return this if it already ends after the next time slot, otherwise a time slot from this start to the next end
+   */
+  TimeSlot extendTo(TimeSlot next) {
+    return TimeSlot.compare(next.endSecond, next.endNano, this.endSecond, this.endNano) > 0
+        ? TimeSlot.of(this.start, next.end) : this;
   }
 
   /**
@@ -425,23 +526,40 @@ public final class TimeSlot {
    * @return a list of time slots that represent the pieces of this that are not overlapped by any of the others
    */
   public List<TimeSlot> subtract(List<TimeSlot> others) {
+    return TimeSlot.difference(Collections.singletonList(this), TimeSlot.sum(others));
+  }
+
+  /**
+   * Removes one ordered, non overlapping list of time slots from another in a single pass over both.
+   * Each time slot is cut by the removals that overlap it, from left to right, without any recursion.
+   *
+   * @param timeSlots the ordered list of time slots to remove time from
+   * @param removals the ordered list of time slots to remove
+   * @return the ordered list of time slots that are in the first list but not in the removals
+   */
+  static List<TimeSlot> difference(List<TimeSlot> timeSlots, List<TimeSlot> removals) {
     List<TimeSlot> results = new ArrayList<>();
-    List<TimeSlot> overlaps = this.overlapsWith(others);
-    if (overlaps.isEmpty()) {
-      results.add(this);
-    } else {
-      TimeSlot firstOverlap = overlaps.remove(0);
-      switch (this.checkOverlap(firstOverlap)) {
-        case CONTAINS:
-          results.addAll(TimeSlot.of(this.start, firstOverlap.start).subtract(overlaps));
-          results.addAll(TimeSlot.of(this.end, firstOverlap.end).subtract(overlaps));
-          break;
-        case STARTS_BEFORE_ENDS_WITHIN:
-          results.addAll(TimeSlot.of(this.start, firstOverlap.start).subtract(overlaps));
-          break;
-        case STARTS_WITHIN_ENDS_AFTER:
-          results.addAll(TimeSlot.of(firstOverlap.end, this.end).subtract(overlaps));
+    int firstRemoval = 0;
+    for (TimeSlot timeSlot : timeSlots) {
+      while (firstRemoval < removals.size() && removals.get(firstRemoval).end.isBefore(timeSlot.start)) {
+        firstRemoval++;
+      }
+      TimeSlot remaining = timeSlot;
+      for (int i = firstRemoval; remaining != null && i < removals.size(); i++) {
+        TimeSlot removal = removals.get(i);
+        if (removal.start.isAfter(remaining.end)) {
           break;
+        }
+        if (!remaining.overlaps(removal)) {
+          continue;
+        }
+        if (removal.start.isAfter(remaining.start)) {
+          results.add(TimeSlot.of(remaining.start, removal.start));
+        }
+        remaining = removal.end.isBefore(remaining.end) ? TimeSlot.of(removal.end, remaining.end) : null;
+      }
+      if (remaining != null) {
+        results.add(remaining);
       }
     }
     return results;
@@ -461,6 +579,10 @@ public final class TimeSlot {
    * Returns the intersection of this and a list of time slots. Can return null if there is no intersect.
    * If this is A, and the others are B, C, ... n then this is equivalent to A intersect B intersect C ... intersect n.
    *
+   * The intersection starts at the latest start and ends at the earliest end, so it is found in a single pass that only
+   * keeps track of those two, and stops at the first time slot that leaves nothing. As with overlaps, time slots that
+   * only touch at their ends have no intersect, while two equal time slots always intersect in themselves.
+   *
    * @param others the other time slots to check for intersection
    * @return a TimeSlot that represents the intersection of this and all others, or null if there is no intersect
    */
@@ -468,38 +590,49 @@ public final class TimeSlot {
     if (others.size() == 0) {
       return null;
     }
-    return intersectHelper(new ArrayList<>(others));
-  }
-
-  private TimeSlot intersectHelper(List<TimeSlot> others) {
-    if (others.size() == 0) {
-      return this;
-    }
-    TimeSlot firstOverlap = others.remove(0);
-    switch (this.checkOverlap(firstOverlap)) {
-      case STARTS_BEFORE_ENDS_WITHIN:
-        return TimeSlot.of(firstOverlap.start, this.end).intersectHelper(others);
-      case STARTS_WITHIN_ENDS_AFTER:
-        return TimeSlot.of(this.start, firstOverlap.end).intersectHelper(others);
-      case CONTAINS:
-        return firstOverlap.intersectHelper(others);
-      case NO_OVERLAP:
+    TimeSlot latestStart = this;
+    TimeSlot earliestEnd = this;
+    for (TimeSlot other : others) {
+      int startComparison = TimeSlot.compare(other.startSecond, other.startNano,
+                                             latestStart.startSecond, latestStart.startNano);
+      int endComparison = TimeSlot.compare(other.endSecond, other.endNano, earliestEnd.endSecond, earliestEnd.endNano);
+      if (startComparison == 0 && endComparison == 0) {
+        continue;
+      }
+      if (TimeSlot.compare(latestStart.startSecond, latestStart.startNano, other.endSecond, other.endNano) >= 0
+          || TimeSlot.compare(other.startSecond, other.startNano, earliestEnd.endSecond, earliestEnd.endNano) >= 0) {
         return null;
-      default:
-        return this.intersectHelper(others);
+      }
+      if (startComparison > 0) {
+        latestStart = other;
+      }
+      if (endComparison < 0) {
+        earliestEnd = other;
+      }
     }
+    return latestStart == earliestEnd ? latestStart : TimeSlot.of(latestStart.start, earliestEnd.end);
   }
 
+  /**
+   * Convenience intersect with varargs. Check docs for intersect(List).
+   *
+   * @param others the other time slots to check for intersection
+   * @return a TimeSlot that represents the intersection of this and all others, or null if there is no intersect
+   */
   public TimeSlot intersect(TimeSlot ...others) {
     return this.intersect(Arrays.asList(others));
   }
 
+  /**
+   * Returns the intersection of a list of time slots. See intersect(List).
+   *
+   * @param timeSlots the time slots to intersect
+   * @return the intersection of all time slots, or null if there is no intersect or fewer than two time slots
+   */
   public static TimeSlot intersection(List<TimeSlot> timeSlots) {
     if (timeSlots.size() < 2) {
       return null;
     }
-    timeSlots = new ArrayList<>(timeSlots);
-    TimeSlot firstSlot = timeSlots.remove(0);
-    return firstSlot.intersect(timeSlots);
+    return timeSlots.get(0).intersect(timeSlots.subList(1, timeSlots.size()));
   }
 }
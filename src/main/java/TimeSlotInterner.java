@@ -0,0 +1,125 @@
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A TimeSlotInterner hands out one shared instance for every distinct time slot, so that schedules repeating the same
+ * time slots, such as standard shifts or whole days, hold a single copy of each rather than one per use.
+ *
+ * Two kinds are offered. A weak interner keeps a time slot for as long as something else refers to it, and never holds
+ * on to one that is no longer used. A bounded interner keeps the time slots used most recently, up to a maximum, and
+ * hands out new instances for the rest once it is full. Both are safe to share between threads.
+ *
+ * TimeSlots are immutable, so a shared instance behaves exactly like its own copy would. Only code comparing time
+ * slots with == can tell the difference.
+ *
+ * Lucas Gauk - 2020
+ */
+public final class TimeSlotInterner {
+
+  /**
+   * The shared time slots, keyed by themselves. Only one of the two maps is used, depending on the kind of interner,
+   * and every access to it is synchronized on it.
+   */
+  private final Map<TimeSlot, WeakReference<TimeSlot>> weak;
+  private final Map<TimeSlot, TimeSlot> bounded;
+
+  /**
+   * Creates an interner that holds its time slots weakly.
+   *
+   * @return the interner
+   */
+  public static TimeSlotInterner weak() {
+    return new TimeSlotInterner(new WeakHashMap<>(), null);
+  }
+
+  /**
+   * Creates an interner that holds up to a maximum number of time slots, dropping the one used least recently to make
+   * room for a new one.
+   *
+   * @param maximumSize the most time slots to hold
+   * @return the interner
+   */
+  public static TimeSlotInterner bounded(int maximumSize) {
+    if (maximumSize <= 0) {
+      throw new IllegalArgumentException("Maximum size must be positive");
+    }
+    return new TimeSlotInterner(null, new LinkedHashMap<TimeSlot, TimeSlot>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<TimeSlot, TimeSlot> eldest) {
+        return this.size() > maximumSize;
+      }
+    });
+  }
+
+  private TimeSlotInterner(Map<TimeSlot, WeakReference<TimeSlot>> weak, Map<TimeSlot, TimeSlot> bounded) {
+    this.weak = weak;
+    this.bounded = bounded;
+  }
+
+  /**
+   * Returns the shared instance of a time slot. The first time slot interned with a given start and end becomes the
+   * shared instance for it.
+   *
+   * @param timeSlot the time slot
+   * @return a time slot equal to the one given, shared with every other caller interning an equal time slot
+   */
+  public TimeSlot intern(TimeSlot timeSlot) {
+    if (this.weak != null) {
+      synchronized (this.weak) {
+        WeakReference<TimeSlot> reference = this.weak.get(timeSlot);
+        TimeSlot shared = reference == null ? null : reference.get();
+        if (shared == null) {
+          this.weak.put(timeSlot, new WeakReference<>(timeSlot));
+          shared = timeSlot;
+        }
+        return shared;
+      }
+    }
+    synchronized (this.bounded) {
+      TimeSlot shared = this.bounded.putIfAbsent(timeSlot, timeSlot);
+      return shared == null ? timeSlot : shared;
+    }
+  }
+
+  /**
+   * Returns the shared time slot with a start and an end. See TimeSlot.of(LocalDateTime, LocalDateTime).
+   *
+   * @param start the start of the time slot
+   * @param end the end of the time slot
+   * @return the shared time slot
+   */
+  public TimeSlot of(LocalDateTime start, LocalDateTime end) {
+    return this.intern(TimeSlot.of(start, end));
+  }
+
+  /**
+   * Returns the shared time slot lasting the entirety of a date. See TimeSlot.of(LocalDate).
+   *
+   * @param date the date of the time slot
+   * @return the shared time slot
+   */
+  public TimeSlot of(LocalDate date) {
+    return this.intern(TimeSlot.of(date));
+  }
+
+  /**
+   * Returns the number of time slots this holds. For a weak interner, this can include time slots that are no longer
+   * used but have not yet been cleared by the garbage collector.
+   *
+   * @return the number of time slots held
+   */
+  public int size() {
+    if (this.weak != null) {
+      synchronized (this.weak) {
+        return this.weak.size();
+      }
+    }
+    synchronized (this.bounded) {
+      return this.bounded.size();
+    }
+  }
+}
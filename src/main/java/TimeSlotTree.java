@@ -0,0 +1,348 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A TimeSlotTree indexes a collection of time slots that are allowed to overlap one another, such as bookings, and
+ * finds the ones overlapping a given time slot or date time without looking at all of them.
+ *
+ * It is an interval tree: a balanced binary search tree ordered by start, where every node also remembers the latest
+ * end anywhere below it. Queries skip any subtree that ends before the query starts, so finding the k time slots that
+ * overlap another takes O(log n + k). Overlap has the same meaning as TimeSlot.overlaps, so time slots that only touch
+ * at their ends do not overlap. TimeSlotTrees are not immutable.
+ *
+ * Lucas Gauk - 2020
+ */
+public class TimeSlotTree {
+
+  /**
+   * The root of the tree, or null if the tree is empty.
+   */
+  private Node root;
+
+  /**
+   * The number of time slots in the tree, counting each copy of an equal time slot.
+   */
+  private int size;
+
+  /**
+   * Creates an empty tree.
+   *
+   * @return a tree with no time slots
+   */
+  public static TimeSlotTree empty() {
+    return new TimeSlotTree();
+  }
+
+  /**
+   * Creates a tree from a varargs array of time slots.
+   *
+   * @param timeSlots the time slots to index
+   * @return a tree containing every time slot
+   */
+  public static TimeSlotTree of(TimeSlot... timeSlots) {
+    return TimeSlotTree.of(Arrays.asList(timeSlots));
+  }
+
+  /**
+   * Creates a tree from a list of time slots. The time slots are sorted once and the tree is built already balanced.
+   *
+   * @param timeSlots the time slots to index
+   * @return a tree containing every time slot
+   */
+  public static TimeSlotTree of(List<TimeSlot> timeSlots) {
+    List<TimeSlot> sorted = new ArrayList<>(timeSlots);
+    sorted.sort(TimeSlot.START_ORDER);
+    List<Node> nodes = new ArrayList<>();
+    for (TimeSlot timeSlot : sorted) {
+      Node last = nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+      if (last != null && last.timeSlot.equals(timeSlot)) {
+        last.count++;
+      } else {
+        nodes.add(new Node(timeSlot));
+      }
+    }
+    TimeSlotTree tree = new TimeSlotTree();
+    tree.root = TimeSlotTree.build(nodes, 0, nodes.size());
+    tree.size = sorted.size();
+    return tree;
+  }
+
+  private static Node build(List<Node> nodes, int from, int to) {
+    if (from >= to) {
+      return null;
+    }
+    int middle = (from + to) >>> 1;
+    Node node = nodes.get(middle);
+    node.left = TimeSlotTree.build(nodes, from, middle);
+    node.right = TimeSlotTree.build(nodes, middle + 1, to);
+    return node.update();
+  }
+
+  private TimeSlotTree() {
+  }
+
+  /**
+   * Returns the number of time slots in this tree, counting each copy of an equal time slot.
+   *
+   * @return the number of time slots
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Add a time slot to this tree. Unlike a TimeSet, the time slot is kept as is, even if it overlaps others.
+   *
+   * @param timeSlot the time slot to add
+   */
+  public void add(TimeSlot timeSlot) {
+    this.root = TimeSlotTree.insert(this.root, timeSlot);
+    this.size++;
+  }
+
+  /**
+   * Remove one copy of a time slot from this tree.
+   *
+   * @param timeSlot the time slot to remove
+   * @return true if a time slot equal to it was found and removed
+   */
+  public boolean remove(TimeSlot timeSlot) {
+    int sizeBefore = this.size;
+    this.root = this.delete(this.root, timeSlot);
+    return this.size < sizeBefore;
+  }
+
+  /**
+   * Returns all time slots in this tree that overlap another time slot, ordered by start.
+   *
+   * @param other the time slot to compare against
+   * @return the time slots that overlap the other
+   */
+  public List<TimeSlot> overlapping(TimeSlot other) {
+    List<TimeSlot> results = new ArrayList<>();
+    TimeSlotTree.collectOverlapping(this.root, other, results);
+    return results;
+  }
+
+  /**
+   * Returns true if any time slot in this tree overlaps another time slot.
+   *
+   * @param other the time slot to compare against
+   * @return true if the other conflicts with a time slot in this tree
+   */
+  public boolean overlaps(TimeSlot other) {
+    return TimeSlotTree.anyOverlapping(this.root, other);
+  }
+
+  /**
+   * Returns all time slots in this tree that contain a date time, ordered by start.
+   * A date time that is equal to the start or end of a time slot is not considered to be inside of it.
+   *
+   * @param dateTime the date time to look for
+   * @return the time slots containing the date time
+   */
+  public List<TimeSlot> containing(LocalDateTime dateTime) {
+    List<TimeSlot> results = new ArrayList<>();
+    TimeSlotTree.collectContaining(this.root, dateTime, results);
+    return results;
+  }
+
+  /**
+   * Return a list containing every time slot in this tree, ordered by start.
+   *
+   * @return a list containing all time slots in this tree
+   */
+  public List<TimeSlot> getTimeSlots() {
+    List<TimeSlot> results = new ArrayList<>(this.size);
+    TimeSlotTree.collectAll(this.root, results);
+    return results;
+  }
+
+  private static void collectOverlapping(Node node, TimeSlot other, List<TimeSlot> results) {
+    if (node == null || node.maxEnd.isBefore(other.getStart())) {
+      return;
+    }
+    TimeSlotTree.collectOverlapping(node.left, other, results);
+    if (node.timeSlot.getStart().isAfter(other.getEnd())) {
+      return;
+    }
+    if (node.timeSlot.overlaps(other)) {
+      node.addTo(results);
+    }
+    TimeSlotTree.collectOverlapping(node.right, other, results);
+  }
+
+  private static boolean anyOverlapping(Node node, TimeSlot other) {
+    if (node == null || node.maxEnd.isBefore(other.getStart())) {
+      return false;
+    }
+    if (TimeSlotTree.anyOverlapping(node.left, other)) {
+      return true;
+    }
+    if (node.timeSlot.getStart().isAfter(other.getEnd())) {
+      return false;
+    }
+    return node.timeSlot.overlaps(other) || TimeSlotTree.anyOverlapping(node.right, other);
+  }
+
+  private static void collectContaining(Node node, LocalDateTime dateTime, List<TimeSlot> results) {
+    if (node == null || !node.maxEnd.isAfter(dateTime)) {
+      return;
+    }
+    TimeSlotTree.collectContaining(node.left, dateTime, results);
+    if (!node.timeSlot.getStart().isBefore(dateTime)) {
+      return;
+    }
+    if (node.timeSlot.contains(dateTime)) {
+      node.addTo(results);
+    }
+    TimeSlotTree.collectContaining(node.right, dateTime, results);
+  }
+
+  private static void collectAll(Node node, List<TimeSlot> results) {
+    if (node == null) {
+      return;
+    }
+    TimeSlotTree.collectAll(node.left, results);
+    node.addTo(results);
+    TimeSlotTree.collectAll(node.right, results);
+  }
+
+  private static Node insert(Node node, TimeSlot timeSlot) {
+    if (node == null) {
+      return new Node(timeSlot);
+    }
+    int comparison = TimeSlot.START_ORDER.compare(timeSlot, node.timeSlot);
+    if (comparison == 0) {
+      node.count++;
+      return node;
+    }
+    if (comparison < 0) {
+      node.left = TimeSlotTree.insert(node.left, timeSlot);
+    } else {
+      node.right = TimeSlotTree.insert(node.right, timeSlot);
+    }
+    return TimeSlotTree.rebalance(node.update());
+  }
+
+  private Node delete(Node node, TimeSlot timeSlot) {
+    if (node == null) {
+      return null;
+    }
+    int comparison = TimeSlot.START_ORDER.compare(timeSlot, node.timeSlot);
+    if (comparison < 0) {
+      node.left = this.delete(node.left, timeSlot);
+    } else if (comparison > 0) {
+      node.right = this.delete(node.right, timeSlot);
+    } else {
+      this.size--;
+      if (node.count > 1) {
+        node.count--;
+        return node;
+      }
+      if (node.left == null) {
+        return node.right;
+      }
+      if (node.right == null) {
+        return node.left;
+      }
+      Node successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      node.right = TimeSlotTree.deleteFirst(node.right);
+      successor.left = node.left;
+      successor.right = node.right;
+      node = successor;
+    }
+    return TimeSlotTree.rebalance(node.update());
+  }
+
+  private static Node deleteFirst(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    node.left = TimeSlotTree.deleteFirst(node.left);
+    return TimeSlotTree.rebalance(node.update());
+  }
+
+  private static Node rebalance(Node node) {
+    int balance = Node.height(node.left) - Node.height(node.right);
+    if (balance > 1) {
+      if (Node.height(node.left.left) < Node.height(node.left.right)) {
+        node.left = TimeSlotTree.rotateLeft(node.left);
+      }
+      return TimeSlotTree.rotateRight(node);
+    }
+    if (balance < -1) {
+      if (Node.height(node.right.right) < Node.height(node.right.left)) {
+        node.right = TimeSlotTree.rotateRight(node.right);
+      }
+      return TimeSlotTree.rotateLeft(node);
+    }
+    return node;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node left = node.left;
+    node.left = left.right;
+    left.right = node.update();
+    return left.update();
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node right = node.right;
+    node.right = right.left;
+    right.left = node.update();
+    return right.update();
+  }
+
+  /**
+   * A node of the tree. Holds one time slot and how many equal copies of it have been added.
+   */
+  private static final class Node {
+
+    private final TimeSlot timeSlot;
+    private int count = 1;
+    private Node left;
+    private Node right;
+    private int height = 1;
+
+    /**
+     * The latest end of any time slot in this node or below it.
+     */
+    private LocalDateTime maxEnd;
+
+    private Node(TimeSlot timeSlot) {
+      this.timeSlot = timeSlot;
+      this.maxEnd = timeSlot.getEnd();
+    }
+
+    private static int height(Node node) {
+      return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Recomputes the height and latest end of this node from its children.
+     */
+    private Node update() {
+      this.height = Math.max(Node.height(this.left), Node.height(this.right)) + 1;
+      this.maxEnd = this.timeSlot.getEnd();
+      if (this.left != null && this.left.maxEnd.isAfter(this.maxEnd)) {
+        this.maxEnd = this.left.maxEnd;
+      }
+      if (this.right != null && this.right.maxEnd.isAfter(this.maxEnd)) {
+        this.maxEnd = this.right.maxEnd;
+      }
+      return this;
+    }
+
+    private void addTo(List<TimeSlot> results) {
+      for (int i = 0; i < this.count; i++) {
+        results.add(this.timeSlot);
+      }
+    }
+  }
+}
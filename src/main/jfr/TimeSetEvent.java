@@ -0,0 +1,57 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JDK Flight Recorder event for a single time set operation, emitted by TimeSetMetrics.
+ * This is the only class that refers to the Flight Recorder. It lives in its own source directory, which the jfr
+ * profile compiles on JDK 11 and later, so the rest of the library still builds and runs without the Flight Recorder.
+ * TimeSetMetrics looks up its Emitter by name once the Flight Recorder has been found to be present.
+ *
+ * Lucas Gauk - 2020
+ */
+@Name("TimeSet.Operation")
+@Label("Time Set Operation")
+@Category("Time Set")
+@Description("An add, subtract, intersect, union or creation of a time set")
+@StackTrace(true)
+final class TimeSetEvent extends Event {
+
+  @Label("Operation")
+  private String operation;
+
+  @Label("Time Taken")
+  @Timespan(Timespan.NANOSECONDS)
+  private long timeTaken;
+
+  @Label("Input Slots")
+  @Description("The number of time slots the operation was given, including those of the set it changed")
+  private int inputSlots;
+
+  @Label("Output Slots")
+  @Description("The number of time slots in the result")
+  private int outputSlots;
+
+  /**
+   * Commits an event for each operation, if a recording has the event enabled.
+   */
+  static final class Emitter implements TimeSetMetrics.EventEmitter {
+
+    @Override
+    public void emit(TimeSetMetrics.Operation operation, long timeTaken, int inputSlots, int outputSlots) {
+      TimeSetEvent event = new TimeSetEvent();
+      if (!event.isEnabled()) {
+        return;
+      }
+      event.operation = operation.name();
+      event.timeTaken = timeTaken;
+      event.inputSlots = inputSlots;
+      event.outputSlots = outputSlots;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class BitmapTimeSetTest {
+
+  @Test
+  void of() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 8));
+    BitmapTimeSet bitmap = BitmapTimeSet.of(ts, 15, ChronoUnit.MINUTES);
+    assertEquals(20, bitmap.cardinality());
+    assertEquals(5, bitmap.length(ChronoUnit.HOURS));
+    assertTrue(bitmap.toTimeSet().equals(ts));
+    assertThrows(IllegalArgumentException.class,
+        () -> BitmapTimeSet.of(TimeSet.of(TestUtils.betweenHours(1, 3).shiftEnd(1, ChronoUnit.MINUTES)), 15, ChronoUnit.MINUTES));
+    assertThrows(IllegalArgumentException.class, () -> BitmapTimeSet.empty(1, ChronoUnit.MONTHS));
+  }
+
+  @Test
+  void touchingSlotsJoin() {
+    BitmapTimeSet bitmap = BitmapTimeSet.of(TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(3, 5)),
+                                            1, ChronoUnit.HOURS);
+    assertTrue(bitmap.toTimeSet().equals(TimeSet.of(TestUtils.betweenHours(1, 5))));
+    assertTrue(bitmap.contains(TestUtils.dateAtHour(3)));
+    assertFalse(bitmap.contains(TestUtils.dateAtHour(1)));
+    assertFalse(bitmap.contains(TestUtils.dateAtHour(5)));
+  }
+
+  @Test
+  void operations() {
+    BitmapTimeSet bitmap = BitmapTimeSet.of(TimeSet.of(TestUtils.betweenHours(1, 6)), 5, ChronoUnit.MINUTES);
+    BitmapTimeSet other = BitmapTimeSet.of(TimeSet.of(TestUtils.betweenHours(4, 9)), 5, ChronoUnit.MINUTES);
+    BitmapTimeSet union = BitmapTimeSet.of(bitmap);
+    union.add(other);
+    assertTrue(union.toTimeSet().equals(TimeSet.of(TestUtils.betweenHours(1, 9))));
+    BitmapTimeSet intersection = BitmapTimeSet.of(bitmap);
+    intersection.intersect(other);
+    assertTrue(intersection.toTimeSet().equals(TimeSet.of(TestUtils.betweenHours(4, 6))));
+    bitmap.subtract(other);
+    assertTrue(bitmap.toTimeSet().equals(TimeSet.of(TestUtils.betweenHours(1, 4))));
+    assertEquals(36, bitmap.cardinality());
+    assertThrows(IllegalArgumentException.class, () -> bitmap.add(BitmapTimeSet.empty(15, ChronoUnit.MINUTES)));
+  }
+
+  @Test
+  void operations_matchTimeSet() {
+    Random random = new Random(18);
+    // Starts before the epoch, so negative ticks are covered too
+    LocalDateTime origin = LocalDateTime.of(1969, 6, 1, 0, 0);
+    for (int round = 0; round < 20; round++) {
+      TimeSet a = BitmapTimeSetTest.randomTimeSet(random, origin);
+      TimeSet b = BitmapTimeSetTest.randomTimeSet(random, origin);
+      BitmapTimeSet bitmapA = BitmapTimeSet.of(a, 5, ChronoUnit.MINUTES);
+      BitmapTimeSet bitmapB = BitmapTimeSet.of(b, 5, ChronoUnit.MINUTES);
+
+      TimeSet union = TimeSet.of(a);
+      union.add(b);
+      BitmapTimeSet bitmapUnion = BitmapTimeSet.of(bitmapA);
+      bitmapUnion.add(bitmapB);
+      assertEquals(union.length(ChronoUnit.MINUTES), bitmapUnion.length(ChronoUnit.MINUTES));
+      assertTrue(bitmapUnion.equals(BitmapTimeSet.of(union, 5, ChronoUnit.MINUTES)));
+
+      TimeSet intersection = TimeSet.of(a);
+      intersection.intersect(b);
+      BitmapTimeSet bitmapIntersection = BitmapTimeSet.of(bitmapA);
+      bitmapIntersection.intersect(bitmapB);
+      assertTrue(bitmapIntersection.equals(BitmapTimeSet.of(intersection, 5, ChronoUnit.MINUTES)));
+
+      TimeSet difference = TimeSet.of(a);
+      difference.subtract(b);
+      BitmapTimeSet bitmapDifference = BitmapTimeSet.of(bitmapA);
+      bitmapDifference.subtract(bitmapB);
+      assertTrue(bitmapDifference.equals(BitmapTimeSet.of(difference, 5, ChronoUnit.MINUTES)));
+      assertEquals(difference.length(ChronoUnit.MINUTES), bitmapDifference.length(ChronoUnit.MINUTES));
+      assertTrue(BitmapTimeSet.of(bitmapDifference.toTimeSet(), 5, ChronoUnit.MINUTES).equals(bitmapDifference));
+    }
+  }
+
+  private static TimeSet randomTimeSet(Random random, LocalDateTime origin) {
+    TimeSet timeSet = TimeSet.empty();
+    for (int i = 0; i < 200; i++) {
+      timeSet.add(TimeSlot.of(origin.plusMinutes(5L * random.nextInt(200_000)), 5L * (1 + random.nextInt(100)),
+                              ChronoUnit.MINUTES));
+    }
+    return timeSet;
+  }
+
+}
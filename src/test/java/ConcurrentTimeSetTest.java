@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentTimeSetTest {
+
+  @Test
+  void withStripes() {
+    assertThrows(IllegalArgumentException.class, () -> ConcurrentTimeSet.withStripes(1, ChronoUnit.MONTHS));
+    assertThrows(IllegalArgumentException.class, () -> ConcurrentTimeSet.withStripes(0, ChronoUnit.HOURS));
+  }
+
+  @Test
+  void add_acrossStripes() {
+    ConcurrentTimeSet cts = ConcurrentTimeSet.withStripes(4, ChronoUnit.HOURS);
+    cts.add(TestUtils.betweenHours(1, 10));
+    cts.add(TestUtils.betweenHours(13, 14));
+    TimeSet snapshot = cts.snapshot();
+    assertTrue(snapshot.equals(TimeSet.of(TestUtils.betweenHours(1, 10), TestUtils.betweenHours(13, 14))));
+    assertEquals(10, cts.length(ChronoUnit.HOURS));
+    assertTrue(cts.contains(TestUtils.dateAtHour(4)));
+    assertTrue(cts.contains(TestUtils.dateAtHour(8)));
+    assertFalse(cts.contains(TestUtils.dateAtHour(12)));
+    assertFalse(cts.contains(TestUtils.dateAtHour(10)));
+  }
+
+  @Test
+  void subtract_acrossStripes() {
+    ConcurrentTimeSet cts = ConcurrentTimeSet.withStripes(4, ChronoUnit.HOURS);
+    cts.add(TestUtils.betweenHours(0, 20));
+    cts.subtract(TestUtils.betweenHours(3, 9));
+    cts.subtract(TestUtils.betweenHours(12, 13));
+    assertTrue(cts.snapshot().equals(TimeSet.of(TestUtils.betweenHours(0, 3), TestUtils.betweenHours(9, 12),
+                                                TestUtils.betweenHours(13, 20))));
+    assertTrue(cts.snapshot(TestUtils.betweenHours(10, 14)).equals(TimeSet.of(TestUtils.betweenHours(10, 12),
+                                                                              TestUtils.betweenHours(13, 14))));
+    assertFalse(cts.contains(TestUtils.dateAtHour(4)));
+    assertTrue(cts.contains(TestUtils.dateAtHour(16)));
+  }
+
+  @Test
+  void add_touchingOnBoundary() {
+    ConcurrentTimeSet cts = ConcurrentTimeSet.empty();
+    LocalDateTime midnight = LocalDateTime.of(2020, 1, 2, 0, 0);
+    TimeSlot before = TimeSlot.of(midnight.minusHours(12), midnight);
+    TimeSlot after = TimeSlot.of(midnight, midnight.plusHours(12));
+    cts.add(before);
+    cts.add(after);
+    assertTrue(cts.snapshot().equals(TimeSet.of(before, after)));
+    assertEquals(2, cts.snapshot().size());
+    assertFalse(cts.contains(midnight));
+    assertTrue(cts.contains(midnight.minusHours(1)));
+    assertTrue(cts.contains(midnight.plusHours(1)));
+  }
+
+  @Test
+  void addAndSubtract_onBoundary_matchesTimeSet() {
+    ConcurrentTimeSet cts = ConcurrentTimeSet.withStripes(4, ChronoUnit.HOURS);
+    TimeSet ts = TimeSet.empty();
+    TimeSlot atEight = TimeSlot.of(TestUtils.dateAtHour(8), TestUtils.dateAtHour(8));
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(2, 4));
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(4, 6));
+    ConcurrentTimeSetTest.add(cts, ts, atEight);
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(3, 5));
+    ConcurrentTimeSetTest.subtract(cts, ts, TimeSlot.of(TestUtils.dateAtHour(4), TestUtils.dateAtHour(4)));
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(7, 10));
+    ConcurrentTimeSetTest.add(cts, ts, atEight);
+    ConcurrentTimeSetTest.subtract(cts, ts, TestUtils.betweenHours(7, 8));
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(7, 8));
+    ConcurrentTimeSetTest.add(cts, ts, atEight);
+    ConcurrentTimeSetTest.subtract(cts, ts, TestUtils.betweenHours(8, 9));
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(8, 9));
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(6, 9));
+    ConcurrentTimeSetTest.subtract(cts, ts, TestUtils.betweenHours(2, 12));
+    ConcurrentTimeSetTest.add(cts, ts, atEight);
+    ConcurrentTimeSetTest.add(cts, ts, TestUtils.betweenHours(6, 7));
+    ConcurrentTimeSetTest.subtract(cts, ts, TestUtils.betweenHours(5, 13));
+  }
+
+  private static void add(ConcurrentTimeSet cts, TimeSet ts, TimeSlot timeSlot) {
+    cts.add(timeSlot);
+    ts.add(timeSlot);
+    ConcurrentTimeSetTest.assertSame(cts, ts);
+  }
+
+  private static void subtract(ConcurrentTimeSet cts, TimeSet ts, TimeSlot timeSlot) {
+    cts.subtract(timeSlot);
+    ts.subtract(timeSlot);
+    ConcurrentTimeSetTest.assertSame(cts, ts);
+  }
+
+  private static void assertSame(ConcurrentTimeSet cts, TimeSet ts) {
+    assertTrue(cts.snapshot().equals(ts));
+    for (int hour = 0; hour <= 12; hour += 4) {
+      assertEquals(ts.contains(TestUtils.dateAtHour(hour)), cts.contains(TestUtils.dateAtHour(hour)));
+    }
+  }
+
+  @Test
+  void concurrentWriters() throws Exception {
+    ConcurrentTimeSet cts = ConcurrentTimeSet.empty();
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        int offset = thread;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 2000; i++) {
+            LocalDateTime start = origin.plusMinutes((i * 8L + offset) * 45);
+            cts.add(TimeSlot.of(start, 30, ChronoUnit.MINUTES));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    TimeSet expected = TimeSet.empty();
+    for (int i = 0; i < 16000; i++) {
+      expected.add(TimeSlot.of(origin.plusMinutes(i * 45L), 30, ChronoUnit.MINUTES));
+    }
+    assertTrue(cts.snapshot().equals(expected));
+  }
+
+}
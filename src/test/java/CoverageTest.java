@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class CoverageTest {
+
+  @Test
+  void steps() {
+    Coverage coverage = Coverage.of(TimeSet.of(TestUtils.betweenHours(1, 5)),
+                                    TimeSet.of(TestUtils.betweenHours(2, 3), TestUtils.betweenHours(7, 8)),
+                                    TimeSet.of(TestUtils.betweenHours(2, 4)));
+    List<Coverage.Step> steps = coverage.getSteps();
+    assertEquals(5, steps.size());
+    assertTrue(steps.get(0).getTimeSlot().equals(TestUtils.betweenHours(1, 2)));
+    assertEquals(1, steps.get(0).getDepth());
+    assertTrue(steps.get(1).getTimeSlot().equals(TestUtils.betweenHours(2, 3)));
+    assertEquals(3, steps.get(1).getDepth());
+    assertEquals(2, steps.get(2).getDepth());
+    assertEquals(1, steps.get(3).getDepth());
+    assertTrue(steps.get(4).getTimeSlot().equals(TestUtils.betweenHours(7, 8)));
+    assertEquals(3, coverage.maxDepth());
+  }
+
+  @Test
+  void depthAt() {
+    Coverage coverage = Coverage.of(TimeSet.of(TestUtils.betweenHours(1, 5)), TimeSet.of(TestUtils.betweenHours(3, 6)));
+    assertEquals(0, coverage.depthAt(TestUtils.dateAtHour(0)));
+    assertEquals(0, coverage.depthAt(TestUtils.dateAtHour(1)));
+    assertEquals(1, coverage.depthAt(TestUtils.dateAtHour(3)));
+    assertEquals(2, coverage.depthAt(TestUtils.dateAtHour(4)));
+    assertEquals(1, coverage.depthAt(TestUtils.dateAtHour(5)));
+    assertEquals(0, coverage.depthAt(TestUtils.dateAtHour(7)));
+  }
+
+  @Test
+  void atLeast() {
+    Coverage coverage = Coverage.of(TimeSet.of(TestUtils.betweenHours(1, 5)), TimeSet.of(TestUtils.betweenHours(3, 6)),
+                                    TimeSet.of(TestUtils.betweenHours(4, 9)), TimeSet.of(TestUtils.betweenHours(5, 7)));
+    assertTrue(coverage.atLeast(2).equals(TimeSet.of(TestUtils.betweenHours(3, 7))));
+    // At hour 5 one time slot ends as another starts, so only two time sets contain it
+    assertTrue(coverage.atLeast(3).equals(TimeSet.of(TestUtils.betweenHours(4, 5), TestUtils.betweenHours(5, 6))));
+    assertTrue(coverage.atLeast(5).equals(TimeSet.empty()));
+    assertThrows(IllegalArgumentException.class, () -> coverage.atLeast(0));
+  }
+
+  @Test
+  void atLeast_touching() {
+    Coverage coverage = Coverage.of(TimeSet.of(TestUtils.betweenHours(1, 3)), TimeSet.of(TestUtils.betweenHours(3, 5)));
+    assertTrue(coverage.atLeast(1).equals(TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(3, 5))));
+    assertEquals(2, coverage.getSteps().size());
+    assertTrue(Coverage.of(Collections.emptyList()).atLeast(1).equals(TimeSet.empty()));
+  }
+
+  @Test
+  void atLeast_matchesUnionAndIntersection() {
+    Random random = new Random(11);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    List<TimeSet> timeSets = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      TimeSet timeSet = TimeSet.empty();
+      for (int j = 0; j < 40; j++) {
+        timeSet.add(TimeSlot.of(origin.plusMinutes(random.nextInt(2000)), 1 + random.nextInt(200), ChronoUnit.MINUTES));
+      }
+      timeSets.add(timeSet);
+    }
+    Coverage coverage = Coverage.of(timeSets);
+    assertTrue(coverage.atLeast(1).equals(TimeSet.union(timeSets)));
+    assertTrue(coverage.atLeast(12).equals(TimeSet.intersection(timeSets)));
+    List<TimeSet> threeOrMore = new ArrayList<>();
+    for (int a = 0; a < 12; a++) {
+      for (int b = a + 1; b < 12; b++) {
+        for (int c = b + 1; c < 12; c++) {
+          threeOrMore.add(TimeSet.intersection(Arrays.asList(timeSets.get(a), timeSets.get(b), timeSets.get(c))));
+        }
+      }
+    }
+    assertEquals(TimeSet.union(threeOrMore).length(ChronoUnit.MINUTES), coverage.atLeast(3).length(ChronoUnit.MINUTES));
+  }
+
+}
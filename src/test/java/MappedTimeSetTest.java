@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedTimeSetTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void appendAndQuery() throws IOException {
+    Path path = this.directory.resolve("set");
+    try (MappedTimeSet mapped = MappedTimeSet.open(path)) {
+      mapped.append(TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 8)));
+      mapped.append(TestUtils.betweenHours(7, 9));
+      mapped.append(TestUtils.betweenHours(9, 10));
+      assertThrows(IllegalArgumentException.class, () -> mapped.append(TestUtils.betweenHours(2, 4)));
+      assertEquals(3, mapped.size());
+      assertTrue(mapped.contains(TestUtils.dateAtHour(2)));
+      assertFalse(mapped.contains(TestUtils.dateAtHour(9)));
+      assertFalse(mapped.contains(TestUtils.dateAtHour(4)));
+      assertEquals(7, mapped.length(ChronoUnit.HOURS));
+    }
+    try (MappedTimeSet mapped = MappedTimeSet.openReadOnly(path)) {
+      assertEquals(3, mapped.size());
+      assertTrue(mapped.slice(TestUtils.betweenHours(2, 6)).equals(TimeSet.of(TestUtils.betweenHours(2, 3),
+                                                                              TestUtils.betweenHours(5, 6))));
+      assertTrue(mapped.view().materialize().equals(TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 9),
+                                                               TestUtils.betweenHours(9, 10))));
+      assertThrows(UnsupportedOperationException.class, () -> mapped.append(TestUtils.betweenHours(11, 12)));
+    }
+  }
+
+  @Test
+  void close_truncatesToTimeSlots() throws IOException {
+    Path path = this.directory.resolve("set");
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    try (MappedTimeSet mapped = MappedTimeSet.open(path, true, 64)) {
+      for (int hour = 0; hour < 34; hour += 2) {
+        mapped.append(TimeSlot.of(origin.plusHours(hour), 1, ChronoUnit.HOURS));
+      }
+    }
+    assertEquals(16 + 17 * 16, Files.size(path));
+    try (MappedTimeSet mapped = MappedTimeSet.open(path, true, 64)) {
+      assertEquals(17, mapped.size());
+      mapped.append(TimeSlot.of(origin.plusHours(40), 1, ChronoUnit.HOURS));
+    }
+    assertEquals(16 + 18 * 16, Files.size(path));
+    try (MappedTimeSet mapped = MappedTimeSet.openReadOnly(path)) {
+      assertEquals(18, mapped.length(ChronoUnit.HOURS));
+    }
+  }
+
+  @Test
+  void intersectAndSubtract() throws IOException {
+    Random random = new Random(16);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    TimeSet stored = TimeSet.empty();
+    for (int i = 0; i < 2000; i++) {
+      stored.add(TimeSlot.of(origin.plusMinutes(random.nextInt(100_000)), 1 + random.nextInt(60), ChronoUnit.MINUTES));
+    }
+    TimeSet query = TimeSet.empty();
+    for (int i = 0; i < 200; i++) {
+      query.add(TimeSlot.of(origin.plusMinutes(random.nextInt(100_000)), 1 + random.nextInt(300), ChronoUnit.MINUTES));
+    }
+    // Small chunks, so the set spans many of them and grows across their boundaries
+    try (MappedTimeSet mapped = MappedTimeSet.open(this.directory.resolve("set"), true, 64)) {
+      mapped.append(stored);
+      assertEquals(stored.getTimeSlots().size(), mapped.size());
+      TimeSet intersection = TimeSet.of(query);
+      intersection.intersect(stored);
+      assertTrue(mapped.intersect(query).equals(intersection));
+      TimeSet difference = TimeSet.of(query);
+      difference.subtract(stored);
+      assertTrue(mapped.subtractFrom(query).equals(difference));
+      assertEquals(stored.length(ChronoUnit.MINUTES), mapped.length(ChronoUnit.MINUTES));
+    }
+  }
+
+  @Test
+  void open_invalid() throws IOException {
+    Path path = this.directory.resolve("invalid");
+    Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+    assertThrows(IOException.class, () -> MappedTimeSet.open(path));
+    Path chunked = this.directory.resolve("chunked");
+    assertThrows(IllegalArgumentException.class, () -> MappedTimeSet.open(chunked, true, 0));
+    assertThrows(IllegalArgumentException.class, () -> MappedTimeSet.open(chunked, true, 48));
+    assertFalse(Files.exists(chunked));
+  }
+
+}
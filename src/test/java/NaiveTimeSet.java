@@ -0,0 +1,279 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * A brute force reference for the time set operations, used to check the real ones against.
+ *
+ * It shares no code with them, and works on every pair of time slots rather than on ordered lists. union,
+ * intersection and difference keep the rules of a TimeSet, slot by slot: two time slots are only combined when they
+ * overlap, so touching time slots stay apart, a time slot of no length is kept unless it is strictly inside another,
+ * and equal time slots are kept once. Compare their results against the real time slots with same.
+ *
+ * atLeast and coalesce only look at the time covered, with touching time slots joined and empty ones dropped, for the
+ * operations that do not keep time slots apart, such as Coverage and BitmapTimeSet.
+ */
+public final class NaiveTimeSet {
+
+  private static final Comparator<long[]> START_ORDER =
+      Comparator.<long[]>comparingLong(slot -> slot[0]).thenComparingLong(slot -> slot[1]);
+
+  private NaiveTimeSet() {
+  }
+
+  /**
+   * Returns the union of a list of inputs, as a TimeSet would hold it. Time slots that overlap, directly or through
+   * others, become one time slot from the earliest start to the latest end.
+   */
+  static List<TimeSlot> union(List<List<TimeSlot>> inputs) {
+    List<long[]> slots = new ArrayList<>();
+    for (List<TimeSlot> input : inputs) {
+      slots.addAll(NaiveTimeSet.toNanos(input));
+    }
+    return NaiveTimeSet.toTimeSlots(NaiveTimeSet.combine(slots));
+  }
+
+  /**
+   * Returns the intersection of a list of inputs, as a TimeSet would hold it. Every pair of overlapping time slots, one
+   * from each side, gives the time slot from the later start to the earlier end.
+   */
+  static List<TimeSlot> intersection(List<List<TimeSlot>> inputs) {
+    List<long[]> result = NaiveTimeSet.combine(NaiveTimeSet.toNanos(inputs.get(0)));
+    for (List<TimeSlot> input : inputs.subList(1, inputs.size())) {
+      List<long[]> intersections = new ArrayList<>();
+      for (long[] first : result) {
+        for (long[] second : NaiveTimeSet.combine(NaiveTimeSet.toNanos(input))) {
+          if (NaiveTimeSet.overlap(first, second)) {
+            intersections.add(new long[] {Math.max(first[0], second[0]), Math.min(first[1], second[1])});
+          }
+        }
+      }
+      intersections.sort(START_ORDER);
+      result = intersections;
+    }
+    return NaiveTimeSet.toTimeSlots(result);
+  }
+
+  /**
+   * Returns a list of time slots with others removed, as a TimeSet would hold it. Each time slot loses the time of the
+   * removals overlapping it, and is cut in two by a removal of no length strictly inside it.
+   */
+  static List<TimeSlot> difference(List<TimeSlot> from, List<TimeSlot> removals) {
+    List<long[]> removed = NaiveTimeSet.combine(NaiveTimeSet.toNanos(removals));
+    List<long[]> results = new ArrayList<>();
+    for (long[] slot : NaiveTimeSet.combine(NaiveTimeSet.toNanos(from))) {
+      TreeSet<Long> points = new TreeSet<>(Arrays.asList(slot[0], slot[1]));
+      boolean gone = false;
+      for (long[] removal : removed) {
+        if (NaiveTimeSet.overlap(slot, removal)) {
+          gone |= slot[0] == slot[1];
+          for (long point : removal) {
+            if (slot[0] < point && point < slot[1]) {
+              points.add(point);
+            }
+          }
+        }
+      }
+      if (slot[0] == slot[1]) {
+        if (!gone) {
+          results.add(slot);
+        }
+        continue;
+      }
+      Long runStart = null;
+      Long previous = null;
+      for (long point : points) {
+        if (previous != null) {
+          if (runStart != null && NaiveTimeSet.cutsAt(removed, previous)) {
+            results.add(new long[] {runStart, previous});
+            runStart = null;
+          }
+          if (!NaiveTimeSet.removes(removed, previous, point)) {
+            runStart = runStart == null ? previous : runStart;
+          } else if (runStart != null) {
+            results.add(new long[] {runStart, previous});
+            runStart = null;
+          }
+        }
+        previous = point;
+      }
+      if (runStart != null) {
+        results.add(new long[] {runStart, previous});
+      }
+    }
+    return NaiveTimeSet.toTimeSlots(results);
+  }
+
+  /**
+   * Returns the time covered by at least a number of the inputs, with touching time slots joined and empty ones
+   * dropped.
+   */
+  static List<TimeSlot> atLeast(List<List<TimeSlot>> inputs, int depth) {
+    return NaiveTimeSet.covered(inputs, inside -> NaiveTimeSet.count(inside) >= depth);
+  }
+
+  /**
+   * Returns the time covered by a list of time slots, with touching time slots joined and empty ones dropped.
+   */
+  static List<TimeSlot> coalesce(Iterable<TimeSlot> timeSlots) {
+    List<TimeSlot> list = new ArrayList<>();
+    timeSlots.forEach(list::add);
+    return NaiveTimeSet.covered(Arrays.asList(list), inside -> inside[0]);
+  }
+
+  /**
+   * Returns true if a list of time slots is ordered by start and no two of them overlap.
+   */
+  static boolean isNormalized(List<TimeSlot> timeSlots) {
+    for (int i = 1; i < timeSlots.size(); i++) {
+      if (EpochNanos.of(timeSlots.get(i).getStart()) < EpochNanos.of(timeSlots.get(i - 1).getEnd())
+          || timeSlots.get(i).equals(timeSlots.get(i - 1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if two lists of time slots are the same, slot by slot.
+   */
+  static boolean same(List<TimeSlot> expected, Iterable<TimeSlot> actual) {
+    List<TimeSlot> list = new ArrayList<>();
+    actual.forEach(list::add);
+    if (expected.size() != list.size()) {
+      return false;
+    }
+    for (int i = 0; i < expected.size(); i++) {
+      if (!expected.get(i).equals(list.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns true if two time slots overlap: each starts before the other ends, or they are equal.
+   */
+  private static boolean overlap(long[] first, long[] second) {
+    return (first[0] < second[1] && second[0] < first[1]) || (first[0] == second[0] && first[1] == second[1]);
+  }
+
+  /**
+   * Combines every group of time slots that overlap, directly or through others, into one, by merging groups until
+   * no two of them overlap.
+   */
+  private static List<long[]> combine(List<long[]> slots) {
+    List<List<long[]>> groups = new ArrayList<>();
+    for (long[] slot : slots) {
+      List<long[]> group = new ArrayList<>();
+      group.add(slot);
+      for (int i = groups.size() - 1; i >= 0; i--) {
+        for (long[] other : groups.get(i)) {
+          if (NaiveTimeSet.overlap(slot, other)) {
+            group.addAll(groups.remove(i));
+            break;
+          }
+        }
+      }
+      groups.add(group);
+    }
+    List<long[]> combined = new ArrayList<>();
+    for (List<long[]> group : groups) {
+      long start = Long.MAX_VALUE;
+      long end = Long.MIN_VALUE;
+      for (long[] slot : group) {
+        start = Math.min(start, slot[0]);
+        end = Math.max(end, slot[1]);
+      }
+      combined.add(new long[] {start, end});
+    }
+    combined.sort(START_ORDER);
+    return combined;
+  }
+
+  private static boolean removes(List<long[]> removals, long from, long to) {
+    for (long[] removal : removals) {
+      if (removal[0] <= from && to <= removal[1] && removal[0] < removal[1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean cutsAt(List<long[]> removals, long point) {
+    for (long[] removal : removals) {
+      if (removal[0] == point && removal[1] == point) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<long[]> toNanos(List<TimeSlot> timeSlots) {
+    List<long[]> slots = new ArrayList<>();
+    for (TimeSlot timeSlot : timeSlots) {
+      slots.add(new long[] {EpochNanos.of(timeSlot.getStart()), EpochNanos.of(timeSlot.getEnd())});
+    }
+    return slots;
+  }
+
+  private static List<TimeSlot> toTimeSlots(List<long[]> slots) {
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    for (long[] slot : slots) {
+      timeSlots.add(TimeSlot.of(EpochNanos.toDateTime(slot[0]), EpochNanos.toDateTime(slot[1])));
+    }
+    return timeSlots;
+  }
+
+  private static int count(boolean[] inside) {
+    int count = 0;
+    for (boolean in : inside) {
+      count += in ? 1 : 0;
+    }
+    return count;
+  }
+
+  private static List<TimeSlot> covered(List<List<TimeSlot>> inputs, Predicate<boolean[]> rule) {
+    List<long[][]> endpoints = new ArrayList<>();
+    TreeSet<Long> boundaries = new TreeSet<>();
+    for (List<TimeSlot> input : inputs) {
+      long[][] pairs = new long[input.size()][];
+      for (int i = 0; i < input.size(); i++) {
+        pairs[i] = new long[] {EpochNanos.of(input.get(i).getStart()), EpochNanos.of(input.get(i).getEnd())};
+        boundaries.add(pairs[i][0]);
+        boundaries.add(pairs[i][1]);
+      }
+      endpoints.add(pairs);
+    }
+    List<TimeSlot> results = new ArrayList<>();
+    Long runStart = null;
+    Long previous = null;
+    for (long boundary : boundaries) {
+      if (previous != null) {
+        boolean[] inside = new boolean[inputs.size()];
+        for (int k = 0; k < inputs.size(); k++) {
+          for (long[] pair : endpoints.get(k)) {
+            if (pair[0] <= previous && previous < pair[1]) {
+              inside[k] = true;
+              break;
+            }
+          }
+        }
+        if (rule.test(inside)) {
+          runStart = runStart == null ? previous : runStart;
+        } else if (runStart != null) {
+          results.add(TimeSlot.of(EpochNanos.toDateTime(runStart), EpochNanos.toDateTime(previous)));
+          runStart = null;
+        }
+      }
+      previous = boundary;
+    }
+    if (runStart != null) {
+      results.add(TimeSlot.of(EpochNanos.toDateTime(runStart), EpochNanos.toDateTime(previous)));
+    }
+    return results;
+  }
+}
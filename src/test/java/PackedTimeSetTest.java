@@ -0,0 +1,119 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PackedTimeSetTest {
+
+  @Test
+  void empty() {
+    PackedTimeSet pts = PackedTimeSet.empty();
+    assertEquals(0, pts.size());
+    assertEquals(0, pts.getTimeSlots().size());
+  }
+
+  @Test
+  void of() {
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(4, 6), TestUtils.betweenHours(0, 2), TestUtils.betweenHours(1, 3));
+    List<TimeSlot> timeSlots = pts.getTimeSlots();
+    assertEquals(2, timeSlots.size());
+    assertTrue(timeSlots.get(0).equals(TestUtils.betweenHours(0, 3)));
+    assertTrue(timeSlots.get(1).equals(TestUtils.betweenHours(4, 6)));
+    PackedTimeSet pts1 = PackedTimeSet.of(pts);
+    pts.add(TestUtils.betweenHours(8, 9));
+    assertEquals(3, pts.size());
+    assertEquals(2, pts1.size());
+  }
+
+  @Test
+  void timeSet() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 3), TestUtils.betweenHours(5, 7));
+    PackedTimeSet pts = PackedTimeSet.of(ts);
+    assertTrue(pts.toTimeSet().equals(ts));
+    LocalDateTime precise = LocalDateTime.of(1800, 6, 1, 12, 30, 15, 123_456_789);
+    TimeSlot t = TimeSlot.of(precise, 1, ChronoUnit.NANOS);
+    assertTrue(PackedTimeSet.of(t).getTimeSlots().get(0).equals(t));
+  }
+
+  @Test
+  void length() {
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(0, 5), TestUtils.betweenHours(12, 15));
+    assertEquals(8, pts.length(ChronoUnit.HOURS));
+    assertEquals(8 * 60, pts.length(ChronoUnit.MINUTES));
+    assertEquals(0, pts.length(ChronoUnit.DAYS));
+    assertEquals(0, pts.length(ChronoUnit.MONTHS));
+  }
+
+  @Test
+  void length_longerThanLongOfNanos() {
+    LocalDateTime start = LocalDateTime.of(1700, 1, 1, 0, 0, 0, 500_000_000);
+    LocalDateTime end = LocalDateTime.of(2200, 1, 1, 0, 0, 0, 250_000_000);
+    PackedTimeSet pts = PackedTimeSet.of(TimeSlot.of(start, end));
+    assertEquals(ChronoUnit.DAYS.between(start, end), pts.length(ChronoUnit.DAYS));
+    assertEquals(ChronoUnit.SECONDS.between(start, end), pts.length(ChronoUnit.SECONDS));
+  }
+
+  @Test
+  void add_list() {
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(0, 5), TestUtils.betweenHours(8, 10));
+    PackedTimeSet pts1 = PackedTimeSet.of(TestUtils.betweenHours(9, 12), TestUtils.betweenHours(15, 22));
+    PackedTimeSet pts2 = PackedTimeSet.of(TestUtils.betweenHours(20, 23));
+    PackedTimeSet pts3 = PackedTimeSet.of(TestUtils.betweenHours(5, 6));
+    pts.add(pts1, pts2, pts3);
+    assertTrue(pts.equals(PackedTimeSet.of(TestUtils.betweenHours(0, 5), TestUtils.betweenHours(5, 6),
+                                           TestUtils.betweenHours(8, 12), TestUtils.betweenHours(15, 23))));
+    assertEquals(4, pts.size());
+  }
+
+  @Test
+  void subtract_list() {
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(0, 14));
+    PackedTimeSet pts1 = PackedTimeSet.of(TestUtils.betweenHours(1, 5), TestUtils.betweenHours(14, 15));
+    PackedTimeSet pts2 = PackedTimeSet.of(TestUtils.betweenHours(6, 12));
+    pts.subtract(pts1, pts2);
+    assertTrue(pts.equals(PackedTimeSet.of(TestUtils.betweenHours(0, 1), TestUtils.betweenHours(5, 6),
+                                           TestUtils.betweenHours(12, 14))));
+    pts.subtract(TestUtils.betweenHours(0, 13));
+    assertTrue(pts.equals(PackedTimeSet.of(TestUtils.betweenHours(13, 14))));
+  }
+
+  @Test
+  void intersect_list() {
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(0, 18));
+    PackedTimeSet pts1 = PackedTimeSet.of(TestUtils.betweenHours(1, 5), TestUtils.betweenHours(14, 20));
+    PackedTimeSet pts2 = PackedTimeSet.of(TestUtils.betweenHours(2, 3), TestUtils.betweenHours(12, 15));
+    pts.intersect(pts1, pts2);
+    assertTrue(pts.equals(PackedTimeSet.of(TestUtils.betweenHours(2, 3), TestUtils.betweenHours(14, 15))));
+    PackedTimeSet pts3 = PackedTimeSet.of(TestUtils.betweenHours(0, 18));
+    assertTrue(PackedTimeSet.intersection(Arrays.asList(pts1, pts2, pts3)).equals(pts));
+    pts.intersect(TestUtils.betweenHours(3, 14));
+    assertEquals(0, pts.size());
+  }
+
+  @Test
+  void intersect_noLengthAtSharedEnd() {
+    TimeSlot atFour = TimeSlot.of(TestUtils.dateAtHour(4), TestUtils.dateAtHour(4));
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(0, 4), atFour);
+    pts.intersect(PackedTimeSet.of(TestUtils.betweenHours(2, 4), atFour));
+    assertTrue(pts.equals(PackedTimeSet.of(TestUtils.betweenHours(2, 4), atFour)));
+    PackedTimeSet pts1 = PackedTimeSet.of(atFour);
+    pts1.intersect(PackedTimeSet.of(TestUtils.betweenHours(2, 4), atFour));
+    assertTrue(pts1.equals(PackedTimeSet.of(atFour)));
+  }
+
+  @Test
+  void equals() {
+    PackedTimeSet pts = PackedTimeSet.of(TestUtils.betweenHours(2, 5), TestUtils.betweenHours(12, 15));
+    PackedTimeSet pts1 = PackedTimeSet.of(TestUtils.betweenHours(12, 15), TestUtils.betweenHours(2, 5),
+                                          TestUtils.betweenHours(3, 5));
+    assertTrue(pts.equals(pts1));
+    pts1.add(TestUtils.betweenHours(13, 16));
+    assertFalse(pts.equals(pts1));
+  }
+
+}
@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class PersistentTimeSetTest {
+
+  @Test
+  void empty() {
+    assertEquals(0, PersistentTimeSet.empty().size());
+    assertSame(PersistentTimeSet.empty(), PersistentTimeSet.of(new ArrayList<>()));
+  }
+
+  @Test
+  void add() {
+    PersistentTimeSet pts = PersistentTimeSet.of(TestUtils.betweenHours(0, 2), TestUtils.betweenHours(4, 6));
+    PersistentTimeSet pts1 = pts.add(TestUtils.betweenHours(1, 5));
+    assertEquals(2, pts.size());
+    assertEquals(1, pts1.size());
+    assertTrue(pts1.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 6)));
+    PersistentTimeSet pts2 = pts.add(TestUtils.betweenHours(2, 4));
+    assertEquals(3, pts2.size());
+    assertTrue(pts2.add(pts1).equals(pts1));
+  }
+
+  @Test
+  void subtract() {
+    PersistentTimeSet pts = PersistentTimeSet.of(TestUtils.betweenHours(0, 4), TestUtils.betweenHours(6, 10));
+    PersistentTimeSet pts1 = pts.subtract(TestUtils.betweenHours(3, 7));
+    assertTrue(pts1.equals(PersistentTimeSet.of(TestUtils.betweenHours(0, 3), TestUtils.betweenHours(7, 10))));
+    assertTrue(pts.equals(PersistentTimeSet.of(TestUtils.betweenHours(0, 4), TestUtils.betweenHours(6, 10))));
+    assertSame(pts, pts.subtract(TestUtils.betweenHours(4, 6)));
+    PersistentTimeSet pts2 = pts.subtract(PersistentTimeSet.of(TestUtils.betweenHours(1, 2), TestUtils.betweenHours(8, 12)));
+    assertTrue(pts2.equals(PersistentTimeSet.of(TestUtils.betweenHours(0, 1), TestUtils.betweenHours(2, 4),
+                                                TestUtils.betweenHours(6, 8))));
+  }
+
+  @Test
+  void intersect() {
+    PersistentTimeSet pts = PersistentTimeSet.of(TestUtils.betweenHours(0, 4), TestUtils.betweenHours(6, 10),
+                                                 TestUtils.betweenHours(12, 14));
+    assertTrue(pts.intersect(TestUtils.betweenHours(2, 13)).equals(
+        PersistentTimeSet.of(TestUtils.betweenHours(2, 4), TestUtils.betweenHours(6, 10), TestUtils.betweenHours(12, 13))));
+    assertEquals(0, pts.intersect(TestUtils.betweenHours(4, 6)).size());
+    PersistentTimeSet pts1 = PersistentTimeSet.of(TestUtils.betweenHours(3, 7), TestUtils.betweenHours(9, 13));
+    assertTrue(pts.intersect(pts1).equals(PersistentTimeSet.of(TestUtils.betweenHours(3, 4), TestUtils.betweenHours(6, 7),
+                                                               TestUtils.betweenHours(9, 10), TestUtils.betweenHours(12, 13))));
+    assertTrue(pts1.intersect(pts).equals(pts.intersect(pts1)));
+  }
+
+  @Test
+  void intersect_noLength() {
+    TimeSlot atFour = TimeSlot.of(TestUtils.dateAtHour(4), TestUtils.dateAtHour(4));
+    PersistentTimeSet pts = PersistentTimeSet.of(TestUtils.betweenHours(2, 4), atFour, TestUtils.betweenHours(4, 6));
+    assertTrue(pts.intersect(atFour).equals(PersistentTimeSet.of(atFour)));
+    assertTrue(pts.intersect(PersistentTimeSet.of(atFour)).equals(PersistentTimeSet.of(atFour)));
+    TimeSlot atThree = TimeSlot.of(TestUtils.dateAtHour(3), TestUtils.dateAtHour(3));
+    assertTrue(pts.intersect(atThree).equals(PersistentTimeSet.of(atThree)));
+    assertEquals(0, pts.intersect(TimeSlot.of(TestUtils.dateAtHour(2), TestUtils.dateAtHour(2))).size());
+  }
+
+  @Test
+  void contains_date() {
+    PersistentTimeSet pts = PersistentTimeSet.of(TestUtils.betweenHours(0, 4), TestUtils.betweenHours(6, 10));
+    assertTrue(pts.contains(TestUtils.dateAtHour(7)));
+    assertFalse(pts.contains(TestUtils.dateAtHour(4)));
+    assertFalse(pts.contains(TestUtils.dateAtHour(5)));
+  }
+
+  @Test
+  void matchesTimeSet() {
+    Random random = new Random(8);
+    TimeSet ts = TimeSet.empty();
+    PersistentTimeSet pts = PersistentTimeSet.empty();
+    List<PersistentTimeSet> versions = new ArrayList<>();
+    List<TimeSet> expectedVersions = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      TimeSlot timeSlot = TimeSlot.of(TestUtils.dateAtHour(0).plusMinutes(random.nextInt(20_000)),
+                                      random.nextInt(120), ChronoUnit.MINUTES);
+      switch (random.nextInt(20)) {
+        case 0:
+          TimeSlot window = TimeSlot.of(timeSlot.getStart(), 5_000, ChronoUnit.MINUTES);
+          ts.intersect(window);
+          pts = pts.intersect(window);
+          break;
+        case 1:
+        case 2:
+        case 3:
+        case 4:
+        case 5:
+          ts.subtract(timeSlot);
+          pts = pts.subtract(timeSlot);
+          break;
+        default:
+          ts.add(timeSlot);
+          pts = pts.add(timeSlot);
+      }
+      if (i % 500 == 0) {
+        versions.add(pts);
+        expectedVersions.add(TimeSet.of(ts));
+      }
+      assertTrue(pts.toTimeSet().equals(ts));
+      assertEquals(ts.length(ChronoUnit.MINUTES), pts.length(ChronoUnit.MINUTES));
+    }
+    for (int i = 0; i < versions.size(); i++) {
+      assertTrue(versions.get(i).toTimeSet().equals(expectedVersions.get(i)));
+    }
+  }
+
+  @Test
+  void manyTimeSlots() {
+    PersistentTimeSet pts = PersistentTimeSet.empty();
+    for (int i = 0; i < 100_000; i++) {
+      pts = pts.add(TimeSlot.of(TestUtils.dateAtHour(0).plusMinutes(i * 2L), 1, ChronoUnit.MINUTES));
+    }
+    assertEquals(100_000, pts.size());
+    PersistentTimeSet window = pts.intersect(TimeSlot.of(TestUtils.dateAtHour(0).plusMinutes(1000), 100, ChronoUnit.MINUTES));
+    assertEquals(50, window.size());
+    assertEquals(50, window.length(ChronoUnit.MINUTES));
+  }
+
+}
@@ -0,0 +1,74 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import org.junit.jupiter.api.Test;
+
+public class RecurringScheduleTest {
+
+  private static final RecurringSchedule BUSINESS_HOURS = RecurringSchedule.weekly(
+      LocalTime.of(9, 0), LocalTime.of(17, 0),
+      DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+
+  @Test
+  void on() {
+    // 2020-01-01 is a Wednesday
+    LocalDate wednesday = LocalDate.of(2020, 1, 1);
+    assertTrue(BUSINESS_HOURS.on(wednesday).equals(TestUtils.betweenHours(9, 17)));
+    assertNull(BUSINESS_HOURS.on(wednesday.plusDays(3)));
+    assertNull(BUSINESS_HOURS.except(wednesday).on(wednesday));
+  }
+
+  @Test
+  void between() {
+    LocalDateTime monday = LocalDateTime.of(2020, 1, 6, 0, 0);
+    TimeSet week = BUSINESS_HOURS.except(LocalDate.of(2020, 1, 8)).between(TimeSlot.of(monday, 7, ChronoUnit.DAYS));
+    assertEquals(4, week.getTimeSlots().size());
+    assertEquals(32, week.length(ChronoUnit.HOURS));
+    TimeSet clipped = BUSINESS_HOURS.between(TimeSlot.of(monday.plusHours(12), monday.plusHours(34)));
+    assertTrue(clipped.equals(TimeSet.of(TimeSlot.of(monday.plusHours(12), monday.plusHours(17)),
+                                         TimeSlot.of(monday.plusHours(33), monday.plusHours(34)))));
+  }
+
+  @Test
+  void crossesMidnight() {
+    RecurringSchedule nights = RecurringSchedule.daily(LocalTime.of(22, 0), LocalTime.of(6, 0));
+    TimeSet nightsInDay = nights.between(TestUtils.betweenHours(0, 23));
+    assertTrue(nightsInDay.equals(TimeSet.of(TestUtils.betweenHours(0, 6), TestUtils.betweenHours(22, 23))));
+    assertTrue(nights.contains(TestUtils.dateAtHour(3)));
+    assertFalse(nights.contains(TestUtils.dateAtHour(12)));
+    RecurringSchedule days = RecurringSchedule.daily(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT);
+    assertTrue(days.on(LocalDate.of(2020, 1, 1)).equals(TimeSlot.of(LocalDate.of(2020, 1, 1))));
+  }
+
+  @Test
+  void intersect() {
+    LocalDateTime start = LocalDateTime.of(2020, 1, 6, 12, 0);
+    TimeSet timeSet = TimeSet.of(TimeSlot.of(start, 2, ChronoUnit.DAYS), TimeSlot.of(start.plusYears(50), 1, ChronoUnit.HOURS));
+    TimeSet intersection = BUSINESS_HOURS.intersect(timeSet);
+    assertEquals(4, intersection.getTimeSlots().size());
+    assertEquals(5 + 8 + 3 + 1, intersection.length(ChronoUnit.HOURS));
+    TimeSet remaining = BUSINESS_HOURS.subtractFrom(timeSet);
+    assertEquals(48 + 1 - intersection.length(ChronoUnit.HOURS), remaining.length(ChronoUnit.HOURS));
+    assertEquals(2, timeSet.getTimeSlots().size());
+  }
+
+  @Test
+  void view_isLazy() {
+    LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+    TimeSetView view = BUSINESS_HOURS.view(TimeSlot.of(start, start.plusYears(100)));
+    Iterator<TimeSlot> iterator = view.iterator();
+    assertTrue(iterator.next().equals(TestUtils.betweenHours(9, 17)));
+    TimeSet timeSet = TimeSet.of(TestUtils.betweenHours(8, 10), TestUtils.betweenHours(16, 20));
+    assertTrue(view.intersect(timeSet.view()).materialize().equals(TimeSet.of(TestUtils.betweenHours(9, 10),
+                                                                               TestUtils.betweenHours(16, 17))));
+  }
+
+}
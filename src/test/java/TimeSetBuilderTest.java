@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class TimeSetBuilderTest {
+
+  @Test
+  void empty() {
+    TimeSetBuilder builder = TimeSetBuilder.empty();
+    assertEquals(0, builder.size());
+    assertEquals(0, builder.build().size());
+    assertEquals(0, builder.buildPacked().size());
+    assertThrows(IllegalArgumentException.class, () -> TimeSetBuilder.withCapacity(-1));
+  }
+
+  @Test
+  void build() {
+    TimeSet ts = TimeSetBuilder.empty()
+                               .add(TestUtils.betweenHours(4, 6))
+                               .add(TestUtils.dateAtHour(3), TestUtils.dateAtHour(1))
+                               .add(TestUtils.betweenHours(0, 2))
+                               .add(TestUtils.betweenHours(6, 8))
+                               .add(TestUtils.betweenHours(6, 8))
+                               .build();
+    assertEquals(3, ts.size());
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 3)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(4, 6)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(6, 8)));
+    assertEquals(7, ts.length(ChronoUnit.HOURS));
+  }
+
+  @Test
+  void build_epochNanos() {
+    LocalDateTime precise = LocalDateTime.of(1800, 6, 1, 12, 30, 15, 123_456_789);
+    long nanos = EpochNanos.of(precise);
+    TimeSetBuilder builder = TimeSetBuilder.withCapacity(0).add(nanos, nanos + 1);
+    assertTrue(builder.build().getTimeSlots().get(0).equals(TimeSlot.of(precise, 1, ChronoUnit.NANOS)));
+    builder.add(nanos - 5, nanos);
+    assertTrue(builder.buildPacked().equals(PackedTimeSet.of(TimeSlot.of(precise.minusNanos(5), 5, ChronoUnit.NANOS),
+                                                             TimeSlot.of(precise, 1, ChronoUnit.NANOS))));
+  }
+
+  @Test
+  void build_again() {
+    TimeSetBuilder builder = TimeSetBuilder.empty().add(TestUtils.betweenHours(5, 7)).add(TestUtils.betweenHours(1, 3));
+    assertEquals(2, builder.build().size());
+    builder.add(TestUtils.betweenHours(2, 6));
+    TimeSet ts = builder.build();
+    assertTrue(ts.equals(TimeSet.of(TestUtils.betweenHours(1, 7))));
+    assertEquals(1, builder.size());
+  }
+
+  @Test
+  void build_matchesTimeSet() {
+    Random random = new Random(20);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    TimeSetBuilder builder = TimeSetBuilder.empty();
+    for (int i = 0; i < 20_000; i++) {
+      TimeSlot timeSlot = TimeSlot.of(origin.plusMinutes(random.nextInt(1_000_000)), random.nextInt(300), ChronoUnit.MINUTES);
+      timeSlots.add(timeSlot);
+      builder.add(timeSlot);
+    }
+    TimeSet expected = TimeSet.of(timeSlots);
+    assertTrue(builder.build().equals(expected));
+    assertTrue(builder.buildPacked().equals(PackedTimeSet.of(expected)));
+  }
+}
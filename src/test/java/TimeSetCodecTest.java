@@ -0,0 +1,120 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class TimeSetCodecTest {
+
+  @Test
+  void roundTrip() throws IOException {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(3, 5), TestUtils.betweenHours(8, 9),
+                            TimeSlot.of(TestUtils.dateAtHour(10), TestUtils.dateAtHour(10)),
+                            TimeSlot.of(LocalDateTime.of(1969, 7, 20, 20, 17, 40, 123), 1, ChronoUnit.NANOS));
+    assertTrue(TimeSetCodec.fromBytes(TimeSetCodec.toBytes(ts)).equals(ts));
+    assertTrue(TimeSetCodec.fromBytes(TimeSetCodec.toBytes(ts, ChronoUnit.NANOS, true)).equals(ts));
+    assertTrue(TimeSetCodec.fromBytes(TimeSetCodec.toBytes(TimeSet.empty())).equals(TimeSet.empty()));
+  }
+
+  @Test
+  void roundTrip_manyBlocks() throws IOException {
+    Random random = new Random(15);
+    TimeSet ts = TimeSet.empty();
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    for (int i = 0; i < 20_000; i++) {
+      ts.add(TimeSlot.of(origin.plusMinutes(random.nextInt(10_000_000)), 1 + random.nextInt(60), ChronoUnit.MINUTES));
+    }
+    for (boolean compress : new boolean[] {false, true}) {
+      byte[] bytes = TimeSetCodec.toBytes(ts, ChronoUnit.MINUTES, compress);
+      assertTrue(TimeSetCodec.fromBytes(bytes).equals(ts));
+      assertTrue(bytes.length < ts.getTimeSlots().size() * 6);
+      assertTrue(TimeSetCodec.decode(Channels.newChannel(new ByteArrayInputStream(bytes))).equals(ts));
+    }
+  }
+
+  @Test
+  void decode_endpoints() throws IOException {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 6));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    TimeSetCodec.encode(ts.view(), Channels.newChannel(bytes), ChronoUnit.SECONDS, false);
+    AtomicLong total = new AtomicLong();
+    TimeSetCodec.decode(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())),
+                        (start, end) -> total.addAndGet(end - start));
+    assertEquals(ChronoUnit.HOURS.getDuration().toNanos() * 3, total.get());
+  }
+
+  @Test
+  void decode_buffer() throws IOException {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3));
+    byte[] first = TimeSetCodec.toBytes(ts);
+    byte[] second = TimeSetCodec.toBytes(TimeSet.empty());
+    ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length).put(first).put(second);
+    buffer.flip();
+    assertTrue(TimeSetCodec.decode(buffer).equals(ts));
+    assertTrue(TimeSetCodec.decode(buffer).equals(TimeSet.empty()));
+    assertEquals(0, buffer.remaining());
+  }
+
+  @Test
+  void invalid() {
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeSetCodec.toBytes(TimeSet.of(TestUtils.betweenHours(1, 3).shiftEnd(1, ChronoUnit.SECONDS)),
+                                   ChronoUnit.MINUTES, false));
+    assertThrows(IllegalArgumentException.class,
+        () -> TimeSetCodec.toBytes(TimeSet.empty(), ChronoUnit.MONTHS, false));
+    byte[] bytes = TimeSetCodec.toBytes(TimeSet.of(TestUtils.betweenHours(1, 3)));
+    bytes[0]++;
+    assertThrows(StreamCorruptedException.class, () -> TimeSetCodec.fromBytes(bytes));
+    byte[] truncated = Arrays.copyOf(TimeSetCodec.toBytes(TimeSet.of(TestUtils.betweenHours(1, 3))), 20);
+    assertThrows(IOException.class, () -> TimeSetCodec.fromBytes(truncated));
+  }
+
+  @Test
+  void invalid_corrupted() throws IOException {
+    long minute = ChronoUnit.MINUTES.getDuration().toNanos();
+    assertTrue(TimeSetCodecTest.decode(minute, 60, 60, 0, 0).equals(
+        TimeSet.of(TimeSlot.of(LocalDateTime.of(1970, 1, 1, 0, 30), LocalDateTime.of(1970, 1, 1, 1, 30)),
+                   TimeSlot.of(LocalDateTime.of(1970, 1, 1, 1, 30), LocalDateTime.of(1970, 1, 1, 1, 30)))));
+    // A negative length or gap, written as a ten byte number
+    assertThrows(StreamCorruptedException.class, () -> TimeSetCodecTest.decode(minute, 60, -1));
+    assertThrows(StreamCorruptedException.class, () -> TimeSetCodecTest.decode(minute, 60, 60, -30, 10));
+    // The same time slot of no length twice
+    assertThrows(StreamCorruptedException.class, () -> TimeSetCodecTest.decode(minute, 60, 0, 0, 0));
+    // Endpoints past what a long of nanoseconds holds
+    assertThrows(StreamCorruptedException.class, () -> TimeSetCodecTest.decode(minute, Long.MAX_VALUE / minute * 2, 1));
+    assertThrows(StreamCorruptedException.class, () -> TimeSetCodecTest.decode(1, 0, Long.MAX_VALUE - 1, 1, 1));
+  }
+
+  /**
+   * Decodes a stream with one block of hand written numbers: the zigzag encoded start of the first time slot, and
+   * then a length or gap for every number after it.
+   */
+  private static TimeSet decode(long tick, long... numbers) throws IOException {
+    ByteBuffer block = ByteBuffer.allocate(numbers.length * 10);
+    for (long number : numbers) {
+      while ((number & ~0x7FL) != 0) {
+        block.put((byte) ((number & 0x7F) | 0x80));
+        number >>>= 7;
+      }
+      block.put((byte) number);
+    }
+    block.flip();
+    ByteBuffer bytes = ByteBuffer.allocate(14 + 12 + block.remaining() + 12);
+    bytes.putInt(0x54534554).put((byte) 1).put((byte) 0).putLong(tick);
+    bytes.putInt((numbers.length + 1) / 2).putInt(block.remaining()).putInt(block.remaining()).put(block);
+    bytes.putInt(0).putInt(0).putInt(0).flip();
+    return TimeSetCodec.decode(bytes);
+  }
+
+}
@@ -0,0 +1,57 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TimeSetMetricsTest {
+
+  @AfterEach
+  void disable() {
+    TimeSetMetrics.setEnabled(false);
+    TimeSetMetrics.reset();
+  }
+
+  @Test
+  void disabled() {
+    assertFalse(TimeSetMetrics.isEnabled());
+    TimeSetMetrics.reset();
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3));
+    ts.add(TestUtils.betweenHours(2, 5));
+    assertEquals(0, TimeSetMetrics.get(TimeSetMetrics.Operation.CREATE).getCount());
+    assertEquals(0, TimeSetMetrics.get(TimeSetMetrics.Operation.ADD).getCount());
+  }
+
+  @Test
+  void counts() {
+    TimeSetMetrics.reset();
+    TimeSetMetrics.setEnabled(true);
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(2, 4), TestUtils.betweenHours(6, 7));
+    ts.add(TestUtils.betweenHours(3, 6));
+    ts.subtract(TestUtils.betweenHours(0, 2));
+    ts.intersect(TimeSet.of(TestUtils.betweenHours(2, 3)), TimeSet.of(TestUtils.betweenHours(0, 10)));
+    TimeSet.union(Arrays.asList(ts, TimeSet.of(TestUtils.betweenHours(8, 9))));
+    TimeSetMetrics.Stats create = TimeSetMetrics.get(TimeSetMetrics.Operation.CREATE);
+    assertEquals(4, create.getCount());
+    assertEquals(6, create.getInputSlots());
+    assertEquals(5, create.getOutputSlots());
+    assertEquals(3, create.getMaxInputSlots());
+    TimeSetMetrics.Stats add = TimeSetMetrics.get(TimeSetMetrics.Operation.ADD);
+    assertEquals(1, add.getCount());
+    assertEquals(3, add.getInputSlots());
+    assertEquals(2, add.getOutputSlots());
+    assertEquals(1, TimeSetMetrics.get(TimeSetMetrics.Operation.SUBTRACT).getCount());
+    TimeSetMetrics.Stats intersect = TimeSetMetrics.get(TimeSetMetrics.Operation.INTERSECT);
+    assertEquals(1, intersect.getCount());
+    assertEquals(4, intersect.getInputSlots());
+    assertEquals(1, intersect.getOutputSlots());
+    TimeSetMetrics.Stats union = TimeSetMetrics.get(TimeSetMetrics.Operation.UNION);
+    assertEquals(2, union.getOutputSlots());
+    long[] histogram = union.getLatencyHistogram();
+    assertEquals(TimeSetMetrics.BUCKETS, histogram.length);
+    assertEquals(1, Arrays.stream(histogram).sum());
+    assertTrue(union.getTotalNanos() >= 0);
+  }
+}
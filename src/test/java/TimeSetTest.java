@@ -1,10 +1,17 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.Test;
 
 
@@ -38,6 +45,75 @@ public class TimeSetTest {
     assertEquals(8 * 60, ts.length(ChronoUnit.MINUTES));
   }
 
+  @Test
+  void length_sumOfEachSlot() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 1).shiftEnd(30, ChronoUnit.MINUTES),
+                            TestUtils.betweenHours(2, 3).shiftEnd(30, ChronoUnit.MINUTES));
+    assertEquals(2, ts.length(ChronoUnit.HOURS));
+    assertEquals(0, ts.length(ChronoUnit.MONTHS));
+    assertEquals(Duration.ofHours(3), ts.getTotalDuration());
+  }
+
+  @Test
+  void aggregates() {
+    TimeSet ts = TimeSet.empty();
+    assertEquals(0, ts.size());
+    assertNull(ts.getLongest());
+    assertNull(ts.getEarliestStart());
+    assertNull(ts.getLatestEnd());
+    ts.add(TestUtils.betweenHours(5, 8));
+    ts.add(TestUtils.betweenHours(1, 2));
+    ts.add(TestUtils.betweenHours(10, 11));
+    assertEquals(3, ts.size());
+    assertTrue(ts.getLongest().equals(TestUtils.betweenHours(5, 8)));
+    assertTrue(ts.getEarliestStart().isEqual(TestUtils.dateAtHour(1)));
+    assertTrue(ts.getLatestEnd().isEqual(TestUtils.dateAtHour(11)));
+    ts.add(TestUtils.betweenHours(7, 10));
+    assertTrue(ts.getLongest().equals(TestUtils.betweenHours(5, 10)));
+    ts.subtract(TestUtils.betweenHours(6, 10));
+    assertEquals(1, ts.getLongest().length(ChronoUnit.HOURS));
+    assertTrue(ts.getLongest().equals(TestUtils.betweenHours(10, 11)));
+    assertEquals(3, ts.length(ChronoUnit.HOURS));
+    ts.intersect(TestUtils.betweenHours(0, 6));
+    assertEquals(2, ts.length(ChronoUnit.HOURS));
+    assertEquals(2, ts.size());
+  }
+
+  @Test
+  void aggregates_matchRecomputed() {
+    Random random = new Random(19);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    TimeSet ts = TimeSet.empty();
+    for (int i = 0; i < 2000; i++) {
+      TimeSlot timeSlot = TimeSlot.of(origin.plusSeconds(random.nextInt(1_000_000)), random.nextInt(5000), ChronoUnit.SECONDS)
+                                  .shiftEnd(random.nextInt(1000), ChronoUnit.NANOS);
+      int operation = random.nextInt(6);
+      if (operation == 0) {
+        ts.subtract(timeSlot);
+      } else if (operation == 1) {
+        ts.subtract(TimeSet.of(timeSlot));
+      } else if (operation == 2) {
+        ts.add(Collections.singletonList(TimeSet.of(timeSlot)));
+      } else {
+        ts.add(timeSlot);
+      }
+      if (i % 10 == 9) {
+        TimeSet recomputed = TimeSet.of(ts.getTimeSlots());
+        assertEquals(recomputed.getTotalDuration(), ts.getTotalDuration());
+        long nanos = 0;
+        TimeSlot longest = null;
+        for (TimeSlot slot : ts.getTimeSlots()) {
+          nanos += slot.length(ChronoUnit.NANOS);
+          if (longest == null || slot.compareLength(longest) > 0) {
+            longest = slot;
+          }
+        }
+        assertEquals(nanos, ts.length(ChronoUnit.NANOS));
+        assertEquals(0, longest.compareLength(ts.getLongest()));
+      }
+    }
+  }
+
   @Test
   void add_timeSlot() {
     TimeSlot t = TestUtils.betweenHours(0, 5);
@@ -45,8 +121,43 @@ public class TimeSetTest {
     TimeSlot t2 = TestUtils.betweenHours(12, 18);
     TimeSet ts = TimeSet.of(t, t1, t2);
     assertEquals(2, ts.getTimeSlots().size());
-    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(12, 18)));
-    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(0, 10)));
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 10)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(12, 18)));
+  }
+
+  @Test
+  void add_timeSlot_keepsOrder() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(20, 22), TestUtils.betweenHours(2, 4), TestUtils.betweenHours(10, 12));
+    ts.add(TestUtils.betweenHours(6, 8));
+    ts.add(TestUtils.betweenHours(0, 1));
+    ts.add(TestUtils.betweenHours(22, 23));
+    assertEquals(6, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 1)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(2, 4)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(6, 8)));
+    assertTrue(ts.getTimeSlots().get(3).equals(TestUtils.betweenHours(10, 12)));
+    assertTrue(ts.getTimeSlots().get(4).equals(TestUtils.betweenHours(20, 22)));
+    assertTrue(ts.getTimeSlots().get(5).equals(TestUtils.betweenHours(22, 23)));
+  }
+
+  @Test
+  void add_timeSlot_mergesNeighbours() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 2), TestUtils.betweenHours(4, 6), TestUtils.betweenHours(8, 10),
+                            TestUtils.betweenHours(12, 14));
+    ts.add(TestUtils.betweenHours(5, 9));
+    assertEquals(3, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(4, 10)));
+    ts.add(TestUtils.betweenHours(1, 13));
+    assertEquals(1, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 14)));
+  }
+
+  @Test
+  void add_timeSlot_touching() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 2), TestUtils.betweenHours(4, 6));
+    ts.add(TestUtils.betweenHours(2, 4));
+    assertEquals(3, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(2, 4)));
   }
 
   @Test
@@ -61,9 +172,9 @@ public class TimeSetTest {
     TimeSet ts2 = TimeSet.of(t4);
     ts.add(ts1, ts2);
     assertEquals(3, ts.getTimeSlots().size());
-    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(15, 23)));
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 5)));
     assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(8, 12)));
-    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(0, 5)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(15, 23)));
   }
 
   @Test
@@ -77,10 +188,10 @@ public class TimeSetTest {
     ts.subtract(t3);
     ts.subtract(t4);
     assertEquals(4, ts.getTimeSlots().size());
-    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(12, 13)));
-    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(14, 15)));
-    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(8, 10)));
-    assertTrue(ts.getTimeSlots().get(3).equals(TestUtils.betweenHours(0, 1)));
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 1)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(8, 10)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(12, 13)));
+    assertTrue(ts.getTimeSlots().get(3).equals(TestUtils.betweenHours(14, 15)));
   }
 
   @Test
@@ -99,6 +210,33 @@ public class TimeSetTest {
     assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(12, 14)));
   }
 
+  @Test
+  void subtract_interleaved() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 4), TestUtils.betweenHours(6, 12), TestUtils.betweenHours(14, 16));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(1, 2), TestUtils.betweenHours(3, 7), TestUtils.betweenHours(8, 9),
+                             TestUtils.betweenHours(11, 15));
+    ts.subtract(ts1);
+    assertEquals(5, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 1)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(2, 3)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(7, 8)));
+    assertTrue(ts.getTimeSlots().get(3).equals(TestUtils.betweenHours(9, 11)));
+    assertTrue(ts.getTimeSlots().get(4).equals(TestUtils.betweenHours(15, 16)));
+  }
+
+  @Test
+  void subtract_timeSlot_spanningSeveral() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 2), TestUtils.betweenHours(3, 5), TestUtils.betweenHours(6, 8),
+                            TestUtils.betweenHours(9, 11));
+    ts.subtract(TestUtils.betweenHours(1, 7));
+    assertEquals(3, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(0, 1)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(7, 8)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(9, 11)));
+    ts.subtract(TestUtils.betweenHours(8, 9));
+    assertEquals(3, ts.getTimeSlots().size());
+  }
+
   @Test
   void intersect_timeSlot() {
     TimeSlot t = TestUtils.betweenHours(0, 5);
@@ -107,8 +245,8 @@ public class TimeSetTest {
     TimeSlot t2 = TestUtils.betweenHours(4, 14);
     ts.intersect(t2);
     assertEquals(2, ts.getTimeSlots().size());
-    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(12, 14)));
-    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(4, 5)));
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(4, 5)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(12, 14)));
   }
 
   @Test
@@ -123,12 +261,284 @@ public class TimeSetTest {
     TimeSet ts2 = TimeSet.of(t3, t4);
     ts.intersect(ts1, ts2);
     assertEquals(2, ts.getTimeSlots().size());
-    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(14, 15)));
-    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(2, 3)));
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(2, 3)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(14, 15)));
     TimeSet ts3 = TimeSet.of(t);
     assertTrue(TimeSet.intersection(Arrays.asList(ts1, ts2, ts3)).equals(ts));
   }
 
+  @Test
+  void intersect_interleaved() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 3), TestUtils.betweenHours(5, 9), TestUtils.betweenHours(11, 12),
+                            TestUtils.betweenHours(14, 20));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(1, 6), TestUtils.betweenHours(7, 8), TestUtils.betweenHours(9, 11),
+                             TestUtils.betweenHours(15, 16), TestUtils.betweenHours(17, 22));
+    ts.intersect(ts1);
+    assertEquals(5, ts.getTimeSlots().size());
+    assertTrue(ts.getTimeSlots().get(0).equals(TestUtils.betweenHours(1, 3)));
+    assertTrue(ts.getTimeSlots().get(1).equals(TestUtils.betweenHours(5, 6)));
+    assertTrue(ts.getTimeSlots().get(2).equals(TestUtils.betweenHours(7, 8)));
+    assertTrue(ts.getTimeSlots().get(3).equals(TestUtils.betweenHours(15, 16)));
+    assertTrue(ts.getTimeSlots().get(4).equals(TestUtils.betweenHours(17, 20)));
+  }
+
+  @Test
+  void intersect_noLengthAtSharedEnd() {
+    TimeSlot atFour = TimeSlot.of(TestUtils.dateAtHour(4), TestUtils.dateAtHour(4));
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 4), atFour);
+    ts.intersect(TimeSet.of(TestUtils.betweenHours(2, 4), atFour));
+    assertTrue(ts.equals(TimeSet.of(TestUtils.betweenHours(2, 4), atFour)));
+    TimeSet ts1 = TimeSet.of(atFour);
+    ts1.intersect(TimeSet.of(TestUtils.betweenHours(2, 4), atFour));
+    assertTrue(ts1.equals(TimeSet.of(atFour)));
+  }
+
+  @Test
+  void intersection_leavesInputsUnchanged() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(0, 10));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(2, 4), TestUtils.betweenHours(6, 8));
+    TimeSet ts2 = TimeSet.of(TestUtils.betweenHours(11, 12));
+    assertEquals(0, TimeSet.intersection(Arrays.asList(ts, ts1, ts2)).getTimeSlots().size());
+    assertEquals(2, TimeSet.intersection(Arrays.asList(ts, ts1)).getTimeSlots().size());
+    assertTrue(ts.equals(TimeSet.of(TestUtils.betweenHours(0, 10))));
+    assertEquals(2, ts1.getTimeSlots().size());
+  }
+
+  @Test
+  void contains_date() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 8));
+    assertTrue(ts.contains(TestUtils.dateAtHour(2)));
+    assertTrue(ts.contains(TestUtils.dateAtHour(6)));
+    assertFalse(ts.contains(TestUtils.dateAtHour(0)));
+    assertFalse(ts.contains(TestUtils.dateAtHour(3)));
+    assertFalse(ts.contains(TestUtils.dateAtHour(5)));
+    assertFalse(ts.contains(TestUtils.dateAtHour(9)));
+    assertFalse(TimeSet.empty().contains(TestUtils.dateAtHour(9)));
+  }
+
+  @Test
+  void slotAt() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 8));
+    assertTrue(ts.slotAt(TestUtils.dateAtHour(6)).equals(TestUtils.betweenHours(5, 8)));
+    assertTrue(ts.slotAt(TestUtils.dateAtHour(2)).equals(TestUtils.betweenHours(1, 3)));
+    assertNull(ts.slotAt(TestUtils.dateAtHour(4)));
+    assertNull(ts.slotAt(TestUtils.dateAtHour(1)));
+  }
+
+  @Test
+  void navigation() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 8), TestUtils.betweenHours(10, 12));
+    assertTrue(ts.floor(TestUtils.dateAtHour(5)).equals(TestUtils.betweenHours(5, 8)));
+    assertTrue(ts.floor(TestUtils.dateAtHour(9)).equals(TestUtils.betweenHours(5, 8)));
+    assertNull(ts.floor(TestUtils.dateAtHour(0)));
+    assertTrue(ts.ceiling(TestUtils.dateAtHour(5)).equals(TestUtils.betweenHours(5, 8)));
+    assertTrue(ts.ceiling(TestUtils.dateAtHour(6)).equals(TestUtils.betweenHours(10, 12)));
+    assertNull(ts.ceiling(TestUtils.dateAtHour(11)));
+    assertTrue(ts.next(TestUtils.dateAtHour(5)).equals(TestUtils.betweenHours(10, 12)));
+    assertTrue(ts.next(TestUtils.dateAtHour(0)).equals(TestUtils.betweenHours(1, 3)));
+    assertNull(ts.next(TestUtils.dateAtHour(10)));
+    assertTrue(ts.previous(TestUtils.dateAtHour(5)).equals(TestUtils.betweenHours(1, 3)));
+    assertTrue(ts.previous(TestUtils.dateAtHour(11)).equals(TestUtils.betweenHours(10, 12)));
+    assertNull(ts.previous(TestUtils.dateAtHour(1)));
+  }
+
+  @Test
+  void union() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(8, 9));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(2, 5), TestUtils.betweenHours(9, 10));
+    TimeSet union = TimeSet.union(Arrays.asList(ts, ts1));
+    assertTrue(union.equals(TimeSet.of(TestUtils.betweenHours(1, 5), TestUtils.betweenHours(8, 9),
+                                       TestUtils.betweenHours(9, 10))));
+    assertTrue(ts.equals(TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(8, 9))));
+    assertEquals(0, TimeSet.union(Collections.emptyList()).getTimeSlots().size());
+    TimeSet single = TimeSet.union(Collections.singletonList(ts));
+    single.add(TestUtils.betweenHours(20, 22));
+    assertEquals(2, ts.getTimeSlots().size());
+  }
+
+  @Test
+  void union_manySets() {
+    Random random = new Random(10);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    List<TimeSet> timeSets = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      TimeSet timeSet = TimeSet.empty();
+      for (int j = 0; j < 5; j++) {
+        timeSet.add(TimeSlot.of(origin.plusMinutes(random.nextInt(100_000)), 1 + random.nextInt(120), ChronoUnit.MINUTES));
+      }
+      timeSets.add(timeSet);
+    }
+    TimeSet expected = TimeSet.empty();
+    expected.add(timeSets);
+    assertTrue(TimeSet.union(timeSets).equals(expected));
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      assertTrue(TimeSet.union(timeSets, pool).equals(expected));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void findFirstGap() {
+    TimeSet bookings = TimeSet.of(TestUtils.betweenHours(9, 10), TestUtils.betweenHours(11, 13), TestUtils.betweenHours(13, 14),
+                                  TestUtils.betweenHours(16, 17));
+    TimeSlot day = TestUtils.betweenHours(8, 18);
+    assertTrue(bookings.findFirstGap(day, Duration.ofMinutes(45)).equals(TestUtils.betweenHours(8, 9)));
+    assertTrue(bookings.findFirstGap(day, Duration.ofMinutes(90)).equals(TestUtils.betweenHours(14, 16)));
+    assertTrue(bookings.findFirstGap(TestUtils.betweenHours(9, 18), Duration.ofMinutes(45))
+                       .equals(TestUtils.betweenHours(10, 11)));
+    assertTrue(bookings.findFirstGap(TestUtils.betweenHours(15, 18), Duration.ofMinutes(60))
+                       .equals(TestUtils.betweenHours(15, 16)));
+    assertTrue(bookings.findFirstGap(TestUtils.betweenHours(15, 18).shiftStart(1, ChronoUnit.MINUTES), Duration.ofMinutes(60))
+                       .equals(TestUtils.betweenHours(17, 18)));
+    assertNull(bookings.findFirstGap(day, Duration.ofHours(3)));
+    assertNull(bookings.findFirstGap(TestUtils.betweenHours(11, 14), Duration.ofMinutes(1)));
+    assertTrue(TimeSet.empty().findFirstGap(day, Duration.ofHours(3)).equals(day));
+    bookings.add(TestUtils.betweenHours(8, 9));
+    assertTrue(bookings.findFirstGap(day, Duration.ofMinutes(45)).equals(TestUtils.betweenHours(10, 11)));
+  }
+
+  @Test
+  void findAllGaps() {
+    TimeSet bookings = TimeSet.of(TestUtils.betweenHours(9, 10), TestUtils.betweenHours(11, 13), TestUtils.betweenHours(16, 17));
+    List<TimeSlot> gaps = bookings.findAllGaps(TestUtils.betweenHours(8, 18), Duration.ofMinutes(45));
+    assertEquals(4, gaps.size());
+    assertTrue(gaps.get(0).equals(TestUtils.betweenHours(8, 9)));
+    assertTrue(gaps.get(1).equals(TestUtils.betweenHours(10, 11)));
+    assertTrue(gaps.get(2).equals(TestUtils.betweenHours(13, 16)));
+    assertTrue(gaps.get(3).equals(TestUtils.betweenHours(17, 18)));
+    assertEquals(1, bookings.findAllGaps(TestUtils.betweenHours(8, 18), Duration.ofHours(2)).size());
+  }
+
+  @Test
+  void findAllGaps_matchesComplement() {
+    Random random = new Random(17);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    TimeSet bookings = TimeSet.empty();
+    for (int i = 0; i < 3000; i++) {
+      bookings.add(TimeSlot.of(origin.plusMinutes(random.nextInt(200_000)), 1 + random.nextInt(90), ChronoUnit.MINUTES));
+    }
+    for (int round = 0; round < 50; round++) {
+      TimeSlot window = TimeSlot.of(origin.plusMinutes(random.nextInt(200_000)), random.nextInt(20_000), ChronoUnit.MINUTES);
+      Duration minimum = Duration.ofMinutes(1 + random.nextInt(200));
+      TimeSet free = TimeSet.of(window);
+      free.subtract(bookings);
+      List<TimeSlot> expected = new ArrayList<>();
+      for (TimeSlot gap : free.getTimeSlots()) {
+        if (gap.length(ChronoUnit.MINUTES) >= minimum.toMinutes()) {
+          expected.add(gap);
+        }
+      }
+      List<TimeSlot> gaps = bookings.findAllGaps(window, minimum);
+      assertTrue(TimeSet.of(expected).equals(TimeSet.of(gaps)));
+      assertEquals(expected.size(), gaps.size());
+      TimeSlot first = bookings.findFirstGap(window, minimum);
+      assertTrue(expected.isEmpty() ? first == null : expected.get(0).equals(first));
+    }
+  }
+
+  @Test
+  void diff() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 4), TestUtils.betweenHours(6, 8), TestUtils.betweenHours(10, 12));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(2, 4), TestUtils.betweenHours(6, 9), TestUtils.betweenHours(13, 14));
+    TimeSet.Change change = ts.diff(ts1);
+    assertTrue(TimeSet.of(change.getAdded()).equals(TimeSet.of(TestUtils.betweenHours(8, 9), TestUtils.betweenHours(13, 14))));
+    assertTrue(TimeSet.of(change.getRemoved()).equals(TimeSet.of(TestUtils.betweenHours(1, 2), TestUtils.betweenHours(10, 12))));
+    assertEquals(2, change.getAdded().size());
+    assertEquals(2, change.getRemoved().size());
+    assertTrue(ts.diff(TimeSet.of(ts)).isEmpty());
+    assertTrue(TimeSet.of(TestUtils.betweenHours(1, 2), TestUtils.betweenHours(2, 3)).diff(TimeSet.of(TestUtils.betweenHours(1, 3)))
+                      .isEmpty());
+  }
+
+  @Test
+  void changeListener() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 4), TestUtils.betweenHours(6, 8));
+    List<TimeSet.Change> changes = new ArrayList<>();
+    TimeSet.ChangeListener listener = changes::add;
+    ts.addChangeListener(listener);
+    ts.add(TestUtils.betweenHours(3, 7));
+    assertEquals(1, changes.size());
+    assertEquals(1, changes.get(0).getAdded().size());
+    assertTrue(changes.get(0).getAdded().get(0).equals(TestUtils.betweenHours(4, 6)));
+    assertEquals(0, changes.get(0).getRemoved().size());
+    ts.add(TestUtils.betweenHours(2, 3));
+    assertEquals(1, changes.size());
+    ts.subtract(TestUtils.betweenHours(0, 2));
+    assertEquals(2, changes.size());
+    assertTrue(changes.get(1).getRemoved().get(0).equals(TestUtils.betweenHours(1, 2)));
+    ts.add(TestUtils.betweenHours(10, 11));
+    assertTrue(changes.get(2).getAdded().get(0).equals(TestUtils.betweenHours(10, 11)));
+    ts.intersect(TestUtils.betweenHours(3, 10));
+    assertTrue(TimeSet.of(changes.get(3).getRemoved()).equals(TimeSet.of(TestUtils.betweenHours(2, 3), TestUtils.betweenHours(10, 11))));
+    ts.removeChangeListener(listener);
+    ts.add(TestUtils.betweenHours(20, 21));
+    assertEquals(4, changes.size());
+  }
+
+  @Test
+  void changeListener_seesChangeApplied() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 4), TestUtils.betweenHours(6, 8));
+    List<TimeSet> seen = new ArrayList<>();
+    ts.addChangeListener(change -> {
+      seen.add(TimeSet.of(ts));
+      for (TimeSlot added : change.getAdded()) {
+        assertTrue(ts.contains(added.getStart().plusMinutes(1)));
+      }
+      for (TimeSlot removed : change.getRemoved()) {
+        assertFalse(ts.contains(removed.getStart().plusMinutes(1)));
+      }
+    });
+    ts.add(TestUtils.betweenHours(3, 7));
+    assertTrue(seen.get(0).equals(TimeSet.of(TestUtils.betweenHours(1, 8))));
+    ts.add(TestUtils.betweenHours(10, 11));
+    assertTrue(seen.get(1).equals(TimeSet.of(TestUtils.betweenHours(1, 8), TestUtils.betweenHours(10, 11))));
+    ts.subtract(TestUtils.betweenHours(2, 3));
+    assertTrue(seen.get(2).equals(TimeSet.of(TestUtils.betweenHours(1, 2), TestUtils.betweenHours(3, 8),
+                                             TestUtils.betweenHours(10, 11))));
+    ts.subtract(TimeSet.of(TestUtils.betweenHours(10, 11)));
+    assertTrue(seen.get(3).equals(TimeSet.of(TestUtils.betweenHours(1, 2), TestUtils.betweenHours(3, 8))));
+    assertEquals(4, seen.size());
+  }
+
+  @Test
+  void changeListener_matchesDiff() {
+    Random random = new Random(21);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    TimeSet ts = TimeSet.empty();
+    TimeSet copy = TimeSet.empty();
+    ts.addChangeListener(change -> {
+      copy.subtract(TimeSet.of(change.getRemoved()));
+      copy.add(TimeSet.of(change.getAdded()));
+    });
+    for (int i = 0; i < 2000; i++) {
+      TimeSet previous = TimeSet.of(ts);
+      List<TimeSet.Change> changes = new ArrayList<>();
+      TimeSet.ChangeListener listener = changes::add;
+      ts.addChangeListener(listener);
+      TimeSlot timeSlot = TimeSlot.of(origin.plusMinutes(random.nextInt(10_000)), random.nextInt(300), ChronoUnit.MINUTES);
+      int operation = random.nextInt(4);
+      if (operation == 0) {
+        ts.subtract(timeSlot);
+      } else if (operation == 1) {
+        ts.subtract(TimeSet.of(timeSlot));
+      } else if (operation == 2) {
+        ts.add(TimeSet.of(timeSlot));
+      } else {
+        ts.add(timeSlot);
+      }
+      ts.removeChangeListener(listener);
+      TimeSet.Change expected = previous.diff(ts);
+      assertEquals(expected.isEmpty() ? 0 : 1, changes.size());
+      if (!expected.isEmpty()) {
+        assertTrue(TimeSet.of(expected.getAdded()).diff(TimeSet.of(changes.get(0).getAdded())).isEmpty());
+        assertTrue(TimeSet.of(expected.getRemoved()).diff(TimeSet.of(changes.get(0).getRemoved())).isEmpty());
+      }
+      assertTrue(copy.diff(ts).isEmpty());
+    }
+  }
+
   @Test
   void equals() {
     TimeSlot t = TestUtils.betweenHours(2, 5);
@@ -0,0 +1,100 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class TimeSetViewTest {
+
+  @Test
+  void union() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(8, 9));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(2, 5), TestUtils.betweenHours(9, 10));
+    TimeSet union = ts.view().union(ts1.view()).materialize();
+    assertTrue(union.equals(TimeSet.of(TestUtils.betweenHours(1, 5), TestUtils.betweenHours(8, 9),
+                                       TestUtils.betweenHours(9, 10))));
+  }
+
+  @Test
+  void intersect() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 9));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(2, 6), TestUtils.betweenHours(7, 8));
+    TimeSet intersection = ts.view().intersect(ts1.view()).materialize();
+    assertTrue(intersection.equals(TimeSet.of(TestUtils.betweenHours(2, 3), TestUtils.betweenHours(5, 6),
+                                              TestUtils.betweenHours(7, 8))));
+  }
+
+  @Test
+  void intersect_noLengthAtSharedEnd() {
+    TimeSlot atFour = TimeSlot.of(TestUtils.dateAtHour(4), TestUtils.dateAtHour(4));
+    TimeSet ts = TimeSet.of(atFour);
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(2, 4), atFour);
+    assertTrue(ts.view().intersect(ts1.view()).materialize().equals(TimeSet.of(atFour)));
+    assertTrue(ts1.view().intersect(ts.view()).materialize().equals(TimeSet.of(atFour)));
+  }
+
+  @Test
+  void subtract() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 10), TestUtils.betweenHours(12, 14));
+    TimeSet ts1 = TimeSet.of(TestUtils.betweenHours(0, 2), TestUtils.betweenHours(4, 5), TestUtils.betweenHours(9, 13));
+    TimeSet difference = ts.view().subtract(ts1.view()).materialize();
+    assertTrue(difference.equals(TimeSet.of(TestUtils.betweenHours(2, 4), TestUtils.betweenHours(5, 9),
+                                            TestUtils.betweenHours(13, 14))));
+  }
+
+  @Test
+  void clip() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3), TestUtils.betweenHours(5, 9), TestUtils.betweenHours(10, 12));
+    TimeSetView clipped = ts.view().clip(TestUtils.betweenHours(2, 6));
+    assertEquals(2, clipped.length(ChronoUnit.HOURS));
+    Iterator<TimeSlot> iterator = clipped.iterator();
+    assertTrue(iterator.next().equals(TestUtils.betweenHours(2, 3)));
+    assertTrue(iterator.next().equals(TestUtils.betweenHours(5, 6)));
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  void isLazy() {
+    TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3));
+    TimeSetView view = ts.view().union(TimeSet.of(TestUtils.betweenHours(5, 6)).view());
+    ts.add(TestUtils.betweenHours(7, 8));
+    assertEquals(3, view.materialize().getTimeSlots().size());
+  }
+
+  @Test
+  void pipeline_matchesTimeSet() {
+    Random random = new Random(12);
+    for (int round = 0; round < 50; round++) {
+      TimeSet a = TimeSetViewTest.randomTimeSet(random);
+      TimeSet b = TimeSetViewTest.randomTimeSet(random);
+      TimeSet c = TimeSetViewTest.randomTimeSet(random);
+      TimeSlot window = TimeSlot.of(TestUtils.dateAtHour(0).plusMinutes(random.nextInt(1000)), 500, ChronoUnit.MINUTES);
+
+      TimeSet expected = TimeSet.of(a);
+      expected.add(b);
+      expected.subtract(c);
+      expected.intersect(window);
+      TimeSetView view = a.view().union(b.view()).subtract(c.view()).clip(window);
+      assertTrue(view.materialize().equals(expected));
+      assertEquals(expected.length(ChronoUnit.MINUTES), view.length(ChronoUnit.MINUTES));
+
+      TimeSet intersection = TimeSet.intersection(Arrays.asList(a, b));
+      assertTrue(a.view().intersect(b.view()).materialize().equals(intersection));
+    }
+  }
+
+  private static TimeSet randomTimeSet(Random random) {
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    TimeSet timeSet = TimeSet.empty();
+    for (int i = 0; i < 30; i++) {
+      timeSet.add(TimeSlot.of(origin.plusMinutes(random.nextInt(2000)), random.nextInt(120), ChronoUnit.MINUTES));
+    }
+    return timeSet;
+  }
+
+}
@@ -0,0 +1,38 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+public class TimeSlotInternerTest {
+
+  @Test
+  void weak() {
+    TimeSlotInterner interner = TimeSlotInterner.weak();
+    TimeSlot t = interner.intern(TestUtils.betweenHours(1, 5));
+    assertSame(t, interner.intern(TestUtils.betweenHours(1, 5)));
+    assertSame(t, interner.of(TestUtils.dateAtHour(5), TestUtils.dateAtHour(1)));
+    TimeSlot day = interner.of(LocalDate.of(2020, 1, 1));
+    assertSame(day, interner.intern(TimeSlot.of(LocalDate.of(2020, 1, 1))));
+    assertNotSame(t, interner.intern(TestUtils.betweenHours(1, 6)));
+    assertTrue(interner.size() >= 2);
+  }
+
+  @Test
+  void bounded() {
+    TimeSlotInterner interner = TimeSlotInterner.bounded(2);
+    TimeSlot t = interner.intern(TestUtils.betweenHours(1, 2));
+    TimeSlot t1 = interner.intern(TestUtils.betweenHours(2, 3));
+    assertSame(t, interner.intern(TestUtils.betweenHours(1, 2)));
+    interner.intern(TestUtils.betweenHours(3, 4));
+    assertEquals(2, interner.size());
+    assertSame(t, interner.intern(TestUtils.betweenHours(1, 2)));
+    TimeSlot t2 = interner.intern(TestUtils.betweenHours(2, 3));
+    assertNotSame(t1, t2);
+    assertTrue(t1.equals(t2));
+    assertThrows(IllegalArgumentException.class, () -> TimeSlotInterner.bounded(0));
+  }
+}
@@ -7,8 +7,13 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class TimeSlotTest {
@@ -119,6 +124,33 @@ class TimeSlotTest {
 
   }
 
+  @Test
+  void length_matchesUntil() {
+    LocalDateTime start = LocalDateTime.of(2019, 12, 30, 23, 59, 59, 999_999_999);
+    LocalDateTime end = LocalDateTime.of(2020, 3, 1, 0, 0, 0, 1);
+    TimeSlot t = TimeSlot.of(start, end);
+    for (ChronoUnit unit : ChronoUnit.values()) {
+      if (unit.compareTo(ChronoUnit.MONTHS) <= 0) {
+        assertEquals(start.until(end, unit), t.length(unit), unit.toString());
+      }
+    }
+    TimeSlot wide = TimeSlot.of(LocalDateTime.MIN, LocalDateTime.MAX);
+    assertEquals(LocalDateTime.MIN.until(LocalDateTime.MAX, ChronoUnit.SECONDS), wide.length(ChronoUnit.SECONDS));
+    assertEquals(1, wide.compareLength(t));
+    assertTrue(wide.overlaps(t));
+    assertTrue(wide.contains(t));
+  }
+
+  @Test
+  void compareLength_nanos() {
+    LocalDateTime start = TestUtils.dateAtHour(1);
+    TimeSlot t = TimeSlot.of(start.plusNanos(999_999_999), start.plusSeconds(2));
+    TimeSlot t1 = TimeSlot.of(start.plusNanos(1), start.plusSeconds(1).plusNanos(2));
+    assertEquals(0, t.compareLength(t1));
+    assertEquals(-1, t.compareLength(t1.shiftEnd(1, ChronoUnit.NANOS)));
+    assertEquals(1, t.shiftEnd(1, ChronoUnit.NANOS).compareLength(t1));
+  }
+
   @Test
   void equals() {
     TimeSlot t = TestUtils.betweenHours(1, 3);
@@ -195,6 +227,23 @@ class TimeSlotTest {
     t = TestUtils.betweenHours(1, 7);
     t1 = TestUtils.betweenHours(1, 7);
     assertEquals(0, t.subtract(t1).size());
+    t = TestUtils.betweenHours(1, 7);
+    t1 = TestUtils.betweenHours(1, 3);
+    subtraction = t.subtract(t1);
+    assertEquals(1, subtraction.size());
+    assertTrue(subtraction.get(0).equals(TestUtils.betweenHours(3, 7)));
+  }
+
+  @Test
+  void subtract_manyOthers() {
+    TimeSlot t = TimeSlot.of(TestUtils.dateAtHour(0), 200_000, ChronoUnit.MINUTES);
+    List<TimeSlot> others = new ArrayList<>();
+    for (int minute = 199_998; minute >= 0; minute -= 2) {
+      others.add(TimeSlot.of(TestUtils.dateAtHour(0).plusMinutes(minute), 1, ChronoUnit.MINUTES));
+    }
+    List<TimeSlot> subtraction = t.subtract(others);
+    assertEquals(100_000, subtraction.size());
+    assertTrue(subtraction.get(0).equals(TimeSlot.of(TestUtils.dateAtHour(0).plusMinutes(1), 1, ChronoUnit.MINUTES)));
   }
 
   @Test
@@ -217,4 +266,67 @@ class TimeSlotTest {
     t2 = TestUtils.betweenHours(4, 6);
     assertTrue(t.intersect(t1, t2).equals(TestUtils.betweenHours(4, 5)));
   }
-}
\ No newline at end of file
+
+  @Test
+  void intersect_boundaries() {
+    TimeSlot t = TestUtils.betweenHours(1, 5);
+    assertNull(t.intersect(TestUtils.betweenHours(5, 7)));
+    assertNull(t.intersect(TestUtils.betweenHours(2, 4), TestUtils.betweenHours(4, 6)));
+    assertTrue(t.intersect(TestUtils.betweenHours(1, 5), TestUtils.betweenHours(0, 6)).equals(t));
+    TimeSlot instant = TimeSlot.of(TestUtils.dateAtHour(3), TestUtils.dateAtHour(3));
+    assertTrue(t.intersect(instant, instant).equals(instant));
+    assertNull(t.intersect(instant, TestUtils.betweenHours(3, 4)));
+    assertNull(t.intersect(Collections.emptyList()));
+    assertNull(TimeSlot.intersection(Collections.singletonList(t)));
+  }
+
+  @Test
+  void intersect_manyOthers() {
+    LocalDateTime start = TestUtils.dateAtHour(0);
+    List<TimeSlot> others = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      others.add(TimeSlot.of(start.plusMinutes(i), start.plusMinutes(300_000 - i)));
+    }
+    TimeSlot t = TimeSlot.of(start, 300_000, ChronoUnit.MINUTES);
+    assertTrue(t.intersect(others).equals(TimeSlot.of(start.plusMinutes(99_999), start.plusMinutes(200_001))));
+    others.add(TimeSlot.of(start, 1, ChronoUnit.MINUTES));
+    assertNull(TimeSlot.intersection(others));
+  }
+
+  @Test
+  void intersect_matchesPairwise() {
+    Random random = new Random(24);
+    LocalDateTime origin = TestUtils.dateAtHour(0);
+    for (int round = 0; round < 2000; round++) {
+      List<TimeSlot> timeSlots = new ArrayList<>();
+      for (int i = 0; i < 1 + random.nextInt(5); i++) {
+        timeSlots.add(TimeSlot.of(origin.plusMinutes(random.nextInt(10)), random.nextInt(10), ChronoUnit.MINUTES));
+      }
+      TimeSlot expected = TimeSlot.of(origin, 20, ChronoUnit.MINUTES);
+      for (TimeSlot timeSlot : timeSlots) {
+        if (expected == null || !expected.overlaps(timeSlot)) {
+          expected = null;
+        } else {
+          expected = TimeSlot.of(expected.getStart().isAfter(timeSlot.getStart()) ? expected.getStart() : timeSlot.getStart(),
+                                 expected.getEnd().isBefore(timeSlot.getEnd()) ? expected.getEnd() : timeSlot.getEnd());
+        }
+      }
+      TimeSlot actual = TimeSlot.of(origin, 20, ChronoUnit.MINUTES).intersect(timeSlots);
+      assertTrue(expected == null ? actual == null : expected.equals(actual));
+    }
+  }
+
+  @Test
+  void equalsObject_hashCode() {
+    Object t = TestUtils.betweenHours(1, 5);
+    Object t1 = TimeSlot.of(TestUtils.dateAtHour(5), TestUtils.dateAtHour(1));
+    assertTrue(t.equals(t1));
+    assertEquals(t.hashCode(), t1.hashCode());
+    assertFalse(t.equals(TestUtils.betweenHours(1, 6)));
+    assertFalse(t.equals(TestUtils.dateAtHour(1)));
+    assertFalse(t.equals(null));
+    Set<TimeSlot> timeSlots = new HashSet<>(Arrays.asList(TestUtils.betweenHours(1, 5), TestUtils.betweenHours(1, 5),
+                                                          TestUtils.betweenHours(1, 5).shiftEnd(1, ChronoUnit.NANOS)));
+    assertEquals(2, timeSlots.size());
+  }
+}
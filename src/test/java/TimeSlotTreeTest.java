@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+public class TimeSlotTreeTest {
+
+  @Test
+  void empty() {
+    TimeSlotTree tree = TimeSlotTree.empty();
+    assertEquals(0, tree.size());
+    assertEquals(0, tree.overlapping(TestUtils.betweenHours(0, 5)).size());
+    assertFalse(tree.overlaps(TestUtils.betweenHours(0, 5)));
+  }
+
+  @Test
+  void overlapping() {
+    TimeSlotTree tree = TimeSlotTree.of(TestUtils.betweenHours(0, 10), TestUtils.betweenHours(2, 4),
+                                        TestUtils.betweenHours(3, 6), TestUtils.betweenHours(8, 9),
+                                        TestUtils.betweenHours(12, 14));
+    List<TimeSlot> overlaps = tree.overlapping(TestUtils.betweenHours(4, 8));
+    assertEquals(2, overlaps.size());
+    assertTrue(overlaps.get(0).equals(TestUtils.betweenHours(0, 10)));
+    assertTrue(overlaps.get(1).equals(TestUtils.betweenHours(3, 6)));
+    assertEquals(0, tree.overlapping(TestUtils.betweenHours(10, 12)).size());
+    assertTrue(tree.overlaps(TestUtils.betweenHours(13, 15)));
+    assertFalse(tree.overlaps(TestUtils.betweenHours(14, 15)));
+  }
+
+  @Test
+  void containing() {
+    TimeSlotTree tree = TimeSlotTree.of(TestUtils.betweenHours(0, 10), TestUtils.betweenHours(2, 4),
+                                        TestUtils.betweenHours(3, 6));
+    assertEquals(3, tree.containing(TestUtils.dateAtHour(3).plusMinutes(30)).size());
+    assertEquals(2, tree.containing(TestUtils.dateAtHour(4)).size());
+    assertEquals(0, tree.containing(TestUtils.dateAtHour(10)).size());
+  }
+
+  @Test
+  void add_remove() {
+    TimeSlotTree tree = TimeSlotTree.empty();
+    tree.add(TestUtils.betweenHours(1, 3));
+    tree.add(TestUtils.betweenHours(1, 3));
+    tree.add(TestUtils.betweenHours(2, 5));
+    assertEquals(3, tree.size());
+    assertEquals(3, tree.overlapping(TestUtils.betweenHours(2, 3)).size());
+    assertTrue(tree.remove(TestUtils.betweenHours(1, 3)));
+    assertEquals(2, tree.overlapping(TestUtils.betweenHours(2, 3)).size());
+    assertFalse(tree.remove(TestUtils.betweenHours(1, 4)));
+    assertTrue(tree.remove(TestUtils.betweenHours(1, 3)));
+    assertTrue(tree.remove(TestUtils.betweenHours(2, 5)));
+    assertEquals(0, tree.size());
+    assertFalse(tree.overlaps(TestUtils.betweenHours(0, 10)));
+  }
+
+  @Test
+  void overlapping_matchesScan() {
+    Random random = new Random(6);
+    List<TimeSlot> timeSlots = new ArrayList<>();
+    TimeSlotTree tree = TimeSlotTree.empty();
+    for (int i = 0; i < 2000; i++) {
+      TimeSlot timeSlot = randomTimeSlot(random);
+      timeSlots.add(timeSlot);
+      tree.add(timeSlot);
+      if (i % 3 == 0) {
+        TimeSlot removed = timeSlots.remove(random.nextInt(timeSlots.size()));
+        assertTrue(tree.remove(removed));
+      }
+    }
+    timeSlots.sort(TimeSlot.START_ORDER);
+    assertEquals(timeSlots.size(), tree.size());
+    for (int i = 0; i < 200; i++) {
+      TimeSlot query = randomTimeSlot(random);
+      List<TimeSlot> expected = timeSlots.stream().filter(query::overlaps).collect(Collectors.toList());
+      List<TimeSlot> actual = tree.overlapping(query);
+      assertEquals(expected.size(), actual.size());
+      for (int j = 0; j < expected.size(); j++) {
+        assertTrue(expected.get(j).equals(actual.get(j)));
+      }
+      assertEquals(!expected.isEmpty(), tree.overlaps(query));
+    }
+  }
+
+  private static TimeSlot randomTimeSlot(Random random) {
+    LocalDateTime start = TestUtils.dateAtHour(0).plusMinutes(random.nextInt(10_000));
+    return TimeSlot.of(start, random.nextInt(200), ChronoUnit.MINUTES);
+  }
+
+}
@@ -0,0 +1,97 @@
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates random time slots for tests, in shapes that stress different parts of the time set operations.
+ * Every time slot starts and ends on a whole minute, and they are returned in a random order.
+ */
+public final class WorkloadGenerator {
+
+  static final LocalDateTime ORIGIN = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+  /**
+   * How the generated time slots relate to one another.
+   */
+  enum Shape {
+    UNIFORM, // Spread evenly, with lengths that make some overlap
+    BURSTY, // Packed into a few short bursts with quiet time between them
+    NESTED, // Each inside the one before it, around a handful of centres
+    ADJACENT, // End to end, touching without overlapping, with the odd gap
+    DST, // Around daylight saving changes, measured in zoned time and then stored as local date times
+    EDGES // Time slots of no length, duplicates, and time slots touching at midnight, where day stripes are cut
+  }
+
+  private WorkloadGenerator() {
+  }
+
+  /**
+   * Generates a list of time slots.
+   *
+   * @param shape how the time slots relate to one another
+   * @param size the number of time slots
+   * @param seed the seed for the placement and order of the time slots
+   * @return the time slots, in a random order
+   */
+  static List<TimeSlot> generate(Shape shape, int size, long seed) {
+    Random random = new Random(seed);
+    List<TimeSlot> timeSlots = new ArrayList<>(size);
+    int span = Math.max(size, 1) * 20;
+    long next = 0;
+    for (int i = 0; i < size; i++) {
+      switch (shape) {
+        case UNIFORM:
+          timeSlots.add(WorkloadGenerator.minutes(random.nextInt(span), 1 + random.nextInt(60)));
+          break;
+        case BURSTY:
+          long burst = (long) random.nextInt(Math.max(size / 50, 1)) * 5000;
+          timeSlots.add(WorkloadGenerator.minutes(burst + random.nextInt(300), 1 + random.nextInt(20)));
+          break;
+        case NESTED:
+          long centre = (long) (i % 8) * span / 8 + span / 16;
+          int depth = i / 8;
+          long half = Math.max(span / 16 - depth % (span / 16), 1);
+          timeSlots.add(WorkloadGenerator.minutes(centre - half, 2 * half));
+          break;
+        case ADJACENT:
+          long length = 1 + random.nextInt(30);
+          timeSlots.add(WorkloadGenerator.minutes(next, length));
+          next += length + (random.nextInt(10) == 0 ? 1 + random.nextInt(30) : 0);
+          break;
+        case DST:
+          LocalDateTime change = LocalDateTime.of(2000 + random.nextInt(40), random.nextBoolean() ? 3 : 11, 1, 2, 0);
+          ZonedDateTime start = ZonedDateTime.of(change.plusDays(random.nextInt(14)).plusMinutes(random.nextInt(720) - 360), ZONE);
+          ZonedDateTime end = start.plusMinutes(1 + random.nextInt(240));
+          timeSlots.add(TimeSlot.of(start.toLocalDateTime(), end.toLocalDateTime()));
+          break;
+        case EDGES:
+          int kind = random.nextInt(4);
+          long midnight = (long) (1 + random.nextInt(Math.max(size / 8, 1))) * 1440;
+          if (kind == 0 && !timeSlots.isEmpty()) {
+            timeSlots.add(timeSlots.get(random.nextInt(timeSlots.size())));
+          } else if (kind == 1) {
+            timeSlots.add(WorkloadGenerator.minutes(midnight - (random.nextBoolean() ? 0 : random.nextInt(1440)), 0));
+          } else {
+            long hours = 60 * (1 + random.nextInt(12));
+            timeSlots.add(WorkloadGenerator.minutes(random.nextBoolean() ? midnight - hours : midnight, hours));
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown shape " + shape);
+      }
+    }
+    Collections.shuffle(timeSlots, random);
+    return timeSlots;
+  }
+
+  private static TimeSlot minutes(long start, long length) {
+    return TimeSlot.of(ORIGIN.plusMinutes(start), length, ChronoUnit.MINUTES);
+  }
+}
@@ -0,0 +1,271 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every optimized time set against NaiveTimeSet on generated workloads, and checks that the operations scale
+ * the way they should as the workloads grow.
+ */
+public class WorkloadTest {
+
+  private static final int SIZE = 300;
+
+  @Test
+  void create_matchesOracle() {
+    for (WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) {
+      for (long seed = 0; seed < 3; seed++) {
+        List<TimeSlot> timeSlots = WorkloadGenerator.generate(shape, SIZE, seed);
+        List<TimeSlot> expected = NaiveTimeSet.union(Collections.singletonList(timeSlots));
+        TimeSet ts = TimeSet.of(timeSlots);
+        assertTrue(NaiveTimeSet.isNormalized(ts.getTimeSlots()));
+        assertTrue(NaiveTimeSet.same(expected, ts));
+        TimeSet added = TimeSet.empty();
+        TimeSetBuilder builder = TimeSetBuilder.empty();
+        PersistentTimeSet persistent = PersistentTimeSet.empty();
+        ConcurrentTimeSet concurrent = ConcurrentTimeSet.empty();
+        BitmapTimeSet bitmap = BitmapTimeSet.empty(1, ChronoUnit.MINUTES);
+        for (TimeSlot timeSlot : timeSlots) {
+          added.add(timeSlot);
+          builder.add(timeSlot);
+          persistent = persistent.add(timeSlot);
+          concurrent.add(timeSlot);
+          bitmap.add(timeSlot);
+        }
+        assertTrue(added.equals(ts));
+        assertTrue(builder.build().equals(ts));
+        assertTrue(builder.buildPacked().equals(PackedTimeSet.of(timeSlots)));
+        assertTrue(persistent.equals(PersistentTimeSet.of(ts)));
+        assertTrue(NaiveTimeSet.same(expected, concurrent.snapshot()));
+        assertTrue(NaiveTimeSet.same(NaiveTimeSet.coalesce(expected), NaiveTimeSet.coalesce(bitmap.toTimeSet())));
+        assertTrue(NaiveTimeSet.same(expected, TimeSet.union(WorkloadTest.split(timeSlots, 7))));
+        assertEquals(WorkloadTest.nanos(expected), ts.length(ChronoUnit.NANOS));
+      }
+    }
+  }
+
+  @Test
+  void subtract_matchesOracle() {
+    for (WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) {
+      for (long seed = 0; seed < 3; seed++) {
+        List<TimeSlot> first = WorkloadGenerator.generate(shape, SIZE, seed);
+        List<TimeSlot> second = WorkloadGenerator.generate(shape, SIZE / 3, seed + 100);
+        List<TimeSlot> expected = NaiveTimeSet.difference(first, second);
+        TimeSet ts = TimeSet.of(first);
+        ts.subtract(TimeSet.of(second));
+        assertTrue(NaiveTimeSet.isNormalized(ts.getTimeSlots()));
+        assertTrue(NaiveTimeSet.same(expected, ts));
+        TimeSet oneByOne = TimeSet.of(first);
+        PersistentTimeSet persistent = PersistentTimeSet.of(first);
+        ConcurrentTimeSet concurrent = ConcurrentTimeSet.empty();
+        concurrent.add(TimeSet.of(first));
+        for (TimeSlot timeSlot : second) {
+          oneByOne.subtract(timeSlot);
+          persistent = persistent.subtract(timeSlot);
+          concurrent.subtract(timeSlot);
+        }
+        assertTrue(NaiveTimeSet.same(expected, oneByOne));
+        assertTrue(NaiveTimeSet.same(expected, persistent.getTimeSlots()));
+        assertTrue(NaiveTimeSet.same(expected, concurrent.snapshot()));
+        PersistentTimeSet difference = PersistentTimeSet.of(first).subtract(PersistentTimeSet.of(second));
+        assertTrue(NaiveTimeSet.same(expected, difference.getTimeSlots()));
+        PackedTimeSet packed = PackedTimeSet.of(first);
+        packed.subtract(PackedTimeSet.of(second));
+        assertTrue(NaiveTimeSet.same(expected, packed.getTimeSlots()));
+        BitmapTimeSet bitmap = BitmapTimeSet.of(TimeSet.of(first), 1, ChronoUnit.MINUTES);
+        bitmap.subtract(BitmapTimeSet.of(TimeSet.of(second), 1, ChronoUnit.MINUTES));
+        assertTrue(NaiveTimeSet.same(NaiveTimeSet.coalesce(expected), NaiveTimeSet.coalesce(bitmap.toTimeSet())));
+        TimeSetView view = TimeSetView.of(TimeSet.of(first)).subtract(TimeSetView.of(TimeSet.of(second)));
+        assertTrue(NaiveTimeSet.same(expected, view));
+      }
+    }
+  }
+
+  @Test
+  void intersect_matchesOracle() {
+    for (WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) {
+      for (long seed = 0; seed < 3; seed++) {
+        List<TimeSlot> first = WorkloadGenerator.generate(shape, SIZE, seed);
+        List<TimeSlot> second = WorkloadGenerator.generate(shape, SIZE, seed + 100);
+        List<TimeSlot> expected = NaiveTimeSet.intersection(Arrays.asList(first, second));
+        TimeSet ts = TimeSet.of(first);
+        ts.intersect(TimeSet.of(second));
+        assertTrue(NaiveTimeSet.isNormalized(ts.getTimeSlots()));
+        assertTrue(NaiveTimeSet.same(expected, ts));
+        assertTrue(NaiveTimeSet.same(expected,
+                                     TimeSet.intersection(Arrays.asList(TimeSet.of(first), TimeSet.of(second)))));
+        PersistentTimeSet persistent = PersistentTimeSet.of(first).intersect(PersistentTimeSet.of(second));
+        assertTrue(NaiveTimeSet.same(expected, persistent.getTimeSlots()));
+        PackedTimeSet packed = PackedTimeSet.of(first);
+        packed.intersect(PackedTimeSet.of(second));
+        assertTrue(NaiveTimeSet.same(expected, packed.getTimeSlots()));
+        BitmapTimeSet bitmap = BitmapTimeSet.of(TimeSet.of(first), 1, ChronoUnit.MINUTES);
+        bitmap.intersect(BitmapTimeSet.of(TimeSet.of(second), 1, ChronoUnit.MINUTES));
+        assertTrue(NaiveTimeSet.same(NaiveTimeSet.coalesce(expected), NaiveTimeSet.coalesce(bitmap.toTimeSet())));
+        TimeSetView view = TimeSetView.of(TimeSet.of(first)).intersect(TimeSetView.of(TimeSet.of(second)));
+        assertTrue(NaiveTimeSet.same(expected, view));
+        assertTrue(NaiveTimeSet.same(NaiveTimeSet.union(Arrays.asList(first, second)),
+                                     TimeSetView.of(TimeSet.of(first)).union(TimeSetView.of(TimeSet.of(second)))));
+      }
+    }
+  }
+
+  @Test
+  void coverageAndGaps_matchOracle() {
+    Random random = new Random(23);
+    for (WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) {
+      List<TimeSlot> timeSlots = WorkloadGenerator.generate(shape, SIZE, 7);
+      List<List<TimeSlot>> inputs = new ArrayList<>();
+      List<TimeSet> timeSets = new ArrayList<>();
+      for (List<TimeSlot> part : WorkloadTest.parts(timeSlots, 5)) {
+        inputs.add(part);
+        timeSets.add(TimeSet.of(part));
+      }
+      Coverage coverage = Coverage.of(timeSets);
+      for (int depth = 1; depth <= 3; depth++) {
+        assertTrue(NaiveTimeSet.same(NaiveTimeSet.atLeast(inputs, depth), NaiveTimeSet.coalesce(coverage.atLeast(depth))));
+      }
+      TimeSet ts = TimeSet.of(timeSlots);
+      List<TimeSlot> all = NaiveTimeSet.union(Collections.singletonList(timeSlots));
+      TimeSlot window = TimeSlot.of(all.get(0).getStart().minusHours(1), all.get(all.size() - 1).getEnd().plusHours(1));
+      Duration minimum = Duration.ofMinutes(1 + random.nextInt(30));
+      List<TimeSlot> expected = new ArrayList<>();
+      for (TimeSlot gap : NaiveTimeSet.difference(Collections.singletonList(window), timeSlots)) {
+        if (gap.length(ChronoUnit.NANOS) >= minimum.toNanos()) {
+          expected.add(gap);
+        }
+      }
+      assertTrue(NaiveTimeSet.same(expected, ts.findAllGaps(window, minimum)));
+    }
+  }
+
+  @Test
+  void codec_roundTrips() throws Exception {
+    for (WorkloadGenerator.Shape shape : WorkloadGenerator.Shape.values()) {
+      TimeSet ts = TimeSet.of(WorkloadGenerator.generate(shape, 5000, 3));
+      assertTrue(TimeSetCodec.fromBytes(TimeSetCodec.toBytes(ts)).equals(ts));
+      assertTrue(TimeSetCodec.fromBytes(TimeSetCodec.toBytes(ts, ChronoUnit.MINUTES, true)).equals(ts));
+    }
+  }
+
+  @Test
+  @Tag("scaling")
+  void scaling() {
+    WorkloadTest.assertScales("TimeSet.of", 20_000, n -> {
+      List<TimeSlot> timeSlots = WorkloadGenerator.generate(WorkloadGenerator.Shape.UNIFORM, n, n);
+      return () -> TimeSet.of(timeSlots);
+    });
+    WorkloadTest.assertScales("TimeSet.add(TimeSet)", 20_000, n -> {
+      TimeSet first = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.BURSTY, n, n));
+      TimeSet second = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.UNIFORM, n, n + 1));
+      return () -> TimeSet.of(first).add(second);
+    });
+    WorkloadTest.assertScales("TimeSet.subtract(TimeSet)", 20_000, n -> {
+      TimeSet first = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.ADJACENT, n, n));
+      TimeSet second = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.ADJACENT, n, n + 1));
+      return () -> TimeSet.of(first).subtract(second);
+    });
+    WorkloadTest.assertScales("TimeSet.intersect(TimeSet)", 20_000, n -> {
+      TimeSet first = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.NESTED, n, n));
+      TimeSet second = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.UNIFORM, n, n + 1));
+      return () -> TimeSet.of(first).intersect(second);
+    });
+    WorkloadTest.assertScales("TimeSet.union", 20_000, n -> {
+      List<TimeSet> timeSets = WorkloadTest.split(WorkloadGenerator.generate(WorkloadGenerator.Shape.UNIFORM, n, n), n / 100);
+      return () -> TimeSet.union(timeSets);
+    });
+    WorkloadTest.assertScales("TimeSet.diff", 20_000, n -> {
+      TimeSet first = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.ADJACENT, n, n));
+      TimeSet second = TimeSet.of(first);
+      second.subtract(TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.UNIFORM, n / 10, n)));
+      return () -> {
+        first.diff(second);
+        first.equals(TimeSet.of(first));
+      };
+    });
+    WorkloadTest.assertScales("TimeSet.findAllGaps", 20_000, n -> {
+      TimeSet ts = TimeSet.of(WorkloadGenerator.generate(WorkloadGenerator.Shape.UNIFORM, n, n));
+      TimeSlot window = TimeSlot.of(WorkloadGenerator.ORIGIN, ts.getLatestEnd());
+      return () -> TimeSet.of(ts).findAllGaps(window, Duration.ofMinutes(1));
+    });
+    WorkloadTest.assertScales("Coverage.of", 20_000, n -> {
+      List<TimeSet> timeSets = WorkloadTest.split(WorkloadGenerator.generate(WorkloadGenerator.Shape.BURSTY, n, n), 10);
+      return () -> Coverage.of(timeSets).atLeast(2);
+    });
+    WorkloadTest.assertScales("TimeSetBuilder.buildPacked", 1_000_000, n -> {
+      Random random = new Random(n);
+      long[] starts = new long[n];
+      for (int i = 0; i < n; i++) {
+        starts[i] = random.nextInt(n * 20) * 60_000_000_000L;
+      }
+      return () -> {
+        TimeSetBuilder builder = TimeSetBuilder.withCapacity(n);
+        for (long start : starts) {
+          builder.add(start, start + 1_800_000_000_000L);
+        }
+        PackedTimeSet packed = builder.buildPacked();
+        packed.intersect(PackedTimeSet.of(packed));
+      };
+    });
+  }
+
+  /**
+   * Asserts that doubling the size of a workload takes well under four times as long, which a quadratic operation
+   * would take. Each size is timed several times and the fastest run is kept, and the check is tried again a few times
+   * before failing, so that a garbage collection or a busy machine does not fail it.
+   * The sizes are kept small enough that both fit in the processor's caches, since the step from cache to memory can
+   * make a linear operation look worse than it is.
+   */
+  private static void assertScales(String name, int size, IntFunction<Runnable> workload) {
+    Runnable small = workload.apply(size);
+    Runnable large = workload.apply(size * 2);
+    double ratio = Double.MAX_VALUE;
+    for (int attempt = 0; attempt < 5 && ratio >= 3.5; attempt++) {
+      ratio = Math.min(ratio, (double) WorkloadTest.fastest(large) / WorkloadTest.fastest(small));
+    }
+    assertTrue(ratio < 3.5, name + " took " + ratio + " times as long for twice the input");
+  }
+
+  private static long fastest(Runnable runnable) {
+    long fastest = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      long started = System.nanoTime();
+      runnable.run();
+      fastest = Math.min(fastest, System.nanoTime() - started);
+    }
+    return Math.max(fastest, 1);
+  }
+
+  private static List<List<TimeSlot>> parts(List<TimeSlot> timeSlots, int count) {
+    List<List<TimeSlot>> parts = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      parts.add(new ArrayList<>(timeSlots.subList(i * timeSlots.size() / count, (i + 1) * timeSlots.size() / count)));
+    }
+    return parts;
+  }
+
+  private static List<TimeSet> split(List<TimeSlot> timeSlots, int count) {
+    List<TimeSet> timeSets = new ArrayList<>();
+    for (List<TimeSlot> part : WorkloadTest.parts(timeSlots, count)) {
+      timeSets.add(TimeSet.of(part));
+    }
+    return timeSets;
+  }
+
+  private static long nanos(List<TimeSlot> timeSlots) {
+    long nanos = 0;
+    for (TimeSlot timeSlot : timeSlots) {
+      nanos += timeSlot.length(ChronoUnit.NANOS);
+    }
+    return nanos;
+  }
+}
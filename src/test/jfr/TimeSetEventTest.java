@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TimeSetEventTest {
+
+  @AfterEach
+  void disable() {
+    TimeSetMetrics.setEnabled(false);
+    TimeSetMetrics.reset();
+  }
+
+  @Test
+  void flightRecorderEvents(@TempDir Path directory) throws Exception {
+    TimeSetMetrics.setEnabled(true);
+    Path file = directory.resolve("timeset.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("TimeSet.Operation");
+      recording.start();
+      TimeSet ts = TimeSet.of(TestUtils.betweenHours(1, 3));
+      ts.subtract(TestUtils.betweenHours(2, 4));
+      recording.stop();
+      recording.dump(file);
+    }
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                                              .filter(event -> event.getEventType().getName().equals("TimeSet.Operation"))
+                                              .collect(Collectors.toList());
+    assertEquals(2, events.size());
+    RecordedEvent subtract = events.get(1);
+    assertEquals("SUBTRACT", subtract.getString("operation"));
+    assertEquals(2, subtract.getInt("inputSlots"));
+    assertEquals(1, subtract.getInt("outputSlots"));
+    assertTrue(subtract.getStackTrace().getFrames().stream()
+                       .anyMatch(frame -> frame.getMethod().getName().equals("flightRecorderEvents")));
+  }
+}